@@ -0,0 +1,41 @@
+package org.jenkinsci.plugins.ivytrigger.benchmark;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks of this package.
+ * <p>
+ * Only run with <code>mvn test -Dbenchmark</code>. A subset can be selected with
+ * <code>-Dbenchmark.include=&lt;regexp&gt;</code>. The results are written to <code>target/jmh-report.json</code>
+ * and the allocation rate of each benchmark is reported by the GC profiler.
+ */
+public final class BenchmarkRunner {
+
+    @Test
+    public void runJmhBenchmarks() throws Exception {
+        Assume.assumeTrue("Benchmarks are only run with -Dbenchmark", System.getProperty("benchmark") != null);
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", BenchmarkRunner.class.getPackage().getName() + ".*Benchmark"))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json");
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package org.jenkinsci.plugins.ivytrigger.benchmark;
+
+import org.jenkinsci.plugins.ivytrigger.IvyDependencyState;
+import org.jenkinsci.plugins.ivytrigger.IvyDependencyValue;
+import org.jenkinsci.plugins.ivytrigger.IvyTriggerChangeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Measures the comparison run by <code>IvyTrigger.checkIfModified</code> between two polls,
+ * when one dependency out of a hundred has been republished, and the construction of the compared states.
+ */
+@State(Scope.Benchmark)
+public class ChangeSetBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int moduleCount;
+
+    private IvyDependencyState previousState;
+
+    private IvyDependencyState newState;
+
+    private Map<String, IvyDependencyValue> previousDependencies;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //The repository is not written: only the recorded dependencies are needed
+        SyntheticIvyRepository repository = new SyntheticIvyRepository(new File("."), moduleCount);
+        Map<String, IvyDependencyValue> newDependencies = repository.getDependencies(1L);
+        Map<String, IvyDependencyValue> republished = repository.getDependencies(2L);
+        int i = 0;
+        for (Map.Entry<String, IvyDependencyValue> dependency : republished.entrySet()) {
+            if (i++ % 100 == 0) {
+                newDependencies.put(dependency.getKey(), dependency.getValue());
+            }
+        }
+        previousDependencies = repository.getDependencies(1L);
+        previousState = IvyDependencyState.of(previousDependencies);
+        newState = IvyDependencyState.of(newDependencies);
+    }
+
+    /**
+     * Conversion of the dependencies returned by the evaluator into the state kept between polls
+     */
+    @Benchmark
+    public IvyDependencyState buildState() {
+        return IvyDependencyState.of(previousDependencies);
+    }
+
+    @Benchmark
+    public IvyTriggerChangeSet compareDependencies() {
+        return IvyTriggerChangeSet.compute(previousState, newState, false);
+    }
+
+    @Benchmark
+    public IvyTriggerChangeSet compareDependenciesAndArtifacts() {
+        return IvyTriggerChangeSet.compute(previousState, newState, true);
+    }
+}
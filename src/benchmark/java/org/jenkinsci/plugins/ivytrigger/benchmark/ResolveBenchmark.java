@@ -0,0 +1,72 @@
+package org.jenkinsci.plugins.ivytrigger.benchmark;
+
+import hudson.FilePath;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.ivytrigger.IvyEngineCache;
+import org.jenkinsci.plugins.ivytrigger.IvyResolutionOptions;
+import org.jenkinsci.plugins.ivytrigger.IvyResolutionResult;
+import org.jenkinsci.plugins.ivytrigger.IvyTriggerEvaluator;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Measures a poll of the evaluator against a local file-system repository: settings retrieval,
+ * resolution and conversion of the report with <code>getMapDependencies</code>.
+ * The Ivy engine and the cache are warm, as they are for the polls following the first one.
+ */
+@State(Scope.Benchmark)
+public class ResolveBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int moduleCount;
+
+    @Param({"false", "true"})
+    public boolean downloadArtifacts;
+
+    private File rootDir;
+
+    private SyntheticIvyRepository repository;
+
+    private XTriggerLog log;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        rootDir = Files.createTempDirectory("ivytrigger-resolve").toFile();
+        repository = new SyntheticIvyRepository(rootDir, moduleCount);
+        repository.create();
+        log = new XTriggerLog(null);
+        //Warms the engine and the cache
+        poll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        IvyEngineCache.getInstance().clear();
+        FileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public IvyResolutionResult poll() throws Exception {
+        IvyTriggerEvaluator evaluator = new IvyTriggerEvaluator("benchmark",
+                new FilePath(repository.getDescriptorFile()),
+                new FilePath(repository.getSettingsFile()),
+                null,
+                null,
+                null,
+                log,
+                Collections.<String, String>emptyMap(),
+                new IvyResolutionOptions().setDownloadArtifacts(downloadArtifacts));
+        return evaluator.invoke(rootDir, null);
+    }
+}
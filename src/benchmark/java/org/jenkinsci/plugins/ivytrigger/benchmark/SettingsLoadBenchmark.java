@@ -0,0 +1,52 @@
+package org.jenkinsci.plugins.ivytrigger.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.settings.IvySettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Measures the creation of an Ivy engine from settings, paid by every poll not served by {@link org.jenkinsci.plugins.ivytrigger.IvyEngineCache}.
+ */
+@State(Scope.Benchmark)
+public class SettingsLoadBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int resolverCount;
+
+    private File rootDir;
+
+    private File settingsFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        rootDir = Files.createTempDirectory("ivytrigger-settings").toFile();
+        settingsFile = new File(rootDir, "ivysettings.xml");
+        SyntheticIvyRepository repository = new SyntheticIvyRepository(rootDir, 0);
+        FileUtils.write(settingsFile, repository.getSettingsContent(resolverCount), StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(rootDir);
+    }
+
+    @Benchmark
+    public Ivy loadSettings() throws Exception {
+        IvySettings ivySettings = new IvySettings();
+        ivySettings.load(settingsFile);
+        ivySettings.setDefaultCache(new File(rootDir, "cache"));
+        return Ivy.newInstance(ivySettings);
+    }
+}
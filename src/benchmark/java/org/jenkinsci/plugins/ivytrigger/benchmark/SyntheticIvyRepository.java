@@ -0,0 +1,107 @@
+package org.jenkinsci.plugins.ivytrigger.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.ivytrigger.IvyArtifactValue;
+import org.jenkinsci.plugins.ivytrigger.IvyDependencyValue;
+import org.jenkinsci.plugins.ivytrigger.IvyTestRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local file-system Ivy repository holding a synthetic dependency graph.
+ * <p>
+ * The graph is a tree of <code>moduleCount</code> modules where each module depends on {@link #FAN_OUT} others.
+ * One dependency out of {@link #DYNAMIC_RATIO} is declared with <code>latest.integration</code>
+ * and every module publishes a jar and a sources jar.
+ */
+final class SyntheticIvyRepository {
+
+    static final String ORGANISATION = "org.bench";
+
+    static final int FAN_OUT = 4;
+
+    static final int DYNAMIC_RATIO = 10;
+
+    private final File rootDir;
+
+    private final int moduleCount;
+
+    private final IvyTestRepository repository;
+
+    SyntheticIvyRepository(File rootDir, int moduleCount) {
+        this.rootDir = rootDir;
+        this.moduleCount = moduleCount;
+        this.repository = new IvyTestRepository(new File(rootDir, "repository"));
+    }
+
+    /**
+     * Writes the repository, the settings and the descriptor of the module to resolve.
+     */
+    void create() throws IOException {
+        for (int i = 0; i < moduleCount; i++) {
+            List<String> dependencies = new ArrayList<>();
+            for (int child = i * FAN_OUT + 1; child <= i * FAN_OUT + FAN_OUT && child < moduleCount; child++) {
+                dependencies.add(dependency(child));
+            }
+            repository.writeModule(ORGANISATION, "m" + i, "1.0", "  <publications>\n"
+                    + "    <artifact name=\"m" + i + "\" type=\"jar\" ext=\"jar\"/>\n"
+                    + "    <artifact name=\"m" + i + "-sources\" type=\"source\" ext=\"jar\"/>\n"
+                    + "  </publications>\n"
+                    + IvyTestRepository.dependencies(dependencies.toArray(new String[0])));
+            repository.writeArtifact(ORGANISATION, "m" + i, "1.0", "m" + i, "jar");
+            repository.writeArtifact(ORGANISATION, "m" + i, "1.0", "m" + i + "-sources", "jar");
+        }
+        FileUtils.write(getDescriptorFile(), IvyTestRepository.descriptor(ORGANISATION, "root", "working", IvyTestRepository.dependencies(dependency(0))),
+                StandardCharsets.UTF_8);
+        repository.writeSettings(getSettingsFile());
+    }
+
+    File getRepositoryDir() {
+        return repository.getRepositoryDir();
+    }
+
+    File getDescriptorFile() {
+        return new File(rootDir, "ivy.xml");
+    }
+
+    File getSettingsFile() {
+        return new File(rootDir, "ivysettings.xml");
+    }
+
+    /**
+     * @param resolverCount the number of resolvers chained in front of the repository
+     */
+    String getSettingsContent(int resolverCount) {
+        return repository.getSettingsContent(resolverCount);
+    }
+
+    /**
+     * Builds the dependencies the trigger records for this graph.
+     *
+     * @param modificationDate the modification date of the artifacts
+     */
+    Map<String, IvyDependencyValue> getDependencies(long modificationDate) {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        for (int i = 0; i < moduleCount; i++) {
+            List<IvyArtifactValue> artifacts = new ArrayList<>();
+            artifacts.add(new IvyArtifactValue("m" + i, "jar", "jar", null, modificationDate, 2, null));
+            artifacts.add(new IvyArtifactValue("m" + i + "-sources", "jar", "source", null, modificationDate, 10, null));
+            dependencies.put(ORGANISATION + "#m" + i + ";" + getRequestedRevision(i), new IvyDependencyValue("1.0", artifacts));
+        }
+        return dependencies;
+    }
+
+    private static String getRequestedRevision(int module) {
+        return module % DYNAMIC_RATIO == 0 ? "latest.integration" : "1.0";
+    }
+
+    private static String dependency(int module) {
+        return IvyTestRepository.dependency(ORGANISATION, "m" + module, getRequestedRevision(module));
+    }
+}
@@ -0,0 +1,90 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+/**
+ * Buffers the messages written on an agent before sending them to the polling log of the controller.
+ * <p>
+ * Each message written to an {@link XTriggerLog} coming from the controller is a remote call.
+ * Messages are gathered and sent by chunks instead, and their total size is bounded:
+ * once the limit is reached, information messages are dropped and only their count is reported.
+ * Error messages are never dropped.
+ */
+public class BufferedXTriggerLog extends XTriggerLog {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int CHUNK_SIZE = Integer.getInteger(BufferedXTriggerLog.class.getName() + ".chunkSize", 16 * 1024);
+
+    private static final long MAX_SIZE = Long.getLong(BufferedXTriggerLog.class.getName() + ".maxSize", 2 * 1024 * 1024);
+
+    private final XTriggerLog log;
+
+    private final int chunkSize;
+
+    private final long maxSize;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private long writtenSize;
+
+    private int droppedMessages;
+
+    public BufferedXTriggerLog(XTriggerLog log) {
+        this(log, CHUNK_SIZE, MAX_SIZE);
+    }
+
+    BufferedXTriggerLog(XTriggerLog log, int chunkSize, long maxSize) {
+        super(log.getListener());
+        this.log = log;
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized void info(String message) {
+        if (message == null) {
+            return;
+        }
+        if (writtenSize + message.length() > maxSize) {
+            droppedMessages++;
+            return;
+        }
+        if (buffer.length() != 0) {
+            buffer.append('\n');
+        }
+        buffer.append(message);
+        writtenSize += message.length() + 1;
+        if (buffer.length() >= chunkSize) {
+            sendBuffer();
+        }
+    }
+
+    @Override
+    public synchronized void error(String message) {
+        sendBuffer();
+        log.error(message);
+    }
+
+    /**
+     * Sends the buffered messages to the controller.
+     * Must be called once the agent side processing is over.
+     */
+    public synchronized void flush() {
+        if (droppedMessages != 0) {
+            if (buffer.length() != 0) {
+                buffer.append('\n');
+            }
+            buffer.append(String.format("[%d log messages dropped: the polling log is limited to %d characters]", droppedMessages, maxSize));
+            droppedMessages = 0;
+        }
+        sendBuffer();
+    }
+
+    private void sendBuffer() {
+        if (buffer.length() != 0) {
+            log.info(buffer.toString());
+            buffer.setLength(0);
+        }
+    }
+}
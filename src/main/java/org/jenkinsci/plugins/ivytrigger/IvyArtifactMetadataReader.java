@@ -0,0 +1,143 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.ivy.core.cache.ArtifactOrigin;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the publication date, the size and the checksum of the artifacts of a dependency
+ * from the repository, without downloading the artifacts themselves.
+ * <p>
+ * Only the resource information (a HEAD request for URL repositories) and the small checksum files
+ * published next to the artifacts are fetched.
+ */
+public class IvyArtifactMetadataReader {
+
+    private final XTriggerLog log;
+
+    public IvyArtifactMetadataReader(XTriggerLog log) {
+        this.log = log;
+    }
+
+    /**
+     * @param dependencyNode a resolved dependency
+     * @return the metadata of the dependency artifacts, empty if the dependency has not been resolved
+     * or if it comes from a resolver not backed by a repository
+     */
+    public List<IvyArtifactValue> getArtifactValues(IvyNode dependencyNode) {
+        List<IvyArtifactValue> artifactValues = new ArrayList<>();
+
+        ResolvedModuleRevision moduleRevision = dependencyNode.getModuleRevision();
+        if (moduleRevision == null || dependencyNode.isCompletelyEvicted()) {
+            return artifactValues;
+        }
+
+        RepositoryResolver resolver = getRepositoryResolver(moduleRevision);
+        if (resolver == null) {
+            log.info(String.format("..No repository information available for the artifacts of %s.", dependencyNode.getId()));
+            return artifactValues;
+        }
+
+        Map<Artifact, Set<String>> artifactConfigurations = getArtifactConfigurations(dependencyNode);
+        for (Artifact artifact : dependencyNode.getSelectedArtifacts(null)) {
+            Set<String> configurations = artifactConfigurations.get(artifact);
+            IvyArtifactValue artifactValue = getArtifactValue(resolver, artifact,
+                    configurations == null ? null : IvyDependencyValue.joinConfigurations(configurations));
+            if (artifactValue != null) {
+                artifactValues.add(artifactValue);
+            }
+        }
+        return artifactValues;
+    }
+
+    /**
+     * @return the root configurations requiring each artifact of the dependency, the evicted ones excluded
+     */
+    private static Map<Artifact, Set<String>> getArtifactConfigurations(IvyNode dependencyNode) {
+        Map<Artifact, Set<String>> artifactConfigurations = new HashMap<>();
+        for (String configuration : dependencyNode.getRootModuleConfigurations()) {
+            if (dependencyNode.isEvicted(configuration)) {
+                continue;
+            }
+            for (Artifact artifact : dependencyNode.getArtifacts(configuration)) {
+                artifactConfigurations.computeIfAbsent(artifact, key -> new TreeSet<>()).add(configuration);
+            }
+        }
+        return artifactConfigurations;
+    }
+
+    private IvyArtifactValue getArtifactValue(RepositoryResolver resolver, Artifact artifact, String configurations) {
+        ArtifactOrigin origin = resolver.locate(artifact);
+        if (origin == null || ArtifactOrigin.isUnknown(origin)) {
+            log.info(String.format("..Can't locate the artifact %s.", artifact));
+            return null;
+        }
+
+        try {
+            Resource resource = resolver.getRepository().getResource(origin.getLocation());
+            if (!resource.exists()) {
+                log.info(String.format("..The artifact %s doesn't exist in the repository.", artifact));
+                return null;
+            }
+            String checksum = getChecksum(resolver, origin.getLocation());
+            return new IvyArtifactValue(artifact.getName(), artifact.getExt(), artifact.getType(), artifact.getExtraAttribute("classifier"),
+                    resource.getLastModified(), resource.getContentLength(), checksum, configurations);
+        } catch (IOException ioe) {
+            log.error(String.format("Can't read the repository information of the artifact %s: %s", artifact, ioe.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Reads the first published checksum of the artifact, following the checksum algorithms of the resolver.
+     *
+     * @return the checksum prefixed by the algorithm name, or <code>null</code> if no checksum is published
+     */
+    private String getChecksum(RepositoryResolver resolver, String location) throws IOException {
+        for (String algorithm : resolver.getChecksumAlgorithms()) {
+            Resource checksumResource = resolver.getRepository().getResource(location + "." + algorithm);
+            if (checksumResource.exists()) {
+                String content;
+                try (InputStream stream = checksumResource.openStream()) {
+                    content = IOUtils.toString(stream, StandardCharsets.US_ASCII).trim();
+                }
+                //Checksum files may contain the file name after the checksum value
+                content = content.split("\\s+")[0];
+                if (!content.isEmpty()) {
+                    return algorithm + ":" + content.toLowerCase(Locale.ENGLISH);
+                }
+            }
+        }
+        return null;
+    }
+
+    private RepositoryResolver getRepositoryResolver(ResolvedModuleRevision moduleRevision) {
+        //A chain resolver registers itself as artifact resolver, the resolver having found the module knows the repository
+        DependencyResolver artifactResolver = moduleRevision.getArtifactResolver();
+        if (artifactResolver instanceof RepositoryResolver) {
+            return (RepositoryResolver) artifactResolver;
+        }
+        DependencyResolver resolver = moduleRevision.getResolver();
+        if (resolver instanceof RepositoryResolver) {
+            return (RepositoryResolver) resolver;
+        }
+        return null;
+    }
+}
@@ -11,19 +11,64 @@ public class IvyArtifactValue implements Serializable {
 
     private final String extension;
 
+    private final String type;
+
+    private final String classifier;
+
     private final long lastModificationDate;
 
+    private final long size;
+
+    private final String checksum;
+
+    private final String configurations;
+
+    //Computed once, identifies the artifact within its dependency
+    private transient String key;
+
     public IvyArtifactValue(String name, String extension, long lastModificationDate) {
+        this(name, extension, lastModificationDate, -1, null);
+    }
+
+    public IvyArtifactValue(String name, String extension, long lastModificationDate, long size, String checksum) {
+        this(name, extension, null, null, lastModificationDate, size, checksum);
+    }
+
+    public IvyArtifactValue(String name, String extension, String type, String classifier, long lastModificationDate, long size, String checksum) {
+        this(name, extension, type, classifier, lastModificationDate, size, checksum, null);
+    }
+
+    public IvyArtifactValue(String name, String extension, String type, String classifier, long lastModificationDate, long size, String checksum, String configurations) {
         this.name = name;
         this.extension = extension;
+        this.type = type;
+        this.classifier = classifier;
         this.lastModificationDate = lastModificationDate;
+        this.size = size;
+        this.checksum = checksum;
+        this.configurations = configurations;
     }
 
     public String getFullName() {
+        return getFullName(name, classifier, extension);
+    }
+
+    static String getFullName(String name, String classifier, String extension) {
+        String fullName = classifier == null ? name : name + "-" + classifier;
         if (extension != null) {
-            return String.format("%s.%s", name, extension);
+            return fullName + "." + extension;
         }
-        return getName();
+        return fullName;
+    }
+
+    /**
+     * @return the coordinates of the artifact within its dependency: name, type, extension and classifier
+     */
+    public String getKey() {
+        if (key == null) {
+            key = name + ':' + type + ':' + extension + ':' + classifier;
+        }
+        return key;
     }
 
     public String getName() {
@@ -34,7 +79,36 @@ public class IvyArtifactValue implements Serializable {
         return extension;
     }
 
+    public String getType() {
+        return type;
+    }
+
+    public String getClassifier() {
+        return classifier;
+    }
+
     public long getLastModificationDate() {
         return lastModificationDate;
     }
+
+    /**
+     * @return the artifact size in bytes, or -1 if unknown
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the published checksum prefixed by its algorithm (e.g. <code>sha1:...</code>), or <code>null</code> if unknown
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return the resolved configurations requiring the artifact, comma separated, or <code>null</code> if unknown
+     */
+    public String getConfigurations() {
+        return configurations;
+    }
 }
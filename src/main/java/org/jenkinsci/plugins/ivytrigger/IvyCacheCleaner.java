@@ -0,0 +1,303 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Cleans the IvyTrigger caches of a node, from its root directory.
+ * <p>
+ * The caches of the jobs which no longer exist, or which have not polled on the node for longer than the maximum
+ * age, are removed. The modules of the remaining caches (the <code>organisation/module</code> directories) are
+ * then evicted, least recently used first, when they have not been used for longer than the maximum age and
+ * while the caches of the node exceed the quota. The polls mark the modules they resolve as used.
+ * <p>
+ * A cache in use by a poll is skipped until the next cleaning.
+ */
+public class IvyCacheCleaner extends MasterToSlaveFileCallable<IvyCacheCleaner.Report> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Caches of the jobs, by job name, relative to the node root
+     */
+    public static final String CACHE_DIR = "ivy-trigger-cache";
+
+    private final Set<String> activeNamespaces;
+
+    private final long maxBytes;
+
+    private final long maxAgeMillis;
+
+    /**
+     * @param activeNamespaces the namespaces of the jobs with an IvyTrigger
+     * @param maxBytes         the quota of the caches of the node, <code>0</code> for no quota
+     * @param maxAgeMillis     the maximum time a cache or a module is kept unused, <code>0</code> for no limit
+     */
+    public IvyCacheCleaner(Collection<String> activeNamespaces, long maxBytes, long maxAgeMillis) {
+        this.activeNamespaces = new HashSet<>(activeNamespaces);
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    @Override
+    public Report invoke(File rootDir, VirtualChannel channel) throws IOException {
+        Report report = new Report();
+        //The modification dates are compared with the clock of the node
+        long now = System.currentTimeMillis();
+
+        //1-- Remove the caches of the jobs which no longer poll on the node
+        List<File> cacheRoots = new ArrayList<>();
+        for (File namespaceDir : listDirectories(new File(rootDir, CACHE_DIR))) {
+            boolean orphan = !activeNamespaces.contains(namespaceDir.getName());
+            if ((orphan || isExpired(namespaceDir.lastModified(), now)) && removeNamespace(namespaceDir, orphan, report)) {
+                continue;
+            }
+            cacheRoots.add(namespaceDir);
+        }
+        File sharedCacheDir = new File(rootDir, IvyTriggerEvaluator.SHARED_CACHE_DIR);
+        if (sharedCacheDir.isDirectory()) {
+            cacheRoots.add(sharedCacheDir);
+        }
+
+        //2-- Evict the modules unused for too long, then the least recently used ones over the quota
+        List<CacheEntry> entries = new ArrayList<>();
+        long totalBytes = 0;
+        for (File cacheRoot : cacheRoots) {
+            totalBytes += scan(cacheRoot, entries);
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+
+        Map<File, Lock> cleaningLocks = new HashMap<>();
+        Set<File> cachesInUse = new HashSet<>();
+        try {
+            for (CacheEntry entry : entries) {
+                if (!isExpired(entry.lastUsed, now) && (maxBytes <= 0 || totalBytes <= maxBytes)) {
+                    //The next entries are more recent
+                    break;
+                }
+                if (cachesInUse.contains(entry.cacheRoot)) {
+                    continue;
+                }
+                if (!cleaningLocks.containsKey(entry.cacheRoot)) {
+                    Lock lock = IvyCacheLocks.tryLockForCleaning(entry.cacheRoot);
+                    if (lock == null) {
+                        cachesInUse.add(entry.cacheRoot);
+                        continue;
+                    }
+                    cleaningLocks.put(entry.cacheRoot, lock);
+                }
+                try {
+                    FileUtils.deleteDirectory(entry.dir);
+                    totalBytes -= entry.bytes;
+                    report.evictedModules++;
+                    report.reclaimedBytes += entry.bytes;
+                } catch (IOException ioe) {
+                    report.failures.add(entry.dir.getPath() + ": " + ioe.getMessage());
+                }
+            }
+        } finally {
+            for (Lock lock : cleaningLocks.values()) {
+                lock.unlock();
+            }
+        }
+        report.cachesInUse += cachesInUse.size();
+        report.remainingBytes = totalBytes;
+
+        if (report.reclaimedBytes > 0) {
+            //The idle engines may hold descriptors of the evicted modules in memory
+            IvyEngineCache.getInstance().clear();
+        }
+        return report;
+    }
+
+    private boolean isExpired(long lastUsed, long now) {
+        return maxAgeMillis > 0 && now - lastUsed > maxAgeMillis;
+    }
+
+    private boolean removeNamespace(File namespaceDir, boolean orphan, Report report) {
+        Lock lock = IvyCacheLocks.tryLockForCleaning(namespaceDir);
+        if (lock == null) {
+            report.cachesInUse++;
+            return false;
+        }
+        try {
+            long bytes = FileUtils.sizeOfDirectory(namespaceDir);
+            FileUtils.deleteDirectory(namespaceDir);
+            report.reclaimedBytes += bytes;
+            if (orphan) {
+                report.orphanNamespaces.add(namespaceDir.getName());
+            } else {
+                report.expiredNamespaces.add(namespaceDir.getName());
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            report.failures.add(namespaceDir.getPath() + ": " + e.getMessage());
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Walks a cache once, and collects its modules with their size.
+     *
+     * @return the size of the cache, modules included
+     */
+    private static long scan(final File cacheRoot, List<CacheEntry> entries) throws IOException {
+        final Path rootPath = cacheRoot.toPath();
+        final Map<Path, CacheEntry> entriesByPath = new LinkedHashMap<>();
+        final long[] totalBytes = new long[1];
+        Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (rootPath.relativize(dir).getNameCount() == 2 && !dir.equals(rootPath)) {
+                    entriesByPath.put(dir, new CacheEntry(cacheRoot, dir.toFile(), attrs.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                totalBytes[0] += attrs.size();
+                Path relativePath = rootPath.relativize(file);
+                if (relativePath.getNameCount() > 2) {
+                    CacheEntry entry = entriesByPath.get(rootPath.resolve(relativePath.subpath(0, 2)));
+                    if (entry != null) {
+                        entry.bytes += attrs.size();
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                //Removed by a running poll
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        entries.addAll(entriesByPath.values());
+        return totalBytes[0];
+    }
+
+    private static List<File> listDirectories(File dir) {
+        File[] children = dir.listFiles(File::isDirectory);
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        List<File> directories = new ArrayList<>(children.length);
+        Collections.addAll(directories, children);
+        return directories;
+    }
+
+    private static final class CacheEntry {
+
+        private final File cacheRoot;
+
+        private final File dir;
+
+        private final long lastUsed;
+
+        private long bytes;
+
+        private CacheEntry(File cacheRoot, File dir, long lastUsed) {
+            this.cacheRoot = cacheRoot;
+            this.dir = dir;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * What a cleaning reclaimed on a node
+     */
+    public static final class Report implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> orphanNamespaces = new ArrayList<>();
+
+        private final List<String> expiredNamespaces = new ArrayList<>();
+
+        private final List<String> failures = new ArrayList<>();
+
+        private int evictedModules;
+
+        private int cachesInUse;
+
+        private long reclaimedBytes;
+
+        private long remainingBytes;
+
+        /**
+         * @return the caches removed because their job no longer exists
+         */
+        public List<String> getOrphanNamespaces() {
+            return orphanNamespaces;
+        }
+
+        /**
+         * @return the caches removed because their job has not polled on the node for too long
+         */
+        public List<String> getExpiredNamespaces() {
+            return expiredNamespaces;
+        }
+
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        public int getEvictedModules() {
+            return evictedModules;
+        }
+
+        /**
+         * @return the caches skipped because a poll was using them
+         */
+        public int getCachesInUse() {
+            return cachesInUse;
+        }
+
+        public long getReclaimedBytes() {
+            return reclaimedBytes;
+        }
+
+        /**
+         * @return the size of the caches of the node after the cleaning
+         */
+        public long getRemainingBytes() {
+            return remainingBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s reclaimed (%d orphan caches, %d expired caches, %d modules evicted), %s remaining, %d caches in use skipped, %d failures",
+                    FileUtils.byteCountToDisplaySize(reclaimedBytes),
+                    orphanNamespaces.size(),
+                    expiredNamespaces.size(),
+                    evictedModules,
+                    FileUtils.byteCountToDisplaySize(remainingBytes),
+                    cachesInUse,
+                    failures.size());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.init.InitMilestone;
+import hudson.model.AbstractProject;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cleans the IvyTrigger caches of the controller and of the online agents periodically, with {@link IvyCacheCleaner}.
+ * <p>
+ * The caches of the deleted or renamed jobs are removed, and the modules are evicted when they have not been used
+ * for a while or when the caches of a node exceed their quota. What has been reclaimed on each node is reported
+ * in the log of the task.
+ */
+@Extension
+public class IvyCacheJanitor extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(IvyCacheJanitor.class.getName());
+
+    private static final long RECURRENCE_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong(IvyCacheJanitor.class.getName() + ".recurrenceMinutes", 360));
+
+    //Quota of the caches of each node, 0 for no quota
+    private static final long MAX_BYTES = Long.getLong(IvyCacheJanitor.class.getName() + ".maxSizeMB", 10240) * 1024 * 1024;
+
+    //Maximum time a cache or a module is kept unused, 0 for no limit
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(Long.getLong(IvyCacheJanitor.class.getName() + ".maxAgeDays", 30));
+
+    public IvyCacheJanitor() {
+        super("IvyTrigger cache janitor");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_MILLIS;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        Jenkins jenkins = Jenkins.get();
+        //Until all the jobs are loaded, their caches would look orphaned
+        if (jenkins.getInitLevel() != InitMilestone.COMPLETED) {
+            listener.getLogger().println("Jenkins is starting, the caches will be cleaned later.");
+            return;
+        }
+        Set<String> activeNamespaces = getActiveNamespaces(jenkins);
+
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(jenkins);
+        nodes.addAll(jenkins.getNodes());
+        long reclaimedBytes = 0;
+        for (Node node : nodes) {
+            FilePath rootPath = node.getRootPath();
+            if (rootPath == null) {
+                listener.getLogger().println(String.format("%s: offline, skipped.", node.getDisplayName()));
+                continue;
+            }
+            try {
+                IvyCacheCleaner.Report report = rootPath.act(new IvyCacheCleaner(activeNamespaces, MAX_BYTES, MAX_AGE_MILLIS));
+                reclaimedBytes += report.getReclaimedBytes();
+                listener.getLogger().println(String.format("%s: %s.", node.getDisplayName(), report));
+                for (String failure : report.getFailures()) {
+                    listener.getLogger().println(String.format("%s: can't remove %s", node.getDisplayName(), failure));
+                }
+            } catch (IOException ioe) {
+                listener.getLogger().println(String.format("%s: the caches can't be cleaned: %s", node.getDisplayName(), ioe.getMessage()));
+                LOGGER.log(Level.FINE, "The caches of " + node.getDisplayName() + " can't be cleaned", ioe);
+            }
+        }
+        LOGGER.fine(String.format("IvyTrigger caches cleaned: %s reclaimed.", FileUtils.byteCountToDisplaySize(reclaimedBytes)));
+    }
+
+    /**
+     * @return the cache namespaces of the jobs with an IvyTrigger, the other caches being orphaned
+     */
+    private static Set<String> getActiveNamespaces(Jenkins jenkins) {
+        Set<String> namespaces = new HashSet<>();
+        for (AbstractProject<?, ?> project : jenkins.getAllItems(AbstractProject.class)) {
+            if (project.getTrigger(IvyTrigger.class) != null) {
+                namespaces.add(project.getName());
+            }
+        }
+        return namespaces;
+    }
+}
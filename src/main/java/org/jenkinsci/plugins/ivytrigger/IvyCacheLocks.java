@@ -0,0 +1,47 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locks of the cache directories in the JVM running the resolutions (usually an agent), so that the cache
+ * cleaning never removes files from a cache a poll is using.
+ * <p>
+ * The polls share the caches they use, the cleaning takes a cache exclusively; it never waits for the polls
+ * and skips the caches in use until its next run.
+ */
+public final class IvyCacheLocks {
+
+    private static final ConcurrentMap<String, ReentrantReadWriteLock> LOCKS = new ConcurrentHashMap<>();
+
+    private IvyCacheLocks() {
+    }
+
+    /**
+     * Takes a cache for a poll, waiting for its cleaning to complete if any.
+     *
+     * @return the lock to unlock once the poll is done with the cache
+     */
+    public static Lock lockForUse(File cacheDir) {
+        Lock lock = getLock(cacheDir).readLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Takes a cache for its cleaning, if no poll is using it.
+     *
+     * @return the lock to unlock once the cleaning is done, <code>null</code> if the cache is in use
+     */
+    public static Lock tryLockForCleaning(File cacheDir) {
+        Lock lock = getLock(cacheDir).writeLock();
+        return lock.tryLock() ? lock : null;
+    }
+
+    private static ReentrantReadWriteLock getLock(File cacheDir) {
+        return LOCKS.computeIfAbsent(cacheDir.getAbsolutePath(), path -> new ReentrantReadWriteLock());
+    }
+}
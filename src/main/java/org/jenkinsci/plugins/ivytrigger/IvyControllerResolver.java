@@ -0,0 +1,140 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.FilePath;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the resolutions of the jobs polling on the controller in a bounded pool of threads.
+ * <p>
+ * These jobs don't need a workspace nor an agent: their files are read on the controller and their resolution
+ * doesn't go through remoting. The pool keeps the resolutions from taking more than a few controller threads,
+ * whatever the number of jobs polling at the same time; the other resolutions wait for a thread.
+ * <p>
+ * As the Ivy settings may load classes, the files and the settings URLs read on the controller are restricted to
+ * the locations allowed by the administrators, with the <code>allowedLocations</code> system property: a comma
+ * separated list of directories and URL prefixes. Without allowed location, the polling on the controller is disabled.
+ */
+public final class IvyControllerResolver {
+
+    private static final int THREADS = Integer.getInteger(IvyControllerResolver.class.getName() + ".threads", 4);
+
+    private static final String ALLOWED_LOCATIONS = System.getProperty(IvyControllerResolver.class.getName() + ".allowedLocations");
+
+    //Idle threads are stopped after this delay
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final IvyControllerResolver INSTANCE = new IvyControllerResolver(THREADS, ALLOWED_LOCATIONS);
+
+    private final ThreadPoolExecutor executor;
+
+    private final List<File> allowedDirectories = new ArrayList<>();
+
+    private final List<String> allowedUrls = new ArrayList<>();
+
+    IvyControllerResolver(int threads, String allowedLocations) {
+        if (allowedLocations != null) {
+            for (String location : allowedLocations.split(",")) {
+                location = location.trim();
+                if (location.contains("://")) {
+                    allowedUrls.add(location);
+                } else if (new File(location).isAbsolute()) {
+                    allowedDirectories.add(new File(location));
+                }
+            }
+        }
+        final AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "IvyTrigger controller resolution " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static IvyControllerResolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return whether the administrators allowed some locations for the polling on the controller
+     */
+    public boolean isEnabled() {
+        return !allowedDirectories.isEmpty() || !allowedUrls.isEmpty();
+    }
+
+    /**
+     * @return the directories the files read on the controller must be in, the relative paths being resolved from them
+     */
+    public List<File> getAllowedDirectories() {
+        return Collections.unmodifiableList(allowedDirectories);
+    }
+
+    /**
+     * @return whether the URL starts with an allowed URL prefix
+     */
+    public boolean isAllowed(URL url) {
+        String location = url.toExternalForm();
+        //A relative part, even encoded, could escape the prefix
+        if (location.contains("/..") || location.toLowerCase(Locale.ENGLISH).contains("%2e")) {
+            return false;
+        }
+        for (String allowedUrl : allowedUrls) {
+            if (location.startsWith(allowedUrl)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a callable on the controller in the pool, and waits for its result.
+     * The callable is cancelled when the polling thread is interrupted.
+     *
+     * @param launchDir the directory given to the callable, the root of the controller
+     */
+    public <T> T resolve(final File launchDir, final FilePath.FileCallable<T> callable) throws IOException, InterruptedException {
+        Future<T> future = executor.submit(() -> callable.invoke(launchDir, null));
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            future.cancel(true);
+            throw ie;
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return the number of resolutions waiting for a thread
+     */
+    int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+}
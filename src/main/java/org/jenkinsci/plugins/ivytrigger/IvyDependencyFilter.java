@@ -0,0 +1,219 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.IvyNodeCallers;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the dependencies of the resolved graph whose changes trigger a build.
+ * <p>
+ * Modules are selected with glob patterns on <code>organisation#module</code>; a pattern without <code>#</code>
+ * selects all the modules of an organisation. A module must match an included pattern, if any, and no excluded
+ * pattern. The depth of a module is its distance to the Ivy file in the graph, the direct dependencies being
+ * at depth 1.
+ */
+public class IvyDependencyFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> includedModules;
+
+    private final List<String> excludedModules;
+
+    private final int maxDepth;
+
+    private transient List<Pattern> includeMatchers;
+
+    private transient List<Pattern> excludeMatchers;
+
+    /**
+     * @param includedModules the patterns of the modules to select, separated by commas or spaces; all the modules if empty
+     * @param excludedModules the patterns of the modules to ignore, separated by commas or spaces
+     * @param maxDepth        the maximum depth of the selected modules, 0 for no limit
+     */
+    public IvyDependencyFilter(String includedModules, String excludedModules, int maxDepth) {
+        this.includedModules = splitPatterns(includedModules);
+        this.excludedModules = splitPatterns(excludedModules);
+        this.maxDepth = Math.max(0, maxDepth);
+    }
+
+    public boolean isEmpty() {
+        return includedModules.isEmpty() && excludedModules.isEmpty() && maxDepth == 0;
+    }
+
+    /**
+     * @return whether the modules patterns accept the module, whatever its depth
+     */
+    public boolean acceptsModule(ModuleId moduleId) {
+        String module = moduleId.getOrganisation() + "#" + moduleId.getName();
+        if (!includedModules.isEmpty() && !matches(getIncludeMatchers(), module)) {
+            return false;
+        }
+        return !matches(getExcludeMatchers(), module);
+    }
+
+    /**
+     * @return the selected dependencies of the resolution, in the order of the report
+     */
+    public List<IvyNode> filter(ResolveReport resolveReport) {
+        List<IvyNode> dependencies = resolveReport.getDependencies();
+        if (isEmpty()) {
+            return dependencies;
+        }
+
+        Map<ModuleId, Integer> depths = maxDepth == 0 ? Collections.<ModuleId, Integer>emptyMap()
+                : getDepths(resolveReport, dependencies);
+        List<IvyNode> selectedDependencies = new ArrayList<>(dependencies.size());
+        for (IvyNode dependency : dependencies) {
+            if (!acceptsModule(dependency.getModuleId())) {
+                continue;
+            }
+            if (maxDepth > 0) {
+                Integer depth = depths.get(dependency.getModuleId());
+                if (depth == null || depth > maxDepth) {
+                    continue;
+                }
+            }
+            selectedDependencies.add(dependency);
+        }
+        return selectedDependencies;
+    }
+
+    /**
+     * Computes the depth of the modules with a breadth-first walk of the resolved graph from the root module.
+     * A module is called by the modules listed as its callers in the resolved configurations, the evicted callers
+     * excepted.
+     */
+    private static Map<ModuleId, Integer> getDepths(ResolveReport resolveReport, List<IvyNode> dependencies) {
+        Map<ModuleRevisionId, IvyNode> nodes = new HashMap<>(dependencies.size() * 2);
+        for (IvyNode dependency : dependencies) {
+            nodes.put(dependency.getResolvedId(), dependency);
+        }
+
+        ModuleId rootModuleId = resolveReport.getModuleDescriptor().getModuleRevisionId().getModuleId();
+        Map<ModuleId, List<IvyNode>> calledModules = new HashMap<>();
+        for (IvyNode dependency : dependencies) {
+            for (String configuration : resolveReport.getConfigurations()) {
+                if (dependency.isEvicted(configuration)) {
+                    continue;
+                }
+                for (IvyNodeCallers.Caller caller : dependency.getCallers(configuration)) {
+                    ModuleRevisionId callerId = caller.getModuleRevisionId();
+                    if (!callerId.getModuleId().equals(rootModuleId)) {
+                        IvyNode callerNode = nodes.get(callerId);
+                        if (callerNode == null || callerNode.isEvicted(configuration)) {
+                            continue;
+                        }
+                    }
+                    calledModules.computeIfAbsent(callerId.getModuleId(), key -> new ArrayList<>()).add(dependency);
+                }
+            }
+        }
+
+        Map<ModuleId, Integer> depths = new HashMap<>();
+        depths.put(rootModuleId, 0);
+        Deque<ModuleId> modules = new ArrayDeque<>();
+        modules.add(rootModuleId);
+        while (!modules.isEmpty()) {
+            ModuleId moduleId = modules.poll();
+            List<IvyNode> called = calledModules.get(moduleId);
+            if (called == null) {
+                continue;
+            }
+            int depth = depths.get(moduleId) + 1;
+            for (IvyNode dependency : called) {
+                ModuleId calledModule = dependency.getModuleId();
+                if (!depths.containsKey(calledModule)) {
+                    depths.put(calledModule, depth);
+                    modules.add(calledModule);
+                }
+            }
+        }
+        return depths;
+    }
+
+    /**
+     * @return a description of the filter, identical for identical filters
+     */
+    public String getDescription() {
+        return "include=" + includedModules + " exclude=" + excludedModules + " maxDepth=" + maxDepth;
+    }
+
+    private List<Pattern> getIncludeMatchers() {
+        if (includeMatchers == null) {
+            includeMatchers = getMatchers(includedModules);
+        }
+        return includeMatchers;
+    }
+
+    private List<Pattern> getExcludeMatchers() {
+        if (excludeMatchers == null) {
+            excludeMatchers = getMatchers(excludedModules);
+        }
+        return excludeMatchers;
+    }
+
+    private static List<Pattern> getMatchers(List<String> patterns) {
+        List<Pattern> matchers = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            matchers.add(toRegex(pattern.contains("#") ? pattern : pattern + "#*"));
+        }
+        return matchers;
+    }
+
+    /**
+     * Translates a glob pattern, where <code>*</code> matches any sequence and <code>?</code> any character.
+     * Ivy's own glob matcher is not used as it requires Jakarta ORO.
+     */
+    private static Pattern toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > start) {
+                    regex.append(Pattern.quote(glob.substring(start, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static boolean matches(List<Pattern> matchers, String module) {
+        for (Pattern matcher : matchers) {
+            if (matcher.matcher(module).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> splitPatterns(String patterns) {
+        List<String> result = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns.split("[,\\s]+")) {
+                if (!pattern.isEmpty()) {
+                    result.add(pattern);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,240 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.latest.ArtifactInfo;
+import org.apache.ivy.plugins.latest.LatestRevisionStrategy;
+import org.apache.ivy.plugins.version.ChainVersionMatcher;
+import org.apache.ivy.plugins.version.ExactVersionMatcher;
+import org.apache.ivy.plugins.version.LatestVersionMatcher;
+import org.apache.ivy.plugins.version.SubVersionMatcher;
+import org.apache.ivy.plugins.version.VersionMatcher;
+import org.apache.ivy.plugins.version.VersionRangeMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reverse index of the dependencies recorded by the last poll of the jobs, from a module to the jobs depending on it.
+ * <p>
+ * It lets a publication notification find the jobs affected by a new revision of a module without resolving their
+ * dependencies. Nothing is persisted: the index is filled after each poll, and from the persisted contexts on the first
+ * lookup after the triggers start, so that they are not read when Jenkins starts.
+ */
+public final class IvyDependencyIndex {
+
+    private static final IvyDependencyIndex INSTANCE = new IvyDependencyIndex();
+
+    //Dependencies by module (organisation#module)
+    private final Map<String, List<Dependency>> dependenciesByModule = new HashMap<>();
+
+    //Modules by job, to replace the dependencies of a job at each poll
+    private final Map<String, List<String>> modulesByJob = new HashMap<>();
+
+    //Loaders of the dependencies persisted before the restart, by job, run on the first lookup
+    private final Map<String, Runnable> pendingLoaders = new LinkedHashMap<>();
+
+    IvyDependencyIndex() {
+    }
+
+    public static IvyDependencyIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Replaces the dependencies recorded for a job.
+     */
+    public synchronized void update(String jobFullName, IvyDependencyState state) {
+        remove(jobFullName);
+        List<String> modules = new ArrayList<>(state.size());
+        for (int i = 0; i < state.size(); i++) {
+            Dependency dependency = new Dependency(jobFullName, state.getId(i), state.getRevision(i));
+            String module = dependency.getModuleId();
+            List<Dependency> dependencies = dependenciesByModule.get(module);
+            if (dependencies == null) {
+                dependencies = new ArrayList<>(1);
+                dependenciesByModule.put(module, dependencies);
+            }
+            dependencies.add(dependency);
+            modules.add(module);
+        }
+        modulesByJob.put(jobFullName, modules);
+    }
+
+    /**
+     * Registers the loader of the dependencies persisted for a job, run on the first lookup unless the job polls before.
+     * The loader is expected to {@link #update} the index.
+     */
+    public synchronized void addPendingLoader(String jobFullName, Runnable loader) {
+        if (!modulesByJob.containsKey(jobFullName)) {
+            pendingLoaders.put(jobFullName, loader);
+        }
+    }
+
+    public synchronized void remove(String jobFullName) {
+        pendingLoaders.remove(jobFullName);
+        List<String> modules = modulesByJob.remove(jobFullName);
+        if (modules == null) {
+            return;
+        }
+        for (String module : modules) {
+            List<Dependency> dependencies = dependenciesByModule.get(module);
+            if (dependencies == null) {
+                continue;
+            }
+            for (Iterator<Dependency> iterator = dependencies.iterator(); iterator.hasNext(); ) {
+                if (iterator.next().getJobFullName().equals(jobFullName)) {
+                    iterator.remove();
+                }
+            }
+            if (dependencies.isEmpty()) {
+                dependenciesByModule.remove(module);
+            }
+        }
+    }
+
+    /**
+     * @return the dependencies of all the jobs on the module, whatever their revision
+     */
+    public List<Dependency> getDependencies(String organisation, String module) {
+        runPendingLoaders();
+        synchronized (this) {
+            List<Dependency> dependencies = dependenciesByModule.get(organisation + "#" + module);
+            return dependencies == null ? Collections.<Dependency>emptyList() : new ArrayList<>(dependencies);
+        }
+    }
+
+    //Outside of the lock of the index, the loaders taking the locks of their trigger
+    private void runPendingLoaders() {
+        List<Runnable> loaders;
+        synchronized (this) {
+            if (pendingLoaders.isEmpty()) {
+                return;
+            }
+            loaders = new ArrayList<>(pendingLoaders.values());
+            pendingLoaders.clear();
+        }
+        for (Runnable loader : loaders) {
+            loader.run();
+        }
+    }
+
+    public synchronized int getJobCount() {
+        return modulesByJob.size();
+    }
+
+    /**
+     * @return the module part of a dependency identifier (organisation#module), without the requested revision
+     */
+    public static String getModuleId(String dependencyId) {
+        int revisionSeparator = dependencyId.indexOf(';');
+        return revisionSeparator == -1 ? dependencyId : dependencyId.substring(0, revisionSeparator);
+    }
+
+    /**
+     * Dependency of a job on a module, as recorded by its last poll.
+     */
+    public static final class Dependency {
+
+        //The matchers needing no settings, to compare the requested revisions with the published ones
+        private static final VersionMatcher VERSION_MATCHER = createVersionMatcher();
+
+        //Sorts the revisions as the default latest strategy of Ivy
+        private static final Comparator<ArtifactInfo> REVISION_COMPARATOR = new LatestRevisionStrategy().getComparator();
+
+        private final String jobFullName;
+
+        private final String dependencyId;
+
+        private final String revision;
+
+        Dependency(String jobFullName, String dependencyId, String revision) {
+            this.jobFullName = jobFullName;
+            this.dependencyId = dependencyId;
+            this.revision = revision;
+        }
+
+        public String getJobFullName() {
+            return jobFullName;
+        }
+
+        /**
+         * @return the identifier of the dependency, with the requested revision
+         */
+        public String getDependencyId() {
+            return dependencyId;
+        }
+
+        /**
+         * @return the module part of the dependency identifier (organisation#module)
+         */
+        public String getModuleId() {
+            return IvyDependencyIndex.getModuleId(dependencyId);
+        }
+
+        /**
+         * @return the revision resolved by the last poll
+         */
+        public String getRevision() {
+            return revision;
+        }
+
+        /**
+         * @return whether the publication of the revision may change the resolution of the dependency:
+         * the requested revision accepts it, as the republication of the resolved revision or, for a dynamic
+         * revision, as a revision sorting after the resolved one
+         */
+        public boolean isAffectedBy(String publishedRevision) {
+            ModuleRevisionId requestedId;
+            try {
+                requestedId = ModuleRevisionId.parse(dependencyId);
+            } catch (IllegalArgumentException iae) {
+                return true;
+            }
+            ModuleRevisionId publishedId = ModuleRevisionId.newInstance(requestedId.getOrganisation(), requestedId.getName(),
+                    requestedId.getBranch(), publishedRevision);
+            if (!VERSION_MATCHER.accept(requestedId, publishedId)) {
+                return false;
+            }
+            if (revision == null || revision.equals(publishedRevision) || !VERSION_MATCHER.isDynamic(requestedId)) {
+                return true;
+            }
+            //An older revision, published late, is not the one a dynamic revision resolves to
+            return REVISION_COMPARATOR.compare(new RevisionInfo(publishedRevision), new RevisionInfo(revision)) > 0;
+        }
+
+        private static VersionMatcher createVersionMatcher() {
+            //Each matcher is added in front of the previous ones: the exact matcher is the fallback
+            ChainVersionMatcher matcher = new ChainVersionMatcher();
+            matcher.add(new ExactVersionMatcher());
+            matcher.add(new VersionRangeMatcher("range", new LatestRevisionStrategy()));
+            matcher.add(new SubVersionMatcher());
+            matcher.add(new LatestVersionMatcher());
+            return matcher;
+        }
+    }
+
+    private static final class RevisionInfo implements ArtifactInfo {
+
+        private final String revision;
+
+        private RevisionInfo(String revision) {
+            this.revision = revision;
+        }
+
+        @Override
+        public String getRevision() {
+            return revision;
+        }
+
+        @Override
+        public long getLastModified() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact and immutable form of the dependencies recorded for a job, kept by {@link IvyTriggerContext} between polls.
+ * <p>
+ * The dependencies are sorted by identifier and their artifacts by key, and stored in parallel arrays rather than in
+ * maps and lists of value objects. Identifiers, revisions and artifact coordinates are interned, so the jobs
+ * depending on the same modules share the same strings.
+ */
+public final class IvyDependencyState {
+
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+    private static final Comparator<IvyArtifactValue> ARTIFACT_ORDER = (artifact1, artifact2) ->
+            compareArtifactKeys(artifact1.getName(), artifact1.getType(), artifact1.getExtension(), artifact1.getClassifier(),
+                    artifact2.getName(), artifact2.getType(), artifact2.getExtension(), artifact2.getClassifier());
+
+    private final String[] ids;
+
+    private final String[] revisions;
+
+    //null when the configurations of the dependencies are not known
+    private final String[] configurations;
+
+    //Artifacts of the dependency i are in [artifactOffsets[i], artifactOffsets[i + 1])
+    private final int[] artifactOffsets;
+
+    private final String[] artifactNames;
+
+    private final String[] artifactTypes;
+
+    private final String[] artifactExtensions;
+
+    private final String[] artifactClassifiers;
+
+    private final long[] artifactModificationDates;
+
+    private final long[] artifactSizes;
+
+    //null when no artifact has a checksum
+    private final String[] artifactChecksums;
+
+    //null when the configurations of the artifacts are not known
+    private final String[] artifactConfigurations;
+
+    private IvyDependencyState(String[] ids, String[] revisions, String[] configurations, int[] artifactOffsets,
+                               String[] artifactNames, String[] artifactTypes, String[] artifactExtensions, String[] artifactClassifiers,
+                               long[] artifactModificationDates, long[] artifactSizes, String[] artifactChecksums, String[] artifactConfigurations) {
+        this.ids = ids;
+        this.revisions = revisions;
+        this.configurations = configurations;
+        this.artifactOffsets = artifactOffsets;
+        this.artifactNames = artifactNames;
+        this.artifactTypes = artifactTypes;
+        this.artifactExtensions = artifactExtensions;
+        this.artifactClassifiers = artifactClassifiers;
+        this.artifactModificationDates = artifactModificationDates;
+        this.artifactSizes = artifactSizes;
+        this.artifactChecksums = artifactChecksums;
+        this.artifactConfigurations = artifactConfigurations;
+    }
+
+    /**
+     * @param dependencies the dependencies by identifier; a dependency without artifact list is recorded without artifacts
+     */
+    public static IvyDependencyState of(Map<String, IvyDependencyValue> dependencies) {
+        String[] ids = dependencies.keySet().toArray(new String[0]);
+        Arrays.sort(ids);
+
+        int artifactCount = 0;
+        for (IvyDependencyValue dependency : dependencies.values()) {
+            if (dependency.getArtifacts() != null) {
+                artifactCount += dependency.getArtifacts().size();
+            }
+        }
+
+        String[] revisions = new String[ids.length];
+        String[] configurations = new String[ids.length];
+        boolean dependencyConfigurations = false;
+        int[] artifactOffsets = new int[ids.length + 1];
+        String[] artifactNames = new String[artifactCount];
+        String[] artifactTypes = new String[artifactCount];
+        String[] artifactExtensions = new String[artifactCount];
+        String[] artifactClassifiers = new String[artifactCount];
+        long[] artifactModificationDates = new long[artifactCount];
+        long[] artifactSizes = new long[artifactCount];
+        String[] artifactChecksums = new String[artifactCount];
+        String[] artifactConfigurations = new String[artifactCount];
+        boolean checksums = false;
+        boolean artifactsConfigurations = false;
+
+        int artifactIndex = 0;
+        for (int i = 0; i < ids.length; i++) {
+            IvyDependencyValue dependency = dependencies.get(ids[i]);
+            ids[i] = intern(ids[i]);
+            revisions[i] = intern(dependency.getRevision());
+            configurations[i] = intern(dependency.getConfigurations());
+            dependencyConfigurations |= dependency.getConfigurations() != null;
+            artifactOffsets[i] = artifactIndex;
+            if (dependency.getArtifacts() == null) {
+                continue;
+            }
+            List<IvyArtifactValue> artifacts = new ArrayList<>(dependency.getArtifacts());
+            artifacts.sort(ARTIFACT_ORDER);
+            for (IvyArtifactValue artifact : artifacts) {
+                artifactNames[artifactIndex] = intern(artifact.getName());
+                artifactTypes[artifactIndex] = intern(artifact.getType());
+                artifactExtensions[artifactIndex] = intern(artifact.getExtension());
+                artifactClassifiers[artifactIndex] = intern(artifact.getClassifier());
+                artifactModificationDates[artifactIndex] = artifact.getLastModificationDate();
+                artifactSizes[artifactIndex] = artifact.getSize();
+                artifactChecksums[artifactIndex] = artifact.getChecksum();
+                checksums |= artifact.getChecksum() != null;
+                artifactConfigurations[artifactIndex] = intern(artifact.getConfigurations());
+                artifactsConfigurations |= artifact.getConfigurations() != null;
+                artifactIndex++;
+            }
+        }
+        artifactOffsets[ids.length] = artifactIndex;
+
+        return new IvyDependencyState(ids, revisions, dependencyConfigurations ? configurations : null, artifactOffsets,
+                artifactNames, artifactTypes, artifactExtensions, artifactClassifiers,
+                artifactModificationDates, artifactSizes, checksums ? artifactChecksums : null,
+                artifactsConfigurations ? artifactConfigurations : null);
+    }
+
+    /**
+     * @return a copy of the dependencies as value objects, for persistence and display
+     */
+    public Map<String, IvyDependencyValue> toMap() {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            List<IvyArtifactValue> artifacts = new ArrayList<>(getArtifactCount(i));
+            for (int artifact = artifactOffsets[i]; artifact < artifactOffsets[i + 1]; artifact++) {
+                artifacts.add(getArtifact(artifact));
+            }
+            dependencies.put(ids[i], new IvyDependencyValue(revisions[i], artifacts, getConfigurations(i)));
+        }
+        return dependencies;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return the index of the dependency, or a negative value if there is no such dependency
+     */
+    public int indexOf(String id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    public String getRevision(int index) {
+        return revisions[index];
+    }
+
+    /**
+     * @return the resolved configurations including the dependency, comma separated, or <code>null</code> if unknown
+     */
+    public String getConfigurations(int index) {
+        return configurations == null ? null : configurations[index];
+    }
+
+    public int getArtifactCount(int index) {
+        return artifactOffsets[index + 1] - artifactOffsets[index];
+    }
+
+    /**
+     * @return the position of the first artifact of the dependency in the artifact arrays
+     */
+    int getFirstArtifact(int index) {
+        return artifactOffsets[index];
+    }
+
+    IvyArtifactValue getArtifact(int artifact) {
+        return new IvyArtifactValue(artifactNames[artifact], artifactExtensions[artifact], artifactTypes[artifact], artifactClassifiers[artifact],
+                artifactModificationDates[artifact], artifactSizes[artifact], getArtifactChecksum(artifact), getArtifactConfigurations(artifact));
+    }
+
+    String getArtifactFullName(int artifact) {
+        return IvyArtifactValue.getFullName(artifactNames[artifact], artifactClassifiers[artifact], artifactExtensions[artifact]);
+    }
+
+    long getArtifactModificationDate(int artifact) {
+        return artifactModificationDates[artifact];
+    }
+
+    long getArtifactSize(int artifact) {
+        return artifactSizes[artifact];
+    }
+
+    String getArtifactChecksum(int artifact) {
+        return artifactChecksums == null ? null : artifactChecksums[artifact];
+    }
+
+    String getArtifactConfigurations(int artifact) {
+        return artifactConfigurations == null ? null : artifactConfigurations[artifact];
+    }
+
+    /**
+     * Compares the keys of two artifacts, in the order the artifacts of a dependency are sorted.
+     */
+    static int compareArtifactKeys(IvyDependencyState state1, int artifact1, IvyDependencyState state2, int artifact2) {
+        return compareArtifactKeys(state1.artifactNames[artifact1], state1.artifactTypes[artifact1], state1.artifactExtensions[artifact1], state1.artifactClassifiers[artifact1],
+                state2.artifactNames[artifact2], state2.artifactTypes[artifact2], state2.artifactExtensions[artifact2], state2.artifactClassifiers[artifact2]);
+    }
+
+    private static int compareArtifactKeys(String name1, String type1, String extension1, String classifier1,
+                                           String name2, String type2, String extension2, String classifier2) {
+        int result = compare(name1, name2);
+        if (result == 0) {
+            result = compare(type1, type2);
+        }
+        if (result == 0) {
+            result = compare(extension1, extension2);
+        }
+        if (result == 0) {
+            result = compare(classifier1, classifier2);
+        }
+        return result;
+    }
+
+    private static int compare(String value1, String value2) {
+        //Interned values are usually the same instance
+        if (value1 == value2) {
+            return 0;
+        }
+        if (value1 == null) {
+            return -1;
+        }
+        if (value2 == null) {
+            return 1;
+        }
+        return value1.compareTo(value2);
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : INTERNER.intern(value);
+    }
+}
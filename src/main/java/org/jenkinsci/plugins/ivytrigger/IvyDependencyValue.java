@@ -1,6 +1,7 @@
 package org.jenkinsci.plugins.ivytrigger;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,9 +13,24 @@ public class IvyDependencyValue implements Serializable {
 
     private final List<IvyArtifactValue> artifacts;
 
+    private final String configurations;
+
     public IvyDependencyValue(String revision, List<IvyArtifactValue> artifacts) {
+        this(revision, artifacts, null);
+    }
+
+    public IvyDependencyValue(String revision, List<IvyArtifactValue> artifacts, String configurations) {
         this.revision = revision;
         this.artifacts = artifacts;
+        this.configurations = configurations;
+    }
+
+    /**
+     * @param configurations configuration names, sorted
+     * @return the configurations comma separated, or <code>null</code> if there is none
+     */
+    static String joinConfigurations(Collection<String> configurations) {
+        return configurations.isEmpty() ? null : String.join(",", configurations);
     }
 
     public String getRevision() {
@@ -24,4 +40,11 @@ public class IvyDependencyValue implements Serializable {
     public List<IvyArtifactValue> getArtifacts() {
         return artifacts;
     }
+
+    /**
+     * @return the resolved configurations including the dependency, comma separated, or <code>null</code> if unknown
+     */
+    public String getConfigurations() {
+        return configurations;
+    }
 }
@@ -0,0 +1,165 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.ivy.Ivy;
+import org.jenkinsci.plugins.ivytrigger.util.ContentDigest;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps warm {@link Ivy} engines between polls in the JVM running the resolution (usually an agent).
+ * <p>
+ * Engines are keyed by a digest of the settings content, the resolved variables and the cache directories,
+ * so two polls only share an engine when they would have built an identical one.
+ * An engine is leased to a single poll at a time: {@link #acquire(String)} takes an idle engine out of the cache
+ * and {@link #release(String, Ivy)} gives it back once the resolution is over.
+ * Idle engines are evicted when they have not been used for a while or when there are too many of them,
+ * and engines are dropped once they reach a maximum age however often they are used.
+ * <p>
+ * Settings reading other files (include, properties, credentials) are not cached: the content of these files is not
+ * part of the key, and an engine would keep the values they had when it was loaded.
+ */
+public final class IvyEngineCache {
+
+    private static final int MAX_IDLE_ENGINES = Integer.getInteger(IvyEngineCache.class.getName() + ".maxSize", 32);
+
+    private static final long MAX_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong(IvyEngineCache.class.getName() + ".maxIdleMinutes", 30));
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong(IvyEngineCache.class.getName() + ".maxAgeMinutes", 120));
+
+    private static final IvyEngineCache INSTANCE = new IvyEngineCache(MAX_IDLE_ENGINES, MAX_IDLE_MILLIS, MAX_AGE_MILLIS);
+
+    private final int maxIdleEngines;
+
+    private final long maxIdleMillis;
+
+    private final long maxAgeMillis;
+
+    //Idle engines, the most recently released at the end
+    private final LinkedList<CachedEngine> idleEngines = new LinkedList<>();
+
+    //Time each engine was first released, kept while it is leased
+    private final Map<Ivy, Long> creationTimes = new WeakHashMap<>();
+
+    IvyEngineCache(int maxIdleEngines, long maxIdleMillis, long maxAgeMillis) {
+        this.maxIdleEngines = maxIdleEngines;
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public static IvyEngineCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Computes the key identifying an engine.
+     *
+     * @param settingsContent    the Ivy settings content
+     * @param variables          the variables injected into the settings, sorted by name
+     * @param cacheDir           the cache directory of the engine
+     * @param repositoryCacheDir the repository cache directory of the engine if it differs from <code>cacheDir</code>, <code>null</code> otherwise
+     * @return a hex-encoded SHA-256 digest, <code>null</code> if the settings read other files and the engine can't be cached
+     */
+    public static String computeKey(String settingsContent, Map<String, String> variables, File cacheDir, File repositoryCacheDir) {
+        if (IvyResolutionCoalescer.includesOtherFiles(settingsContent)) {
+            return null;
+        }
+        return new ContentDigest()
+                .add(settingsContent)
+                .add(variables)
+                .add(cacheDir.getAbsolutePath())
+                .add(repositoryCacheDir == null ? null : repositoryCacheDir.getAbsolutePath())
+                .toHex();
+    }
+
+    /**
+     * Takes an idle engine for the given key out of the cache.
+     *
+     * @param key the engine key, <code>null</code> for an engine which is not cached
+     * @return the engine, or <code>null</code> if there is no idle engine for this key
+     */
+    public synchronized Ivy acquire(String key) {
+        if (key == null) {
+            return null;
+        }
+        evictExpired(System.currentTimeMillis());
+        Iterator<CachedEngine> it = idleEngines.descendingIterator();
+        while (it.hasNext()) {
+            CachedEngine cachedEngine = it.next();
+            if (cachedEngine.key.equals(key)) {
+                it.remove();
+                return cachedEngine.ivy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives an engine back to the cache once the caller is done with it.
+     *
+     * @param key the engine key, <code>null</code> for an engine which is not cached
+     * @param ivy the engine
+     */
+    public synchronized void release(String key, Ivy ivy) {
+        if (key == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Long created = creationTimes.get(ivy);
+        if (created == null) {
+            created = now;
+            creationTimes.put(ivy, created);
+        } else if (now - created > maxAgeMillis) {
+            creationTimes.remove(ivy);
+            return;
+        }
+        //Messages accumulated by the logger engine would otherwise grow with every poll
+        ivy.getLoggerEngine().clearProblems();
+        idleEngines.addLast(new CachedEngine(key, ivy, created, now));
+        evictExpired(now);
+        while (idleEngines.size() > maxIdleEngines) {
+            idleEngines.removeFirst();
+        }
+    }
+
+    public synchronized int size() {
+        return idleEngines.size();
+    }
+
+    public synchronized void clear() {
+        idleEngines.clear();
+        creationTimes.clear();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<CachedEngine> it = idleEngines.iterator();
+        while (it.hasNext()) {
+            CachedEngine cachedEngine = it.next();
+            if (now - cachedEngine.lastReleased > maxIdleMillis || now - cachedEngine.created > maxAgeMillis) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class CachedEngine {
+
+        private final String key;
+
+        private final Ivy ivy;
+
+        private final long created;
+
+        private final long lastReleased;
+
+        private CachedEngine(String key, Ivy ivy, long created, long lastReleased) {
+            this.key = key;
+            this.ivy = ivy;
+            this.created = created;
+            this.lastReleased = lastReleased;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.event.download.PrepareDownloadEvent;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.DownloadOptions;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.plugins.resolver.AbstractPatternsBasedResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
+import org.apache.ivy.util.AbstractMessageLogger;
+import org.apache.ivy.util.Message;
+import org.apache.ivy.util.MessageLogger;
+import org.apache.ivy.util.filter.Filter;
+
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fetches the artifacts, or their repository metadata, of the dependencies of a resolution in parallel.
+ * <p>
+ * Ivy downloads the artifacts of a resolution one dependency after the other. The fetches are spread here
+ * over a pool of threads, virtual threads when the JVM provides them, with a limit on the concurrent
+ * fetches on each repository host. The download reports are then added to the resolve report in the
+ * resolution order, as Ivy does, so the report is the same as with a serial download.
+ * <p>
+ * The Ivy resolvers are not thread-safe (download attempts, resource caches): the fetches going through the same
+ * resolver, or through chains sharing a resolver, run one after the other, only the fetches through distinct
+ * resolvers run in parallel. A failed download is reported by its resolver right after the download, as Ivy does.
+ * <p>
+ * The Ivy loggers are not thread-safe either: each fetch logs in its own buffer, and the buffers are replayed
+ * in the resolution order on the calling thread once the fetches are over.
+ * <p>
+ * The fetches are serial unless the <code>threads</code> system property is greater than 1.
+ */
+public final class IvyParallelFetcher {
+
+    private static final int THREADS = Integer.getInteger(IvyParallelFetcher.class.getName() + ".threads", 1);
+
+    private static final int MAX_FETCHES_PER_HOST = Integer.getInteger(IvyParallelFetcher.class.getName() + ".maxFetchesPerHost", 4);
+
+    //Executors.newVirtualThreadPerTaskExecutor(), null before Java 21
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = getVirtualThreadExecutorFactory();
+
+    private final Ivy ivy;
+
+    private final int threads;
+
+    private final int maxFetchesPerHost;
+
+    private final Map<String, Semaphore> hostSemaphores = new HashMap<>();
+
+    //Locks of the resolvers, in their acquisition order
+    private final Map<DependencyResolver, ResolverLock> resolverLocks = new IdentityHashMap<>();
+
+    public IvyParallelFetcher(Ivy ivy) {
+        this(ivy, THREADS, MAX_FETCHES_PER_HOST);
+    }
+
+    IvyParallelFetcher(Ivy ivy, int threads, int maxFetchesPerHost) {
+        this.ivy = ivy;
+        this.threads = Math.max(1, threads);
+        this.maxFetchesPerHost = Math.max(1, maxFetchesPerHost);
+    }
+
+    /**
+     * @return whether the artifacts are downloaded by this fetcher rather than by Ivy during the resolution
+     */
+    public boolean isParallelDownloadEnabled() {
+        return threads > 1;
+    }
+
+    /**
+     * Downloads the artifacts of a resolution made without download, and completes its report.
+     *
+     * @param report         the report of the resolution
+     * @param artifactFilter the artifact filter of the resolution
+     * @param logLevel       the log level of the resolution
+     */
+    public void downloadArtifacts(ResolveReport report, Filter<Artifact> artifactFilter, String logLevel) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        ivy.pushContext();
+        try {
+            ivy.getEventManager().fireIvyEvent(new PrepareDownloadEvent(report.getArtifacts().toArray(new Artifact[0])));
+
+            List<IvyNode> dependencies = new ArrayList<>();
+            for (IvyNode dependency : report.getDependencies()) {
+                if (!dependency.isCompletelyEvicted() && !dependency.hasProblem() && dependency.getModuleRevision() != null) {
+                    dependencies.add(dependency);
+                }
+            }
+
+            List<DownloadReport> downloadReports = fetch(dependencies, dependency -> {
+                DownloadOptions options = new DownloadOptions();
+                options.setLog(logLevel);
+                DependencyResolver resolver = dependency.getModuleRevision().getArtifactResolver();
+                DownloadReport downloadReport = resolver.download(dependency.getSelectedArtifacts(artifactFilter), options);
+                //The failures are reported from the attempts of this download, before the resolver runs another one
+                for (ArtifactDownloadReport artifactReport : downloadReport.getArtifactsReports()) {
+                    if (artifactReport.getDownloadStatus() == DownloadStatus.FAILED) {
+                        if (artifactReport.getArtifact().getExtraAttribute("ivy:merged") != null) {
+                            Message.warn("\tmerged artifact not found: " + artifactReport.getArtifact()
+                                    + ". It was required in " + artifactReport.getArtifact().getExtraAttribute("ivy:merged"));
+                        } else {
+                            Message.warn("\t" + artifactReport);
+                            resolver.reportFailure(artifactReport.getArtifact());
+                        }
+                    }
+                }
+                return downloadReport;
+            });
+
+            //Same bookkeeping as ResolveEngine.downloadArtifacts()
+            long totalSize = 0;
+            for (int i = 0; i < dependencies.size(); i++) {
+                IvyNode dependency = dependencies.get(i);
+                DownloadReport downloadReport = downloadReports.get(i);
+                for (ArtifactDownloadReport artifactReport : downloadReport.getArtifactsReports()) {
+                    if (artifactReport.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+                        totalSize += artifactReport.getSize();
+                    }
+                }
+                for (String configuration : dependency.getRootModuleConfigurations()) {
+                    if (dependency.isEvicted(configuration) || dependency.isBlacklisted(configuration)) {
+                        report.getConfigurationReport(configuration).addDependency(dependency);
+                    } else {
+                        report.getConfigurationReport(configuration).addDependency(dependency, downloadReport);
+                    }
+                }
+            }
+            report.setDownloadTime(System.currentTimeMillis() - start);
+            report.setDownloadSize(totalSize);
+        } finally {
+            ivy.popContext();
+        }
+    }
+
+    /**
+     * Reads the repository metadata of the artifacts of the dependencies.
+     *
+     * @return the artifact values of each dependency, in the order of the dependencies;
+     * <code>null</code> for a dependency whose metadata can't be read
+     */
+    public List<List<IvyArtifactValue>> readArtifactMetadata(List<IvyNode> dependencies, IvyArtifactMetadataReader metadataReader) throws InterruptedException {
+        return fetch(dependencies, dependency -> {
+            try {
+                return metadataReader.getArtifactValues(dependency);
+            } catch (RuntimeException re) {
+                return null;
+            }
+        });
+    }
+
+    private <T> List<T> fetch(List<IvyNode> dependencies, Fetch<T> fetch) throws InterruptedException {
+        Semaphore slots = new Semaphore(threads);
+        ExecutorService executor = newExecutor(threads);
+        try {
+            List<Future<FetchResult<T>>> futures = new ArrayList<>(dependencies.size());
+            for (IvyNode dependency : dependencies) {
+                Semaphore hostSlots = getHostSemaphore(getRepositoryHost(dependency));
+                List<Lock> locks = getResolverLocks(dependency.getModuleRevision().getArtifactResolver(), dependency.getModuleRevision().getResolver());
+                futures.add(executor.submit(() -> {
+                    BufferedMessageLogger log = new BufferedMessageLogger();
+                    Ivy workerIvy = newWorkerIvy(log);
+                    //The resolvers are locked first, not to hold the slots of the other fetches while waiting for them
+                    lockAll(locks);
+                    try {
+                        hostSlots.acquire();
+                        try {
+                            slots.acquire();
+                            workerIvy.pushContext();
+                            try {
+                                return new FetchResult<>(fetch.fetch(dependency), log);
+                            } finally {
+                                workerIvy.popContext();
+                                slots.release();
+                            }
+                        } finally {
+                            hostSlots.release();
+                        }
+                    } finally {
+                        unlockAll(locks);
+                    }
+                }));
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<FetchResult<T>> future : futures) {
+                try {
+                    FetchResult<T> result = future.get();
+                    result.log.replay(ivy.getLoggerEngine());
+                    results.add(result.value);
+                } catch (ExecutionException ee) {
+                    Throwable cause = ee.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return an Ivy sharing the settings and the engines of the resolution, with its own logger
+     */
+    private Ivy newWorkerIvy(MessageLogger log) {
+        Ivy workerIvy = new Ivy();
+        workerIvy.setSettings(ivy.getSettings());
+        workerIvy.setEventManager(ivy.getEventManager());
+        workerIvy.setSortEngine(ivy.getSortEngine());
+        workerIvy.setSearchEngine(ivy.getSearchEngine());
+        workerIvy.setResolveEngine(ivy.getResolveEngine());
+        workerIvy.getLoggerEngine().setDefaultLogger(log);
+        return workerIvy;
+    }
+
+    /**
+     * @return the locks of the resolvers and of the resolvers they delegate to, in their acquisition order
+     */
+    private List<Lock> getResolverLocks(DependencyResolver... fetchResolvers) {
+        Set<DependencyResolver> resolvers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DependencyResolver resolver : fetchResolvers) {
+            addResolvers(resolver, resolvers);
+        }
+        List<ResolverLock> locks = new ArrayList<>(resolvers.size());
+        for (DependencyResolver delegate : resolvers) {
+            ResolverLock lock = resolverLocks.get(delegate);
+            if (lock == null) {
+                lock = new ResolverLock(resolverLocks.size());
+                resolverLocks.put(delegate, lock);
+            }
+            locks.add(lock);
+        }
+        //Always acquired in the same order, so that two fetches can't wait for each other
+        locks.sort(Comparator.comparingInt(lock -> lock.order));
+        return new ArrayList<>(locks);
+    }
+
+    private static void addResolvers(DependencyResolver resolver, Set<DependencyResolver> resolvers) {
+        if (resolver == null || !resolvers.add(resolver)) {
+            return;
+        }
+        if (resolver instanceof ChainResolver) {
+            for (DependencyResolver delegate : ((ChainResolver) resolver).getResolvers()) {
+                addResolvers(delegate, resolvers);
+            }
+        } else if (resolver instanceof DualResolver) {
+            addResolvers(((DualResolver) resolver).getIvyResolver(), resolvers);
+            addResolvers(((DualResolver) resolver).getArtifactResolver(), resolvers);
+        }
+    }
+
+    private static void lockAll(List<Lock> locks) throws InterruptedException {
+        for (int i = 0; i < locks.size(); i++) {
+            try {
+                locks.get(i).lockInterruptibly();
+            } catch (InterruptedException ie) {
+                unlockAll(locks.subList(0, i));
+                throw ie;
+            }
+        }
+    }
+
+    private static void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private Semaphore getHostSemaphore(String host) {
+        Semaphore semaphore = hostSemaphores.get(host);
+        if (semaphore == null) {
+            semaphore = new Semaphore(maxFetchesPerHost);
+            hostSemaphores.put(host, semaphore);
+        }
+        return semaphore;
+    }
+
+    /**
+     * @return the host of the repository the dependency has been resolved from,
+     * the name of its resolver when the repository is not remote
+     */
+    private static String getRepositoryHost(IvyNode dependency) {
+        DependencyResolver resolver = dependency.getModuleRevision().getResolver();
+        if (resolver instanceof AbstractPatternsBasedResolver) {
+            for (String pattern : ((AbstractPatternsBasedResolver) resolver).getArtifactPatterns()) {
+                String host = getHost(pattern);
+                if (host != null) {
+                    return host;
+                }
+            }
+        }
+        return resolver == null ? "" : resolver.getName();
+    }
+
+    /**
+     * @param pattern a resolver pattern
+     * @return the host (host[:port]) of a URL pattern, <code>null</code> for a file-system pattern
+     */
+    static String getHost(String pattern) {
+        try {
+            URL url = new URL(pattern);
+            if (url.getHost() == null || url.getHost().isEmpty()) {
+                return null;
+            }
+            return url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort();
+        } catch (MalformedURLException mue) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                //Fall back on platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "IvyTrigger artifact fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method getVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException nsme) {
+            return null;
+        }
+    }
+
+    private interface Fetch<T> {
+        T fetch(IvyNode dependency) throws Exception;
+    }
+
+    private static final class ResolverLock extends ReentrantLock {
+
+        private final int order;
+
+        private ResolverLock(int order) {
+            this.order = order;
+        }
+    }
+
+    private static final class FetchResult<T> {
+
+        private final T value;
+
+        private final BufferedMessageLogger log;
+
+        private FetchResult(T value, BufferedMessageLogger log) {
+            this.value = value;
+            this.log = log;
+        }
+    }
+
+    /**
+     * Keeps the messages of a fetch, to log them later on the calling thread
+     */
+    static final class BufferedMessageLogger extends AbstractMessageLogger {
+
+        //Level of the progress ends, which are not logged with a level
+        private static final int END_PROGRESS = Integer.MIN_VALUE;
+
+        private final List<BufferedMessage> messages = new ArrayList<>();
+
+        @Override
+        public void log(String msg, int level) {
+            messages.add(new BufferedMessage(msg, level, false));
+        }
+
+        @Override
+        public void rawlog(String msg, int level) {
+            messages.add(new BufferedMessage(msg, level, true));
+        }
+
+        @Override
+        protected void doProgress() {
+            //The progress ticks are not replayed
+        }
+
+        @Override
+        protected void doEndProgress(String msg) {
+            messages.add(new BufferedMessage(msg, END_PROGRESS, false));
+        }
+
+        /**
+         * Logs the messages again, the warnings and the errors being recorded as problems by the target.
+         */
+        void replay(MessageLogger target) {
+            for (BufferedMessage message : messages) {
+                if (message.level == END_PROGRESS) {
+                    target.endProgress(message.msg);
+                } else if (message.raw) {
+                    target.rawlog(message.msg, message.level);
+                } else if (message.level == Message.MSG_WARN) {
+                    target.warn(message.msg);
+                } else if (message.level == Message.MSG_ERR) {
+                    target.error(message.msg);
+                } else {
+                    target.log(message.msg, message.level);
+                }
+            }
+            messages.clear();
+        }
+    }
+
+    private static final class BufferedMessage {
+
+        private final String msg;
+
+        private final int level;
+
+        private final boolean raw;
+
+        private BufferedMessage(String msg, int level, boolean raw) {
+            this.msg = msg;
+            this.level = level;
+            this.raw = raw;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.io.Serializable;
+
+/**
+ * What a poll cost.
+ * <p>
+ * The resolution figures are measured by {@link IvyTriggerEvaluator} on the polling node,
+ * the poll and comparison times by {@link IvyTrigger} on the controller. Times are in milliseconds,
+ * -1 when the step has not run.
+ */
+public class IvyPollStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long timestamp = System.currentTimeMillis();
+
+    private boolean engineReused;
+
+    private long settingsLoadMillis = -1;
+
+    private long resolveMillis = -1;
+
+    private boolean resolutionSkipped;
+
+    private boolean shared;
+
+    private boolean throttled;
+
+    private int moduleCount;
+
+    private int downloadedArtifacts;
+
+    private long downloadedBytes;
+
+    private int cachedArtifacts;
+
+    private int errorCount;
+
+    private long diffMillis = -1;
+
+    private long pollMillis = -1;
+
+    public IvyPollStatistics copy() {
+        IvyPollStatistics copy = new IvyPollStatistics();
+        copy.timestamp = timestamp;
+        copy.engineReused = engineReused;
+        copy.settingsLoadMillis = settingsLoadMillis;
+        copy.resolveMillis = resolveMillis;
+        copy.resolutionSkipped = resolutionSkipped;
+        copy.shared = shared;
+        copy.throttled = throttled;
+        copy.moduleCount = moduleCount;
+        copy.downloadedArtifacts = downloadedArtifacts;
+        copy.downloadedBytes = downloadedBytes;
+        copy.cachedArtifacts = cachedArtifacts;
+        copy.errorCount = errorCount;
+        copy.diffMillis = diffMillis;
+        copy.pollMillis = pollMillis;
+        return copy;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isEngineReused() {
+        return engineReused;
+    }
+
+    public void setEngineReused(boolean engineReused) {
+        this.engineReused = engineReused;
+    }
+
+    public long getSettingsLoadMillis() {
+        return settingsLoadMillis;
+    }
+
+    public void setSettingsLoadMillis(long settingsLoadMillis) {
+        this.settingsLoadMillis = settingsLoadMillis;
+    }
+
+    public long getResolveMillis() {
+        return resolveMillis;
+    }
+
+    public void setResolveMillis(long resolveMillis) {
+        this.resolveMillis = resolveMillis;
+    }
+
+    public boolean isResolutionSkipped() {
+        return resolutionSkipped;
+    }
+
+    public void setResolutionSkipped(boolean resolutionSkipped) {
+        this.resolutionSkipped = resolutionSkipped;
+    }
+
+    /**
+     * @return whether the dependencies have been resolved by the poll of another job
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * @return whether the poll has been skipped by {@link IvyPollingThrottle}
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    public void setModuleCount(int moduleCount) {
+        this.moduleCount = moduleCount;
+    }
+
+    public int getDownloadedArtifacts() {
+        return downloadedArtifacts;
+    }
+
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
+    public void addDownloadedArtifact(long size) {
+        downloadedArtifacts++;
+        downloadedBytes += Math.max(0, size);
+    }
+
+    /**
+     * @return the number of artifacts found in the cache
+     */
+    public int getCachedArtifacts() {
+        return cachedArtifacts;
+    }
+
+    public void addCachedArtifact() {
+        cachedArtifacts++;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void addErrors(int count) {
+        errorCount += count;
+    }
+
+    public long getDiffMillis() {
+        return diffMillis;
+    }
+
+    public void setDiffMillis(long diffMillis) {
+        this.diffMillis = diffMillis;
+    }
+
+    public long getPollMillis() {
+        return pollMillis;
+    }
+
+    public void setPollMillis(long pollMillis) {
+        this.pollMillis = pollMillis;
+    }
+}
@@ -0,0 +1,241 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the cost of the IvyTrigger polls, by job.
+ * <p>
+ * Each job keeps the statistics of its last polls and running totals since the controller started.
+ * Nothing is persisted.
+ */
+public final class IvyPollingMetrics {
+
+    private static final int HISTORY_SIZE = Integer.getInteger(IvyPollingMetrics.class.getName() + ".historySize", 50);
+
+    private static final IvyPollingMetrics INSTANCE = new IvyPollingMetrics(HISTORY_SIZE);
+
+    private final int historySize;
+
+    private final Map<String, JobMetrics> jobs = new HashMap<>();
+
+    IvyPollingMetrics(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public static IvyPollingMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param jobFullName the full name of the job
+     * @param jobUrl      the URL of the job, relative to the Jenkins root
+     * @return the metrics of the job, created on first use
+     */
+    public synchronized JobMetrics getJobMetrics(String jobFullName, String jobUrl) {
+        JobMetrics jobMetrics = jobs.get(jobFullName);
+        if (jobMetrics == null) {
+            jobMetrics = new JobMetrics(jobFullName, jobUrl, historySize);
+            jobs.put(jobFullName, jobMetrics);
+        }
+        return jobMetrics;
+    }
+
+    /**
+     * @return the metrics of the job, <code>null</code> if it has not polled yet
+     */
+    public synchronized JobMetrics getJobMetrics(String jobFullName) {
+        return jobs.get(jobFullName);
+    }
+
+    /**
+     * Forgets the metrics of a job, when its trigger is stopped (job deleted, renamed or reconfigured).
+     *
+     * @param jobFullName the full name of the job
+     */
+    public synchronized void remove(String jobFullName) {
+        jobs.remove(jobFullName);
+    }
+
+    /**
+     * @return the metrics of all the jobs, the most expensive first
+     */
+    public synchronized List<JobMetrics> getAllJobMetrics() {
+        List<JobMetrics> allJobMetrics = new ArrayList<>(jobs.values());
+        allJobMetrics.sort((jobMetrics1, jobMetrics2) -> Long.compare(jobMetrics2.getAveragePollMillis(), jobMetrics1.getAveragePollMillis()));
+        return allJobMetrics;
+    }
+
+    public static final class JobMetrics {
+
+        private final String jobFullName;
+
+        private final String jobUrl;
+
+        private final int historySize;
+
+        //The most recent poll first
+        private final LinkedList<IvyPollStatistics> history = new LinkedList<>();
+
+        private long pollCount;
+
+        private long totalPollMillis;
+
+        private long resolveCount;
+
+        private long totalResolveMillis;
+
+        private long settingsLoadCount;
+
+        private long totalSettingsLoadMillis;
+
+        private long diffCount;
+
+        private long totalDiffMillis;
+
+        private long failedPollCount;
+
+        private long sharedCount;
+
+        private long skippedCount;
+
+        private long throttledCount;
+
+        private long downloadedArtifacts;
+
+        private long downloadedBytes;
+
+        private long cachedArtifacts;
+
+        private JobMetrics(String jobFullName, String jobUrl, int historySize) {
+            this.jobFullName = jobFullName;
+            this.jobUrl = jobUrl;
+            this.historySize = historySize;
+        }
+
+        public synchronized void record(IvyPollStatistics statistics) {
+            history.addFirst(statistics);
+            while (history.size() > historySize) {
+                history.removeLast();
+            }
+
+            pollCount++;
+            totalPollMillis += Math.max(0, statistics.getPollMillis());
+            if (statistics.getResolveMillis() >= 0 && !statistics.isShared()) {
+                resolveCount++;
+                totalResolveMillis += statistics.getResolveMillis();
+            }
+            if (statistics.getSettingsLoadMillis() >= 0 && !statistics.isShared()) {
+                settingsLoadCount++;
+                totalSettingsLoadMillis += statistics.getSettingsLoadMillis();
+            }
+            if (statistics.getErrorCount() > 0) {
+                failedPollCount++;
+            }
+            if (statistics.isShared()) {
+                sharedCount++;
+            } else {
+                downloadedArtifacts += statistics.getDownloadedArtifacts();
+                downloadedBytes += statistics.getDownloadedBytes();
+                cachedArtifacts += statistics.getCachedArtifacts();
+            }
+            if (statistics.isResolutionSkipped()) {
+                skippedCount++;
+            }
+            if (statistics.isThrottled()) {
+                throttledCount++;
+            }
+        }
+
+        /**
+         * Records the time spent comparing the dependencies of a recorded poll with the previous ones.
+         */
+        public synchronized void recordDiff(IvyPollStatistics statistics, long diffMillis) {
+            statistics.setDiffMillis(diffMillis);
+            diffCount++;
+            totalDiffMillis += diffMillis;
+        }
+
+        public String getJobFullName() {
+            return jobFullName;
+        }
+
+        public String getJobUrl() {
+            return jobUrl;
+        }
+
+        public synchronized List<IvyPollStatistics> getHistory() {
+            return new ArrayList<>(history);
+        }
+
+        public synchronized IvyPollStatistics getLastPoll() {
+            return history.isEmpty() ? null : history.getFirst();
+        }
+
+        public synchronized long getPollCount() {
+            return pollCount;
+        }
+
+        public synchronized long getFailedPollCount() {
+            return failedPollCount;
+        }
+
+        public synchronized long getSharedCount() {
+            return sharedCount;
+        }
+
+        public synchronized long getSkippedCount() {
+            return skippedCount;
+        }
+
+        public synchronized long getThrottledCount() {
+            return throttledCount;
+        }
+
+        public synchronized long getAveragePollMillis() {
+            return pollCount == 0 ? 0 : totalPollMillis / pollCount;
+        }
+
+        public synchronized long getAverageResolveMillis() {
+            return resolveCount == 0 ? 0 : totalResolveMillis / resolveCount;
+        }
+
+        public synchronized long getAverageSettingsLoadMillis() {
+            return settingsLoadCount == 0 ? 0 : totalSettingsLoadMillis / settingsLoadCount;
+        }
+
+        public synchronized long getAverageDiffMillis() {
+            return diffCount == 0 ? 0 : totalDiffMillis / diffCount;
+        }
+
+        public synchronized long getDownloadedArtifacts() {
+            return downloadedArtifacts;
+        }
+
+        public synchronized long getDownloadedBytes() {
+            return downloadedBytes;
+        }
+
+        /**
+         * @return the percentage of the artifacts found in the cache, -1 if no artifact has been resolved
+         */
+        public synchronized int getCacheHitPercentage() {
+            long artifacts = cachedArtifacts + downloadedArtifacts;
+            return artifacts == 0 ? -1 : (int) (cachedArtifacts * 100 / artifacts);
+        }
+
+        /**
+         * @return the percentage of the resolutions which have reused an Ivy engine, -1 if no resolution has run
+         */
+        public synchronized int getEngineReusePercentage() {
+            if (resolveCount == 0) {
+                return -1;
+            }
+            long engineReuses = resolveCount - settingsLoadCount;
+            return (int) (Math.max(0, engineReuses) * 100 / resolveCount);
+        }
+    }
+}
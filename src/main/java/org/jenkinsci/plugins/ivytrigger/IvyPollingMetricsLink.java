@@ -0,0 +1,38 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+
+import java.util.List;
+
+/**
+ * Management page listing the cost of the IvyTrigger polls of all the jobs, the most expensive first.
+ */
+@Extension
+public class IvyPollingMetricsLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.gif";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "IvyTrigger Polling Metrics";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Resolution times, downloads and cache usage of the IvyTrigger polls.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ivyTriggerMetrics";
+    }
+
+    @SuppressWarnings("unused")
+    public List<IvyPollingMetrics.JobMetrics> getAllJobMetrics() {
+        return IvyPollingMetrics.getInstance().getAllJobMetrics();
+    }
+}
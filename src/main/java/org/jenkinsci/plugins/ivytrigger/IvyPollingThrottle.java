@@ -0,0 +1,195 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Smooths the load the IvyTrigger polls put on the nodes and on the repositories.
+ * <p>
+ * Jobs scheduled with the same cron spec start polling together. Before resolving, a poll waits for a slot on its
+ * polling node and on each repository host its settings point to. A random delay can be added before, with the
+ * <code>maxJitterSeconds</code> system property; it is disabled by default, as it delays every poll, including the
+ * ones waiting for the same resolution, while the slots only delay the polls above the limits.
+ * When the resolutions involving a host become slow, fewer polls are let through to it until it recovers.
+ * A poll which doesn't get its slots in time is skipped: the job keeps the dependencies of its previous poll.
+ */
+public final class IvyPollingThrottle {
+
+    private static final int MAX_POLLS_PER_NODE = Integer.getInteger(IvyPollingThrottle.class.getName() + ".maxPollsPerNode", 4);
+
+    private static final int MAX_POLLS_PER_HOST = Integer.getInteger(IvyPollingThrottle.class.getName() + ".maxPollsPerHost", 8);
+
+    private static final long MAX_JITTER_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(IvyPollingThrottle.class.getName() + ".maxJitterSeconds", 0));
+
+    private static final long MAX_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong(IvyPollingThrottle.class.getName() + ".maxWaitMinutes", 5));
+
+    private static final long SLOW_RESOLUTION_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(IvyPollingThrottle.class.getName() + ".slowResolutionSeconds", 30));
+
+    private static final IvyPollingThrottle INSTANCE = new IvyPollingThrottle(MAX_POLLS_PER_NODE, MAX_POLLS_PER_HOST, MAX_JITTER_MILLIS, MAX_WAIT_MILLIS, SLOW_RESOLUTION_MILLIS);
+
+    //Weight of the last resolution in the average resolution time of a host
+    private static final double SMOOTHING_FACTOR = 0.3;
+
+    private final int maxPollsPerNode;
+
+    private final int maxPollsPerHost;
+
+    private final long maxJitterMillis;
+
+    private final long maxWaitMillis;
+
+    private final long slowResolutionMillis;
+
+    private final Map<String, Limiter> nodeLimiters = new HashMap<>();
+
+    private final Map<String, Limiter> hostLimiters = new HashMap<>();
+
+    IvyPollingThrottle(int maxPollsPerNode, int maxPollsPerHost, long maxJitterMillis, long maxWaitMillis, long slowResolutionMillis) {
+        this.maxPollsPerNode = maxPollsPerNode;
+        this.maxPollsPerHost = maxPollsPerHost;
+        this.maxJitterMillis = maxJitterMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.slowResolutionMillis = slowResolutionMillis;
+    }
+
+    public static IvyPollingThrottle getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Waits for the slots required by a poll.
+     *
+     * @param nodeName the name of the polling node
+     * @param hosts    the repository hosts known for the job, may be empty
+     * @param log      the polling log
+     * @return the slots, to be given back with {@link #release(Permit, long)}, or <code>null</code> if they
+     * can't be obtained in time
+     */
+    public Permit acquire(String nodeName, Collection<String> hosts, XTriggerLog log) throws InterruptedException {
+        if (maxJitterMillis > 0) {
+            long jitter = ThreadLocalRandom.current().nextLong(maxJitterMillis);
+            log.info(String.format("Delaying the resolution by %d ms to spread the polls.", jitter));
+            Thread.sleep(jitter);
+        }
+
+        //Limiters are always taken in the same order: node first, then hosts sorted by name
+        List<Limiter> limiters = new ArrayList<>();
+        limiters.add(getLimiter(nodeLimiters, nodeName, maxPollsPerNode));
+        for (String host : new TreeSet<>(hosts)) {
+            limiters.add(getLimiter(hostLimiters, host, maxPollsPerHost));
+        }
+
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        List<Limiter> acquired = new ArrayList<>();
+        try {
+            for (Limiter limiter : limiters) {
+                if (limiter.isSlow()) {
+                    log.info(String.format("Resolutions on %s are slow: its concurrent polls are reduced.", limiter.name));
+                }
+                if (!limiter.acquire(deadline)) {
+                    log.info(String.format("Too many polls in progress on %s.", limiter.name));
+                    release(acquired, -1);
+                    return null;
+                }
+                acquired.add(limiter);
+            }
+        } catch (InterruptedException ie) {
+            release(acquired, -1);
+            throw ie;
+        }
+        return new Permit(acquired);
+    }
+
+    /**
+     * Gives back the slots of a poll.
+     *
+     * @param permit         the slots
+     * @param durationMillis the duration of the resolution, -1 if it has not run
+     */
+    public void release(Permit permit, long durationMillis) {
+        release(permit.limiters, durationMillis);
+    }
+
+    private void release(List<Limiter> limiters, long durationMillis) {
+        for (Limiter limiter : limiters) {
+            limiter.release(durationMillis);
+        }
+    }
+
+    private synchronized Limiter getLimiter(Map<String, Limiter> limiters, String name, int maxPermits) {
+        Limiter limiter = limiters.get(name);
+        if (limiter == null) {
+            limiter = new Limiter(name.isEmpty() ? "the controller" : name, maxPermits, slowResolutionMillis);
+            limiters.put(name, limiter);
+        }
+        return limiter;
+    }
+
+    /**
+     * Slots held by a poll
+     */
+    public static final class Permit {
+
+        private final List<Limiter> limiters;
+
+        private Permit(List<Limiter> limiters) {
+            this.limiters = limiters;
+        }
+    }
+
+    private static final class Limiter {
+
+        private final String name;
+
+        private final int maxPermits;
+
+        private final long slowResolutionMillis;
+
+        private int activePermits;
+
+        //Exponential moving average of the resolution times, -1 until a resolution has completed
+        private double averageMillis = -1;
+
+        private Limiter(String name, int maxPermits, long slowResolutionMillis) {
+            this.name = name;
+            this.maxPermits = maxPermits;
+            this.slowResolutionMillis = slowResolutionMillis;
+        }
+
+        private synchronized boolean isSlow() {
+            return averageMillis > slowResolutionMillis;
+        }
+
+        private synchronized int getPermits() {
+            return isSlow() ? Math.max(1, maxPermits / 2) : maxPermits;
+        }
+
+        private synchronized boolean acquire(long deadline) throws InterruptedException {
+            while (activePermits >= getPermits()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            activePermits++;
+            return true;
+        }
+
+        private synchronized void release(long durationMillis) {
+            activePermits--;
+            if (durationMillis >= 0) {
+                averageMillis = averageMillis < 0 ? durationMillis : SMOOTHING_FACTOR * durationMillis + (1 - SMOOTHING_FACTOR) * averageMillis;
+            }
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.model.Cause;
+
+import java.util.Objects;
+
+/**
+ * Cause of the builds scheduled by a publication notification, without any resolution.
+ */
+public class IvyPublicationCause extends Cause {
+
+    private final String organisation;
+
+    private final String module;
+
+    private final String revision;
+
+    public IvyPublicationCause(String organisation, String module, String revision) {
+        this.organisation = organisation;
+        this.module = module;
+        this.revision = revision;
+    }
+
+    public String getOrganisation() {
+        return organisation;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    @Override
+    public String getShortDescription() {
+        return String.format("Started by the publication of %s#%s;%s", organisation, module, revision);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IvyPublicationCause)) {
+            return false;
+        }
+        IvyPublicationCause that = (IvyPublicationCause) o;
+        return Objects.equals(organisation, that.organisation)
+                && Objects.equals(module, that.module)
+                && Objects.equals(revision, that.revision);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(organisation, module, revision);
+    }
+}
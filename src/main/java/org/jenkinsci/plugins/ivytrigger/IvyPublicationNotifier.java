@@ -0,0 +1,93 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.model.RootAction;
+import jakarta.servlet.http.HttpServletResponse;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Endpoint receiving the publication of a module revision, for instance from a repository manager hook:
+ * <code>POST /ivytrigger/notifyPublication?organisation=org&amp;module=lib&amp;revision=1.2</code>.
+ * <p>
+ * The jobs whose last poll recorded a dependency accepting the revision are scheduled at once, without resolving
+ * their dependencies; the polls remain as a safety net for the publications which are not notified.
+ * Only the jobs the caller can build are scheduled.
+ */
+@Extension
+public class IvyPublicationNotifier implements RootAction {
+
+    private static final Logger LOGGER = Logger.getLogger(IvyPublicationNotifier.class.getName());
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ivytrigger";
+    }
+
+    @RequirePOST
+    @SuppressWarnings("unused")
+    public HttpResponse doNotifyPublication(@QueryParameter String organisation, @QueryParameter String module, @QueryParameter String revision) {
+        organisation = Util.fixEmptyAndTrim(organisation);
+        module = Util.fixEmptyAndTrim(module);
+        revision = Util.fixEmptyAndTrim(revision);
+        if (organisation == null || module == null || revision == null) {
+            return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, "The organisation, the module and the revision are required.");
+        }
+
+        List<String> scheduledJobs = new ArrayList<>();
+        for (Map.Entry<String, IvyDependencyIndex.Dependency> entry : getAffectedDependencies(IvyDependencyIndex.getInstance(), organisation, module, revision).entrySet()) {
+            //Only the jobs visible to the caller are found
+            AbstractProject<?, ?> project = Jenkins.get().getItemByFullName(entry.getKey(), AbstractProject.class);
+            if (project == null || !project.hasPermission(Item.BUILD)) {
+                continue;
+            }
+            IvyTrigger trigger = project.getTrigger(IvyTrigger.class);
+            if (trigger != null && trigger.schedulePublicationBuild(entry.getValue(), organisation, module, revision)) {
+                scheduledJobs.add(entry.getKey());
+            }
+        }
+
+        LOGGER.fine(String.format("Publication of %s#%s;%s: %d jobs scheduled.", organisation, module, revision, scheduledJobs.size()));
+        StringBuilder response = new StringBuilder();
+        response.append(String.format("Scheduled %d jobs for the publication of %s#%s;%s%n", scheduledJobs.size(), organisation, module, revision));
+        for (String scheduledJob : scheduledJobs) {
+            response.append(scheduledJob).append(String.format("%n"));
+        }
+        return HttpResponses.text(response.toString());
+    }
+
+    /**
+     * @return the first dependency of each job affected by the publication, by job
+     */
+    static Map<String, IvyDependencyIndex.Dependency> getAffectedDependencies(IvyDependencyIndex index, String organisation, String module, String revision) {
+        Map<String, IvyDependencyIndex.Dependency> dependencies = new LinkedHashMap<>();
+        for (IvyDependencyIndex.Dependency dependency : index.getDependencies(organisation, module)) {
+            if (!dependencies.containsKey(dependency.getJobFullName()) && dependency.isAffectedBy(revision)) {
+                dependencies.put(dependency.getJobFullName(), dependency);
+            }
+        }
+        return dependencies;
+    }
+}
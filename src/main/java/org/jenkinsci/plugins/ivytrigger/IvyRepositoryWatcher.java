@@ -0,0 +1,708 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Watches the file system repositories of the jobs with a {@link WatchService}, and wakes the polling of the jobs
+ * depending on the modules written to them.
+ * <p>
+ * The directories of a repository are registered recursively, down to the depth of its patterns only. A created or
+ * modified file is mapped back to its module with the patterns of the repository, and the jobs whose last poll
+ * recorded a dependency on the module are polled once the writes have settled, so that a publication wakes each job
+ * once: the polls are postponed by each new event, up to a maximum delay. Lost events wake all the jobs of the
+ * repository. The watch service and its thread are stopped once no job watches a repository.
+ * <p>
+ * The state is confined to a single thread; another thread only waits for the events.
+ */
+public final class IvyRepositoryWatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(IvyRepositoryWatcher.class.getName());
+
+    //Delay without event before the polls, for the publication to complete
+    private static final long SETTLE_MILLIS = Long.getLong(IvyRepositoryWatcher.class.getName() + ".settleMillis", 10000);
+
+    //Maximum delay between the first event and the polls, for the repositories written continuously
+    private static final long MAX_SETTLE_MILLIS = Long.getLong(IvyRepositoryWatcher.class.getName() + ".maxSettleMillis", 60000);
+
+    //Maximum number of directories registered, above which the repositories rely on the polls
+    private static final int MAX_DIRECTORIES = Integer.getInteger(IvyRepositoryWatcher.class.getName() + ".maxDirectories", 50000);
+
+    private static final IvyRepositoryWatcher INSTANCE = new IvyRepositoryWatcher(IvyDependencyIndex.getInstance(), SETTLE_MILLIS, MAX_SETTLE_MILLIS, MAX_DIRECTORIES);
+
+    private final IvyDependencyIndex index;
+
+    private final long settleMillis;
+
+    private final long maxSettleMillis;
+
+    private final int maxDirectories;
+
+    private final ScheduledExecutorService executor;
+
+    //The following state is only accessed from the executor thread
+
+    private final Map<String, WatchingJob> jobs = new HashMap<>();
+
+    private final Map<Path, RepositoryRoot> roots = new HashMap<>();
+
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+
+    private final Set<String> pendingModules = new LinkedHashSet<>();
+
+    private final Set<String> pendingJobs = new LinkedHashSet<>();
+
+    private WatchService watchService;
+
+    private boolean limitReached;
+
+    private ScheduledFuture<?> scheduledPolls;
+
+    //When the first event of the scheduled polls has been received
+    private long firstEventNanos;
+
+    IvyRepositoryWatcher(IvyDependencyIndex index, long settleMillis, long maxSettleMillis, int maxDirectories) {
+        this.index = index;
+        this.settleMillis = settleMillis;
+        this.maxSettleMillis = Math.max(settleMillis, maxSettleMillis);
+        this.maxDirectories = maxDirectories;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IvyTrigger repository watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static IvyRepositoryWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Watches the file system repositories of a job, replacing the ones it watched before.
+     * The registration itself is asynchronous.
+     *
+     * @param jobFullName the full name of the job
+     * @param poll        wakes the polling of the job
+     * @param patterns    the absolute patterns of the file system repositories of the job
+     * @return the roots of the repositories which are not visible from the controller, and can't be watched
+     */
+    public List<String> watch(final String jobFullName, final Runnable poll, Collection<String> patterns) {
+        final Set<RepositoryPattern> repositoryPatterns = new LinkedHashSet<>();
+        List<String> missingRoots = new ArrayList<>();
+        for (String pattern : patterns) {
+            RepositoryPattern repositoryPattern = new RepositoryPattern(pattern);
+            if (Files.isDirectory(repositoryPattern.getRoot())) {
+                repositoryPatterns.add(repositoryPattern);
+            } else if (!missingRoots.contains(repositoryPattern.getRoot().toString())) {
+                missingRoots.add(repositoryPattern.getRoot().toString());
+            }
+        }
+        executor.execute(() -> doWatch(jobFullName, poll, repositoryPatterns));
+        return missingRoots;
+    }
+
+    public void unwatch(final String jobFullName) {
+        executor.execute(() -> doUnwatch(jobFullName));
+    }
+
+    /**
+     * Waits for the registrations and the events submitted so far to be processed.
+     */
+    void awaitIdle() throws InterruptedException, ExecutionException {
+        executor.submit(() -> {
+        }).get();
+    }
+
+    /**
+     * @return the number of registered directories, once the registrations and the events submitted so far are processed
+     */
+    int getRegisteredDirectoryCount() throws InterruptedException, ExecutionException {
+        return executor.submit(keys::size).get();
+    }
+
+    /**
+     * @return whether the watch service is open, once the registrations submitted so far are processed
+     */
+    boolean isWatching() throws InterruptedException, ExecutionException {
+        return executor.submit(() -> watchService != null).get();
+    }
+
+    private void doWatch(String jobFullName, Runnable poll, Set<RepositoryPattern> patterns) {
+        WatchingJob job = jobs.get(jobFullName);
+        if (job != null && job.patterns.equals(patterns)) {
+            job.poll = poll;
+            return;
+        }
+        doUnwatch(jobFullName);
+        if (patterns.isEmpty()) {
+            return;
+        }
+
+        jobs.put(jobFullName, new WatchingJob(poll, patterns));
+        for (RepositoryPattern pattern : patterns) {
+            RepositoryRoot root = roots.get(pattern.getRoot());
+            boolean newRoot = root == null;
+            if (newRoot) {
+                root = new RepositoryRoot(pattern.getRoot());
+                roots.put(pattern.getRoot(), root);
+            }
+            int previousDepth = root.getDepth();
+            root.add(jobFullName, pattern);
+            if (newRoot || root.getDepth() > previousDepth) {
+                register(root.path, root.getDepth(), false);
+            }
+        }
+    }
+
+    private void doUnwatch(String jobFullName) {
+        WatchingJob job = jobs.remove(jobFullName);
+        if (job == null) {
+            return;
+        }
+        for (RepositoryPattern pattern : job.patterns) {
+            RepositoryRoot root = roots.get(pattern.getRoot());
+            if (root != null && root.remove(jobFullName) && root.isEmpty()) {
+                roots.remove(root.path);
+                cancel(root.path);
+            }
+        }
+        if (jobs.isEmpty()) {
+            stopWatching();
+        }
+    }
+
+    /**
+     * Closes the watch service, which stops the thread waiting for its events.
+     */
+    private void stopWatching() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ioe) {
+            LOGGER.log(Level.FINE, "Can't close the watch service of the Ivy repositories", ioe);
+        }
+        watchService = null;
+        keys.clear();
+        directories.clear();
+        limitReached = false;
+    }
+
+    /**
+     * Cancels the registration of the directories under the root which are not under another watched root.
+     */
+    private void cancel(Path rootPath) {
+        for (Iterator<Map.Entry<Path, WatchKey>> iterator = keys.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Path, WatchKey> entry = iterator.next();
+            if (entry.getKey().startsWith(rootPath) && getRoots(entry.getKey()).isEmpty()) {
+                entry.getValue().cancel();
+                directories.remove(entry.getValue());
+                iterator.remove();
+            }
+        }
+        limitReached = false;
+    }
+
+    /**
+     * Forgets the registration of a deleted directory, to register it again if it is created again.
+     */
+    private void forget(WatchKey key) {
+        Path directory = directories.remove(key);
+        if (directory != null && keys.get(directory) == key) {
+            keys.remove(directory);
+            limitReached = false;
+        }
+    }
+
+    /**
+     * Registers the directory and its sub-directories, down to the given depth.
+     *
+     * @param notify whether the files found are notified as created, for the directories created before their registration
+     */
+    private void register(Path directory, final int maxDepth, final boolean notify) {
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                startWatching(watchService);
+            }
+            Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    WatchKey registeredKey = keys.get(dir);
+                    if (registeredKey != null && !registeredKey.isValid()) {
+                        //Deleted then created again before its key has been found invalid
+                        forget(registeredKey);
+                        registeredKey = null;
+                    }
+                    if (registeredKey == null) {
+                        if (keys.size() >= maxDirectories) {
+                            if (!limitReached) {
+                                LOGGER.warning(String.format("More than %d directories in the watched Ivy repositories: the other directories rely on the polls.", maxDirectories));
+                                limitReached = true;
+                            }
+                            return FileVisitResult.TERMINATE;
+                        }
+                        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                        keys.put(dir, key);
+                        directories.put(key, dir);
+                    }
+                    if (notify) {
+                        onChange(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (notify) {
+                        onChange(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ioe) {
+            LOGGER.log(Level.WARNING, "Can't watch the Ivy repository directory " + directory, ioe);
+        }
+    }
+
+    private void startWatching(final WatchService service) {
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    List<WatchEvent<?>> events = key.pollEvents();
+                    //Invalid once its directory is deleted
+                    boolean valid = key.reset();
+                    executor.execute(() -> onEvents(key, events, valid));
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                LOGGER.fine("Stopped watching the Ivy repositories.");
+            }
+        }, "IvyTrigger repository events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void onEvents(WatchKey key, List<WatchEvent<?>> events, boolean valid) {
+        Path directory = directories.get(key);
+        if (directory == null) {
+            return;
+        }
+        if (!valid) {
+            forget(key);
+        }
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                onOverflow(directory);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                int maxDepth = getMaxDepth(path);
+                if (maxDepth > 0) {
+                    register(path, maxDepth, true);
+                    continue;
+                }
+            }
+            onChange(path);
+        }
+    }
+
+    /**
+     * Events have been lost in the directory: all the jobs watching it are polled, and its new sub-directories registered.
+     */
+    private void onOverflow(Path directory) {
+        LOGGER.fine("Events lost in the Ivy repository directory " + directory);
+        for (RepositoryRoot root : getRoots(directory)) {
+            pendingJobs.addAll(root.getJobs());
+        }
+        int maxDepth = getMaxDepth(directory);
+        if (maxDepth > 0) {
+            register(directory, maxDepth, false);
+        }
+        schedulePolls();
+    }
+
+    private void onChange(Path path) {
+        String pathName = path.toString().replace(File.separatorChar, '/');
+        for (RepositoryRoot root : getRoots(path)) {
+            for (RepositoryPattern pattern : root.getPatterns()) {
+                if (!pattern.identifiesModules()) {
+                    pendingJobs.addAll(root.getJobs(pattern));
+                    schedulePolls();
+                    continue;
+                }
+                String module = pattern.getModule(pathName);
+                if (module != null) {
+                    pendingModules.add(module);
+                    schedulePolls();
+                }
+            }
+        }
+    }
+
+    private void schedulePolls() {
+        //Postponed by each event, once for all the events received until the polls
+        long now = System.nanoTime();
+        if (scheduledPolls == null) {
+            firstEventNanos = now;
+        } else {
+            scheduledPolls.cancel(false);
+        }
+        long remainingMillis = maxSettleMillis - TimeUnit.NANOSECONDS.toMillis(now - firstEventNanos);
+        scheduledPolls = executor.schedule(this::poll, Math.max(0, Math.min(settleMillis, remainingMillis)), TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        scheduledPolls = null;
+        Set<String> jobsToPoll = new LinkedHashSet<>(pendingJobs);
+        for (String module : pendingModules) {
+            //organisation#module;revision, the revision being empty when not known
+            int revisionSeparator = module.indexOf(';');
+            int moduleSeparator = module.indexOf('#');
+            String revision = module.substring(revisionSeparator + 1);
+            for (IvyDependencyIndex.Dependency dependency : index.getDependencies(module.substring(0, moduleSeparator), module.substring(moduleSeparator + 1, revisionSeparator))) {
+                if (jobs.containsKey(dependency.getJobFullName()) && (revision.isEmpty() || dependency.isAffectedBy(revision))) {
+                    jobsToPoll.add(dependency.getJobFullName());
+                }
+            }
+        }
+        pendingJobs.clear();
+        pendingModules.clear();
+
+        for (String jobFullName : jobsToPoll) {
+            WatchingJob job = jobs.get(jobFullName);
+            if (job == null) {
+                continue;
+            }
+            LOGGER.fine("Polling " + jobFullName + " on a change in its Ivy repositories.");
+            try {
+                job.poll.run();
+            } catch (RuntimeException re) {
+                LOGGER.log(Level.WARNING, "Can't poll " + jobFullName, re);
+            }
+        }
+    }
+
+    /**
+     * @return the depth of the walk registering the directories from the path, 0 if none is to be registered
+     */
+    private int getMaxDepth(Path path) {
+        int maxDepth = 0;
+        for (RepositoryRoot root : getRoots(path)) {
+            int rootDepth = root.getDepth();
+            int depth = rootDepth == Integer.MAX_VALUE ? Integer.MAX_VALUE : rootDepth - root.path.relativize(path).getNameCount();
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return maxDepth;
+    }
+
+    private List<RepositoryRoot> getRoots(Path path) {
+        List<RepositoryRoot> pathRoots = new ArrayList<>(1);
+        for (RepositoryRoot root : roots.values()) {
+            if (path.startsWith(root.path)) {
+                pathRoots.add(root);
+            }
+        }
+        return pathRoots;
+    }
+
+    private static final class WatchingJob {
+
+        private final Set<RepositoryPattern> patterns;
+
+        private Runnable poll;
+
+        private WatchingJob(Runnable poll, Set<RepositoryPattern> patterns) {
+            this.poll = poll;
+            this.patterns = patterns;
+        }
+    }
+
+    /**
+     * Root directory of a repository, with the patterns of the jobs watching it.
+     */
+    private static final class RepositoryRoot {
+
+        private final Path path;
+
+        private final Map<RepositoryPattern, Set<String>> jobsByPattern = new HashMap<>();
+
+        private RepositoryRoot(Path path) {
+            this.path = path;
+        }
+
+        private void add(String jobFullName, RepositoryPattern pattern) {
+            Set<String> patternJobs = jobsByPattern.get(pattern);
+            if (patternJobs == null) {
+                patternJobs = new HashSet<>();
+                jobsByPattern.put(pattern, patternJobs);
+            }
+            patternJobs.add(jobFullName);
+        }
+
+        /**
+         * @return whether the job was watching the root
+         */
+        private boolean remove(String jobFullName) {
+            boolean removed = false;
+            for (Iterator<Set<String>> iterator = jobsByPattern.values().iterator(); iterator.hasNext(); ) {
+                Set<String> patternJobs = iterator.next();
+                removed |= patternJobs.remove(jobFullName);
+                if (patternJobs.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+            return removed;
+        }
+
+        private boolean isEmpty() {
+            return jobsByPattern.isEmpty();
+        }
+
+        private Set<RepositoryPattern> getPatterns() {
+            return jobsByPattern.keySet();
+        }
+
+        private Set<String> getJobs(RepositoryPattern pattern) {
+            Set<String> patternJobs = jobsByPattern.get(pattern);
+            return patternJobs == null ? Collections.<String>emptySet() : patternJobs;
+        }
+
+        private Set<String> getJobs() {
+            Set<String> rootJobs = new HashSet<>();
+            for (Set<String> patternJobs : jobsByPattern.values()) {
+                rootJobs.addAll(patternJobs);
+            }
+            return rootJobs;
+        }
+
+        private int getDepth() {
+            int depth = 0;
+            for (RepositoryPattern pattern : jobsByPattern.keySet()) {
+                depth = Math.max(depth, pattern.getDepth());
+            }
+            return depth;
+        }
+    }
+
+    /**
+     * Ivy pattern of a file system repository, for instance
+     * <code>/repository/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]</code>.
+     * <p>
+     * Its root is the directory preceding the first token. A path under the root is mapped to a module as soon as it
+     * contains the organisation and the module: the directory of a new revision is mapped as well as its files.
+     */
+    static final class RepositoryPattern {
+
+        private static final Pattern TOKEN = Pattern.compile("\\[([^\\]]+)\\]");
+
+        private final String pattern;
+
+        private final Path root;
+
+        private final Pattern regex;
+
+        private final int depth;
+
+        private final boolean organisationPath;
+
+        private final boolean revisionToken;
+
+        RepositoryPattern(String pattern) {
+            this.pattern = pattern.replace('\\', '/');
+            int variableStart = firstVariablePart(this.pattern);
+            String rootName = this.pattern.substring(0, Math.max(this.pattern.lastIndexOf('/', variableStart), 0));
+            this.root = Paths.get(rootName.isEmpty() ? "/" : rootName);
+            String relativePattern = this.pattern.substring(rootName.length());
+            this.organisationPath = relativePattern.contains("[orgPath]");
+            this.depth = organisationPath ? Integer.MAX_VALUE : countSegments(relativePattern);
+            this.regex = Pattern.compile(Pattern.quote(root.toString().replace(File.separatorChar, '/')) + toRegex(relativePattern));
+            this.revisionToken = relativePattern.contains("[revision]");
+        }
+
+        Path getRoot() {
+            return root;
+        }
+
+        /**
+         * @return whether the paths can be mapped to modules: the pattern contains the organisation and the module
+         */
+        boolean identifiesModules() {
+            return (organisationPath || pattern.contains("[organisation]")) && pattern.contains("[module]");
+        }
+
+        /**
+         * @return the number of directory levels of the pattern below its root, including the files
+         */
+        int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @param path an absolute path, with <code>/</code> separators
+         * @return the module of the path as <code>organisation#module;revision</code>, the revision being empty
+         * when the path doesn't contain it; <code>null</code> if the path doesn't match the pattern
+         */
+        String getModule(String path) {
+            if (!identifiesModules()) {
+                return null;
+            }
+            Matcher matcher = regex.matcher(path);
+            if (!matcher.matches()) {
+                return null;
+            }
+            String organisation = matcher.group("organisation");
+            if (organisationPath) {
+                organisation = organisation.replace('/', '.');
+            }
+            String revision = revisionToken ? matcher.group("revision") : null;
+            return organisation + "#" + matcher.group("module") + ";" + (revision == null ? "" : revision);
+        }
+
+        private static int firstVariablePart(String pattern) {
+            int token = pattern.indexOf('[');
+            int optional = pattern.indexOf('(');
+            if (token == -1) {
+                return optional == -1 ? pattern.length() : optional;
+            }
+            return optional == -1 ? token : Math.min(token, optional);
+        }
+
+        private static int countSegments(String relativePattern) {
+            int segments = 0;
+            for (int i = 0; i < relativePattern.length(); i++) {
+                if (relativePattern.charAt(i) == '/') {
+                    segments++;
+                }
+            }
+            return segments;
+        }
+
+        /**
+         * Translates the pattern below the root, starting with a separator. The segments following the one which
+         * completes the organisation and the module are optional, so that their parent directories match too.
+         */
+        private static String toRegex(String relativePattern) {
+            String[] segments = relativePattern.substring(1).split("/", -1);
+            int moduleSegment = segments.length - 1;
+            boolean organisationFound = false;
+            boolean moduleFound = false;
+            for (int i = 0; i < segments.length; i++) {
+                organisationFound |= segments[i].contains("[organisation]") || segments[i].contains("[orgPath]");
+                moduleFound |= segments[i].contains("[module]");
+                if (organisationFound && moduleFound) {
+                    moduleSegment = i;
+                    break;
+                }
+            }
+
+            Set<String> groups = new HashSet<>();
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < segments.length; i++) {
+                if (i > moduleSegment) {
+                    regex.append("(?:");
+                }
+                regex.append('/').append(toSegmentRegex(segments[i], groups));
+            }
+            for (int i = moduleSegment + 1; i < segments.length; i++) {
+                regex.append(")?");
+            }
+            return regex.toString();
+        }
+
+        private static String toSegmentRegex(String segment, Set<String> groups) {
+            StringBuilder regex = new StringBuilder();
+            int start = 0;
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '(' || c == ')') {
+                    appendLiteral(regex, segment.substring(start, i));
+                    regex.append(c == '(' ? "(?:" : ")?");
+                    start = i + 1;
+                } else if (c == '[') {
+                    int end = segment.indexOf(']', i);
+                    if (end == -1) {
+                        break;
+                    }
+                    appendLiteral(regex, segment.substring(start, i));
+                    String token = segment.substring(i + 1, end);
+                    String group = "orgPath".equals(token) ? "organisation" : token;
+                    String tokenRegex = "orgPath".equals(token) ? ".+?" : "[^/]+?";
+                    if (("organisation".equals(group) || "module".equals(group) || "revision".equals(group)) && groups.add(group)) {
+                        regex.append("(?<").append(group).append('>').append(tokenRegex).append(')');
+                    } else {
+                        regex.append(tokenRegex);
+                    }
+                    start = end + 1;
+                    i = end;
+                }
+            }
+            appendLiteral(regex, segment.substring(start));
+            return regex.toString();
+        }
+
+        private static void appendLiteral(StringBuilder regex, String literal) {
+            if (!literal.isEmpty()) {
+                regex.append(Pattern.quote(literal));
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RepositoryPattern && pattern.equals(((RepositoryPattern) o).pattern);
+        }
+
+        @Override
+        public int hashCode() {
+            return pattern.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return pattern;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.jenkinsci.plugins.ivytrigger.util.ContentDigest;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shares resolutions between jobs polling the same dependency graph.
+ * <p>
+ * Resolutions are keyed by everything that can change their result: descriptor content, settings, properties and
+ * resolution options. The first job polling a key runs the resolution, the jobs polling the same key while it
+ * runs or within the polling window afterwards get the same dependencies without resolving again.
+ * Failed or skipped resolutions are not kept for the window: the jobs waiting for them decide from the result of
+ * the owner whether to skip their poll too or to resolve on their own. A job doesn't wait longer than
+ * <code>maxWaitMinutes</code> for the resolution of another job.
+ */
+public final class IvyResolutionCoalescer {
+
+    private static final long WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(IvyResolutionCoalescer.class.getName() + ".windowSeconds", 60));
+
+    private static final long MAX_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong(IvyResolutionCoalescer.class.getName() + ".maxWaitMinutes", 15));
+
+    private static final IvyResolutionCoalescer INSTANCE = new IvyResolutionCoalescer(WINDOW_MILLIS, MAX_WAIT_MILLIS);
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+
+    //Elements reading other files, whose content and variables are not known before the resolution
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("<(include|properties|extends|credentials)\\b");
+
+    private final long windowMillis;
+
+    private final long maxWaitMillis;
+
+    private final Map<String, SharedResolution> resolutions = new HashMap<>();
+
+    IvyResolutionCoalescer(long windowMillis, long maxWaitMillis) {
+        this.windowMillis = windowMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public static IvyResolutionCoalescer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Computes the key of a resolution.
+     * <p>
+     * Environment variables differ from one job to another (JOB_NAME, ...), so only the ones referenced by the
+     * descriptor, the settings or the properties are part of the key. When the content read by the resolution is not
+     * fully known (settings retrieved from an URL, settings or descriptor including other files), all the variables
+     * are part of the key.
+     *
+     * @param nodeName               the name of the polling node
+     * @param descriptorContent      the Ivy descriptor content
+     * @param settingsContent        the Ivy settings content, <code>null</code> if not known
+     * @param settingsLocation       the location of the Ivy settings
+     * @param propertiesFileContent  the content of the properties files
+     * @param propertiesContent      the resolved properties content
+     * @param envVars                the environment variables injected into the settings
+     * @param downloadArtifacts      whether artifacts are downloaded
+     * @param checkArtifactsMetadata whether artifacts are checked from the repository metadata
+     * @param configurations         the resolved configurations, <code>null</code> for all of them
+     * @param dependencyFilter       the description of the dependency filter
+     * @return a hex-encoded SHA-256 digest
+     */
+    public static String computeKey(String nodeName,
+                                    String descriptorContent,
+                                    String settingsContent,
+                                    String settingsLocation,
+                                    String propertiesFileContent,
+                                    String propertiesContent,
+                                    Map<String, String> envVars,
+                                    boolean downloadArtifacts,
+                                    boolean checkArtifactsMetadata,
+                                    String configurations,
+                                    String dependencyFilter) {
+        Map<String, String> variables = new TreeMap<>();
+        if (envVars != null) {
+            if (settingsContent == null || includesOtherFiles(settingsContent) || includesOtherFiles(descriptorContent)) {
+                variables.putAll(envVars);
+            } else {
+                Set<String> referencedNames = new HashSet<>();
+                addReferencedVariables(descriptorContent, referencedNames);
+                addReferencedVariables(settingsContent, referencedNames);
+                addReferencedVariables(propertiesFileContent, referencedNames);
+                addReferencedVariables(propertiesContent, referencedNames);
+                for (String name : referencedNames) {
+                    if (envVars.containsKey(name)) {
+                        variables.put(name, envVars.get(name));
+                    }
+                }
+            }
+        }
+        return new ContentDigest()
+                .add(nodeName)
+                .add(descriptorContent)
+                .add(settingsContent)
+                .add(settingsLocation)
+                .add(propertiesFileContent)
+                .add(propertiesContent)
+                .add(variables)
+                .add(downloadArtifacts)
+                .add(checkArtifactsMetadata)
+                .add(configurations)
+                .add(dependencyFilter)
+                .toHex();
+    }
+
+    /**
+     * @return whether the Ivy content reads other files, whose content is not known before the resolution
+     */
+    static boolean includesOtherFiles(String content) {
+        return content != null && INCLUDE_PATTERN.matcher(content).find();
+    }
+
+    private static void addReferencedVariables(String content, Set<String> names) {
+        if (content == null) {
+            return;
+        }
+        Matcher matcher = VARIABLE_PATTERN.matcher(content);
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+        }
+    }
+
+    /**
+     * Task running the resolution for a job
+     */
+    public interface ResolutionTask {
+        IvyResolutionResult resolve() throws IOException, InterruptedException;
+
+        /**
+         * Adapts the result of the job which owned the resolution, when it can't be shared as is.
+         *
+         * @param ownerResult the result of the owner, skipped or throttled
+         * @return the result for this job, <code>null</code> to resolve on its own
+         */
+        default IvyResolutionResult reuse(IvyResolutionResult ownerResult) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the dependencies for a key, resolving them only if no other job did it within the polling window.
+     *
+     * @param key        the resolution key
+     * @param jobName    the name of the polling job
+     * @param log        the polling log
+     * @param resolution the resolution to run if needed
+     * @return the resolution result
+     */
+    public IvyResolutionResult resolve(String key, String jobName, XTriggerLog log, ResolutionTask resolution)
+            throws IOException, InterruptedException {
+        if (windowMillis <= 0) {
+            return resolution.resolve();
+        }
+
+        SharedResolution sharedResolution;
+        boolean owner = false;
+        synchronized (this) {
+            evictExpired(System.currentTimeMillis());
+            sharedResolution = resolutions.get(key);
+            if (sharedResolution == null) {
+                sharedResolution = new SharedResolution(jobName);
+                resolutions.put(key, sharedResolution);
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            IvyResolutionResult result;
+            try {
+                result = sharedResolution.result.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                log.info(String.format("\nThe poll of the job %s is still resolving the dependencies. Resolving without waiting.", sharedResolution.ownerJobName));
+                return resolution.resolve();
+            } catch (ExecutionException ee) {
+                result = null;
+            }
+            if (result != null && result.isShareable()) {
+                log.info(String.format("\nReusing the dependencies resolved by the poll of the job %s.", sharedResolution.ownerJobName));
+                return result;
+            }
+            IvyResolutionResult reusedResult = result != null && result.isUnchanged() ? resolution.reuse(result) : null;
+            if (reusedResult != null) {
+                log.info(String.format("\nReusing the outcome of the poll of the job %s.", sharedResolution.ownerJobName));
+                return reusedResult;
+            }
+            log.info(String.format("\nThe poll of the job %s didn't give a shareable resolution. Resolving again.", sharedResolution.ownerJobName));
+            return resolution.resolve();
+        }
+
+        IvyResolutionResult result = null;
+        try {
+            result = resolution.resolve();
+            return result;
+        } finally {
+            boolean shareable = result != null && result.isShareable();
+            synchronized (this) {
+                if (shareable) {
+                    sharedResolution.completedAt = System.currentTimeMillis();
+                } else {
+                    resolutions.remove(key);
+                }
+            }
+            //The jobs already waiting get the result, even if it is not kept for the window
+            sharedResolution.result.complete(result);
+        }
+    }
+
+    public synchronized int size() {
+        return resolutions.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<SharedResolution> it = resolutions.values().iterator();
+        while (it.hasNext()) {
+            SharedResolution sharedResolution = it.next();
+            if (sharedResolution.completedAt != -1 && now - sharedResolution.completedAt > windowMillis) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class SharedResolution {
+
+        private final String ownerJobName;
+
+        private final CompletableFuture<IvyResolutionResult> result = new CompletableFuture<>();
+
+        //Guarded by the coalescer, -1 while the resolution runs
+        private long completedAt = -1;
+
+        private SharedResolution(String ownerJobName) {
+            this.ownerJobName = ownerJobName;
+        }
+    }
+}
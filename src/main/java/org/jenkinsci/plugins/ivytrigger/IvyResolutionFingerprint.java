@@ -0,0 +1,176 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.plugins.version.VersionMatcher;
+import org.jenkinsci.plugins.ivytrigger.util.ContentDigest;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Everything a resolution depends on, except the content of the repositories for static revisions.
+ * <p>
+ * It is made of a digest of the resolution inputs (descriptor, settings, variables and options) and,
+ * for each module of the graph requested with a dynamic revision, a digest of the revisions available in the
+ * repositories (directory listings or maven-metadata.xml files). When none of them has changed, a new
+ * resolution would give the same graph, so it can be skipped.
+ * <p>
+ * A graph with changing dependencies (declared <code>changing</code> or with a SNAPSHOT revision) is never skipped,
+ * and a full resolution is run at least every {@link #MAX_AGE_MILLIS} milliseconds.
+ */
+public class IvyResolutionFingerprint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final long MAX_AGE_MILLIS = Long.getLong(IvyResolutionFingerprint.class.getName() + ".maxAgeMinutes", 60) * 60 * 1000;
+
+    private final String inputsDigest;
+
+    //Module id (organisation#module) -> digest of the available revisions, sorted by module id
+    private final Map<String, String> dynamicModules;
+
+    //Module ids (organisation#module) of the graph, sorted, marked as used in the cache when the resolution is skipped
+    private final Set<String> modules;
+
+    private final boolean changing;
+
+    private final long resolvedAt;
+
+    public IvyResolutionFingerprint(String inputsDigest, Map<String, String> dynamicModules, Set<String> modules, boolean changing, long resolvedAt) {
+        this.inputsDigest = inputsDigest;
+        this.dynamicModules = dynamicModules;
+        this.modules = modules;
+        this.changing = changing;
+        this.resolvedAt = resolvedAt;
+    }
+
+    /**
+     * Computes the fingerprint of a resolution that has just been run.
+     */
+    public static IvyResolutionFingerprint compute(Ivy ivy, ResolveReport resolveReport, String inputsDigest) {
+        VersionMatcher versionMatcher = ivy.getSettings().getVersionMatcher();
+        Map<String, String> dynamicModules = new TreeMap<>();
+        Set<String> modules = new TreeSet<>();
+        boolean changing = isChanging(resolveReport.getModuleDescriptor());
+
+        for (Object dependencyObject : resolveReport.getDependencies()) {
+            IvyNode dependencyNode = (IvyNode) dependencyObject;
+            ModuleRevisionId requestedId = dependencyNode.getId();
+            modules.add(getModuleId(requestedId));
+            if (requestedId.getRevision() != null && requestedId.getRevision().endsWith("SNAPSHOT")) {
+                changing = true;
+            }
+            if (dependencyNode.getDescriptor() != null && isChanging(dependencyNode.getDescriptor())) {
+                changing = true;
+            }
+            if (versionMatcher.isDynamic(requestedId)) {
+                String moduleId = getModuleId(requestedId);
+                if (!dynamicModules.containsKey(moduleId)) {
+                    dynamicModules.put(moduleId, getRevisionsDigest(ivy, requestedId));
+                }
+            }
+        }
+        return new IvyResolutionFingerprint(inputsDigest, Collections.unmodifiableMap(dynamicModules), Collections.unmodifiableSet(modules), changing, System.currentTimeMillis());
+    }
+
+    /**
+     * Checks whether a resolution run now with the given inputs would give the same graph as the one fingerprinted.
+     */
+    public boolean isUpToDate(Ivy ivy, String currentInputsDigest, XTriggerLog log) {
+        if (changing) {
+            log.info("The dependency graph contains changing dependencies: a full resolution is required.");
+            return false;
+        }
+        if (System.currentTimeMillis() - resolvedAt > MAX_AGE_MILLIS) {
+            log.info("The last full resolution is too old: a full resolution is required.");
+            return false;
+        }
+        if (!inputsDigest.equals(currentInputsDigest)) {
+            log.info("The descriptor, the settings or the properties have changed: a full resolution is required.");
+            return false;
+        }
+        for (Map.Entry<String, String> dynamicModule : dynamicModules.entrySet()) {
+            String moduleId = dynamicModule.getKey();
+            int separator = moduleId.indexOf('#');
+            ModuleRevisionId mrid = ModuleRevisionId.newInstance(moduleId.substring(0, separator), moduleId.substring(separator + 1), "");
+            if (!dynamicModule.getValue().equals(getRevisionsDigest(ivy, mrid))) {
+                log.info(String.format("The available revisions of %s have changed: a full resolution is required.", moduleId));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the other fingerprint, recorded by another job, describes the same recent graph:
+     * the result of an up-to-date check of this fingerprint holds for the other one
+     */
+    public boolean isSameGraph(IvyResolutionFingerprint other) {
+        return other != null
+                && !changing
+                && !other.changing
+                && System.currentTimeMillis() - other.resolvedAt <= MAX_AGE_MILLIS
+                && inputsDigest.equals(other.inputsDigest)
+                && dynamicModules.equals(other.dynamicModules);
+    }
+
+    public String getInputsDigest() {
+        return inputsDigest;
+    }
+
+    public Map<String, String> getDynamicModules() {
+        return dynamicModules;
+    }
+
+    /**
+     * @return the module ids (organisation#module) of the graph, empty for a fingerprint recorded without them
+     */
+    public Set<String> getModules() {
+        return modules == null ? Collections.<String>emptySet() : modules;
+    }
+
+    public boolean isChanging() {
+        return changing;
+    }
+
+    public long getResolvedAt() {
+        return resolvedAt;
+    }
+
+    private static boolean isChanging(ModuleDescriptor moduleDescriptor) {
+        if (moduleDescriptor == null) {
+            return false;
+        }
+        for (DependencyDescriptor dependencyDescriptor : moduleDescriptor.getDependencies()) {
+            if (dependencyDescriptor.isChanging()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getModuleId(ModuleRevisionId mrid) {
+        return mrid.getOrganisation() + "#" + mrid.getName();
+    }
+
+    private static String getRevisionsDigest(Ivy ivy, ModuleRevisionId mrid) {
+        String[] revisions = ivy.listRevisions(mrid.getOrganisation(), mrid.getName());
+        Arrays.sort(revisions);
+        ContentDigest digest = new ContentDigest();
+        for (String revision : revisions) {
+            digest.add(revision);
+        }
+        return digest.toHex();
+    }
+}
@@ -0,0 +1,133 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.io.Serializable;
+
+/**
+ * Options of an {@link IvyTriggerEvaluator} run, all disabled by default.
+ * <p>
+ * The setters return the options, to chain them as with Ivy's own resolve options.
+ */
+public class IvyResolutionOptions implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean debug;
+
+    private boolean downloadArtifacts;
+
+    private boolean sharedCache;
+
+    private boolean checkArtifactsMetadata;
+
+    private String configurations;
+
+    private IvyDependencyFilter dependencyFilter;
+
+    private boolean directDependenciesOnly;
+
+    private boolean incrementalResolution;
+
+    private IvyResolutionFingerprint previousFingerprint;
+
+    public boolean isDebug() {
+        return debug;
+    }
+
+    public IvyResolutionOptions setDebug(boolean debug) {
+        this.debug = debug;
+        return this;
+    }
+
+    public boolean isDownloadArtifacts() {
+        return downloadArtifacts;
+    }
+
+    public IvyResolutionOptions setDownloadArtifacts(boolean downloadArtifacts) {
+        this.downloadArtifacts = downloadArtifacts;
+        return this;
+    }
+
+    /**
+     * @return whether the repository cache is shared with the other jobs polling on the node
+     */
+    public boolean isSharedCache() {
+        return sharedCache;
+    }
+
+    public IvyResolutionOptions setSharedCache(boolean sharedCache) {
+        this.sharedCache = sharedCache;
+        return this;
+    }
+
+    /**
+     * @return whether the artifacts are checked from the repository metadata, when they are not downloaded
+     */
+    public boolean isCheckArtifactsMetadata() {
+        return checkArtifactsMetadata;
+    }
+
+    public IvyResolutionOptions setCheckArtifactsMetadata(boolean checkArtifactsMetadata) {
+        this.checkArtifactsMetadata = checkArtifactsMetadata;
+        return this;
+    }
+
+    /**
+     * @return the resolved configurations, comma separated, <code>null</code> for all of them
+     */
+    public String getConfigurations() {
+        return configurations;
+    }
+
+    public IvyResolutionOptions setConfigurations(String configurations) {
+        this.configurations = configurations;
+        return this;
+    }
+
+    /**
+     * @return the selection of the checked dependencies, <code>null</code> for all of them
+     */
+    public IvyDependencyFilter getDependencyFilter() {
+        return dependencyFilter;
+    }
+
+    public IvyResolutionOptions setDependencyFilter(IvyDependencyFilter dependencyFilter) {
+        this.dependencyFilter = dependencyFilter;
+        return this;
+    }
+
+    /**
+     * @return whether only the revisions of the direct dependencies are checked, without resolving the graph
+     */
+    public boolean isDirectDependenciesOnly() {
+        return directDependenciesOnly;
+    }
+
+    public IvyResolutionOptions setDirectDependenciesOnly(boolean directDependenciesOnly) {
+        this.directDependenciesOnly = directDependenciesOnly;
+        return this;
+    }
+
+    /**
+     * @return whether the resolution is skipped when nothing has changed since the previous one
+     */
+    public boolean isIncrementalResolution() {
+        return incrementalResolution;
+    }
+
+    public IvyResolutionOptions setIncrementalResolution(boolean incrementalResolution) {
+        this.incrementalResolution = incrementalResolution;
+        return this;
+    }
+
+    /**
+     * @return the fingerprint of the previous resolution, <code>null</code> if there is none
+     */
+    public IvyResolutionFingerprint getPreviousFingerprint() {
+        return previousFingerprint;
+    }
+
+    public IvyResolutionOptions setPreviousFingerprint(IvyResolutionFingerprint previousFingerprint) {
+        this.previousFingerprint = previousFingerprint;
+        return this;
+    }
+}
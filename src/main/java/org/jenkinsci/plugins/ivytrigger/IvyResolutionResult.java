@@ -0,0 +1,127 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of an {@link IvyTriggerEvaluator} run.
+ */
+public class IvyResolutionResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, IvyDependencyValue> dependencies;
+
+    private final IvyResolutionFingerprint fingerprint;
+
+    private final boolean unchanged;
+
+    private final boolean throttled;
+
+    private final Set<String> repositoryHosts;
+
+    private final Set<String> fileSystemPatterns;
+
+    private final IvyPollStatistics statistics;
+
+    private IvyResolutionResult(Map<String, IvyDependencyValue> dependencies, IvyResolutionFingerprint fingerprint, boolean unchanged, boolean throttled,
+                                Set<String> repositoryHosts, Set<String> fileSystemPatterns, IvyPollStatistics statistics) {
+        this.dependencies = dependencies;
+        this.fingerprint = fingerprint;
+        this.unchanged = unchanged;
+        this.throttled = throttled;
+        this.repositoryHosts = repositoryHosts;
+        this.fileSystemPatterns = fileSystemPatterns;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param dependencies the resolved dependencies
+     * @param fingerprint  the fingerprint of the resolution, <code>null</code> if not computed
+     */
+    public static IvyResolutionResult resolved(Map<String, IvyDependencyValue> dependencies, IvyResolutionFingerprint fingerprint) {
+        return new IvyResolutionResult(dependencies, fingerprint, false, false, Collections.<String>emptySet(), Collections.<String>emptySet(), null);
+    }
+
+    /**
+     * The resolution has been skipped: the dependencies are the ones of the previous poll.
+     */
+    public static IvyResolutionResult unchanged(IvyResolutionFingerprint fingerprint) {
+        return new IvyResolutionResult(null, fingerprint, true, false, Collections.<String>emptySet(), Collections.<String>emptySet(), null);
+    }
+
+    /**
+     * The resolution has not run, too many polls being in progress: the dependencies are the ones of the previous poll.
+     */
+    public static IvyResolutionResult throttled(IvyResolutionFingerprint fingerprint) {
+        return new IvyResolutionResult(null, fingerprint, true, true, Collections.<String>emptySet(), Collections.<String>emptySet(), null);
+    }
+
+    public static IvyResolutionResult failed() {
+        return new IvyResolutionResult(null, null, false, false, Collections.<String>emptySet(), Collections.<String>emptySet(), null);
+    }
+
+    /**
+     * @return the resolved dependencies, <code>null</code> if the resolution failed or has been skipped
+     */
+    public Map<String, IvyDependencyValue> getDependencies() {
+        return dependencies;
+    }
+
+    public IvyResolutionFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return a copy of this result with the hosts of the remote repositories and the patterns of the file system
+     * repositories declared by the settings
+     */
+    public IvyResolutionResult withRepositories(Set<String> repositoryHosts, Set<String> fileSystemPatterns) {
+        return new IvyResolutionResult(dependencies, fingerprint, unchanged, throttled, repositoryHosts, fileSystemPatterns, statistics);
+    }
+
+    /**
+     * @return a copy of this result with the statistics of the resolution
+     */
+    public IvyResolutionResult withStatistics(IvyPollStatistics statistics) {
+        return new IvyResolutionResult(dependencies, fingerprint, unchanged, throttled, repositoryHosts, fileSystemPatterns, statistics);
+    }
+
+    /**
+     * @return the statistics of the resolution, <code>null</code> if not measured
+     */
+    public IvyPollStatistics getStatistics() {
+        return statistics;
+    }
+
+    public Set<String> getRepositoryHosts() {
+        return repositoryHosts;
+    }
+
+    /**
+     * @return the absolute patterns of the file system repositories, as seen from the polling node
+     */
+    public Set<String> getFileSystemPatterns() {
+        return fileSystemPatterns;
+    }
+
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return whether the resolution has not run because of the polling limits
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * @return whether the result can be reused by another job: only full resolutions can
+     */
+    public boolean isShareable() {
+        return dependencies != null;
+    }
+}
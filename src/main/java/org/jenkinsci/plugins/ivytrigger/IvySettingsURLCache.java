@@ -0,0 +1,161 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Ivy settings fetched from URLs in the JVM running the resolution (usually an agent).
+ * <p>
+ * A fetched copy is used as is during a time to live. Past it, the copy is revalidated with a conditional request
+ * (<code>If-None-Match</code> / <code>If-Modified-Since</code>) when the server gave an ETag or a Last-Modified date.
+ * If the server can't be reached or answers with an error, the last fetched copy is used.
+ * <p>
+ * As the content of a revalidated copy is unchanged, {@link IvyEngineCache} keeps reusing the engine loaded from it.
+ */
+public final class IvySettingsURLCache {
+
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong(IvySettingsURLCache.class.getName() + ".ttlSeconds", 300));
+
+    private static final int TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(Integer.getInteger(IvySettingsURLCache.class.getName() + ".timeoutSeconds", 10));
+
+    private static final int MAX_ENTRIES = Integer.getInteger(IvySettingsURLCache.class.getName() + ".maxSize", 64);
+
+    private static final IvySettingsURLCache INSTANCE = new IvySettingsURLCache(TTL_MILLIS, TIMEOUT_MILLIS, MAX_ENTRIES);
+
+    private final long ttlMillis;
+
+    private final int timeoutMillis;
+
+    //Fetched settings by URL, the least recently used first
+    private final Map<String, CachedSettings> entries;
+
+    IvySettingsURLCache(long ttlMillis, int timeoutMillis, final int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.entries = new LinkedHashMap<String, CachedSettings>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSettings> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static IvySettingsURLCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the content of the settings at the given URL.
+     *
+     * @param url the settings URL
+     * @param log the polling log
+     * @return the settings content
+     * @throws IOException if the settings can't be fetched and there is no previous copy
+     */
+    public String getContent(URL url, XTriggerLog log) throws IOException {
+        String key = url.toExternalForm();
+        CachedSettings cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+
+        if (cached != null && System.currentTimeMillis() - cached.validatedAt < ttlMillis) {
+            log.info("Using the settings fetched less than " + TimeUnit.MILLISECONDS.toSeconds(ttlMillis) + " seconds ago.");
+            return cached.content;
+        }
+
+        CachedSettings fetched;
+        try {
+            fetched = fetch(url, cached, log);
+        } catch (IOException ioe) {
+            if (cached == null) {
+                throw ioe;
+            }
+            log.info("Can't fetch the settings (" + ioe.getMessage() + "). Using the last fetched copy.");
+            return cached.content;
+        }
+
+        synchronized (this) {
+            entries.put(key, fetched);
+        }
+        return fetched.content;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private CachedSettings fetch(URL url, CachedSettings cached, XTriggerLog log) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setUseCaches(false);
+
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            try {
+                if (cached != null) {
+                    if (cached.etag != null) {
+                        httpConnection.setRequestProperty("If-None-Match", cached.etag);
+                    }
+                    if (cached.lastModified > 0) {
+                        httpConnection.setIfModifiedSince(cached.lastModified);
+                    }
+                }
+
+                int responseCode = httpConnection.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                    log.info("The settings have not been modified since the last fetch.");
+                    return new CachedSettings(cached.content, cached.etag, cached.lastModified, System.currentTimeMillis());
+                }
+                if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                    throw new IOException("Server returned HTTP response code " + responseCode + " for URL " + url);
+                }
+                return read(httpConnection, httpConnection.getHeaderField("ETag"));
+            } finally {
+                httpConnection.disconnect();
+            }
+        }
+
+        return read(connection, null);
+    }
+
+    private CachedSettings read(URLConnection connection, String etag) throws IOException {
+        try (InputStream is = connection.getInputStream()) {
+            String content = IOUtils.toString(is, StandardCharsets.UTF_8);
+            return new CachedSettings(content, etag, connection.getLastModified(), System.currentTimeMillis());
+        }
+    }
+
+    private static final class CachedSettings {
+
+        private final String content;
+
+        private final String etag;
+
+        private final long lastModified;
+
+        private final long validatedAt;
+
+        private CachedSettings(String content, String etag, long lastModified, long validatedAt) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validatedAt = validatedAt;
+        }
+    }
+}
@@ -8,7 +8,20 @@ import hudson.Util;
 import hudson.console.AnnotatedLargeText;
 import hudson.model.AbstractProject;
 import hudson.model.Action;
+import hudson.model.BuildableItem;
+import hudson.model.Descriptor;
+import hudson.model.Job;
 import hudson.model.Node;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.triggers.Trigger;
+import hudson.util.FormValidation;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.security.HMACConfidentialKey;
+import net.sf.json.JSONObject;
 
 import org.apache.commons.jelly.XMLOutput;
 import org.jenkinsci.lib.envinject.EnvInjectException;
@@ -17,9 +30,16 @@ import org.jenkinsci.plugins.xtriggerapi.AbstractTriggerByFullContext;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerDescriptor;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerException;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.jenkinsci.plugins.ivytrigger.util.ContentDigest;
 import org.jenkinsci.plugins.ivytrigger.util.FilePathFactory;
 import org.jenkinsci.plugins.ivytrigger.util.PropertiesFileContentExtractor;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,7 +47,11 @@ import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * @author Gregory Boissinot
@@ -36,6 +60,17 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
 
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOGGER = Logger.getLogger(IvyTrigger.class.getName());
+
+    //Signs the authorizations of the polling on the controller, which can't be forged in the job configuration
+    private static final HMACConfidentialKey CONTROLLER_POLLING_KEY = new HMACConfidentialKey(IvyTrigger.class, "pollOnController");
+
+    //Size of the tail of the polling log rendered by default
+    private static final long LOG_TAIL_BYTES = Long.getLong(IvyTrigger.class.getName() + ".logTailKB", 150) * 1024;
+
+    //Number of resolved dependencies listed in the polling log, all of them in debug mode
+    private static final int MAX_LOGGED_DEPENDENCIES = Integer.getInteger(IvyTrigger.class.getName() + ".maxLoggedDependencies", 100);
+
     private final String ivyPath;
 
     private final String ivySettingsPath;
@@ -52,6 +87,56 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
 
     private final boolean downloadArtifacts;
 
+    private boolean sharedCache;
+
+    private boolean checkArtifactsMetadata;
+
+    private boolean skipUnchangedResolution;
+
+    private String configurations;
+
+    private String includedModules;
+
+    private String excludedModules;
+
+    private int maxDepth;
+
+    private boolean ignoreRevisionOnlyChanges;
+
+    private boolean directDependenciesOnly;
+
+    private boolean watchRepositories;
+
+    private boolean pollOnController;
+
+    //The administrator who enabled the polling on the controller, and the signature of the authorization
+    private String pollOnControllerAuthorizedBy;
+
+    private String pollOnControllerMac;
+
+    private transient IvyTriggerContextStore contextStore;
+
+    //Context of the last poll, whose dependencies are reused when the resolution is skipped
+    private transient IvyTriggerContext lastContext;
+
+    //Hosts of the repositories reached by the last resolution, used to throttle the next polls
+    private transient Set<String> repositoryHosts;
+
+    //Statistics of the poll in progress, completed by the comparison
+    private transient IvyPollStatistics lastStatistics;
+
+    //Whether the context persisted before the last restart has been looked for
+    private transient boolean persistedContextLoaded;
+
+    //Changes found by the last poll, attached to the build it schedules
+    private transient IvyTriggerChangeSet lastChangeSet;
+
+    //Revisions already built on their publication notification, by module (organisation#module)
+    private transient Map<String, String> acknowledgedRevisions;
+
+    //Whether a poll is writing the polling log, which is then rendered progressively
+    private transient volatile boolean pollInProgress;
+
     @DataBoundConstructor
     public IvyTrigger(String cronTabSpec, String ivyPath, String ivySettingsPath, String propertiesFilePath, String propertiesContent, LabelRestrictionClass labelRestriction, boolean enableConcurrentBuild, boolean debug, boolean downloadArtifacts) throws ANTLRException {
         super(cronTabSpec, (labelRestriction == null) ? null : labelRestriction.getTriggerLabel(), enableConcurrentBuild);
@@ -95,6 +180,208 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
         return downloadArtifacts;
     }
 
+    @SuppressWarnings("unused")
+    public boolean isSharedCache() {
+        return sharedCache;
+    }
+
+    @DataBoundSetter
+    public void setSharedCache(boolean sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isCheckArtifactsMetadata() {
+        return checkArtifactsMetadata;
+    }
+
+    @DataBoundSetter
+    public void setCheckArtifactsMetadata(boolean checkArtifactsMetadata) {
+        this.checkArtifactsMetadata = checkArtifactsMetadata;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isSkipUnchangedResolution() {
+        return skipUnchangedResolution;
+    }
+
+    @DataBoundSetter
+    public void setSkipUnchangedResolution(boolean skipUnchangedResolution) {
+        this.skipUnchangedResolution = skipUnchangedResolution;
+    }
+
+    @SuppressWarnings("unused")
+    public String getConfigurations() {
+        return configurations;
+    }
+
+    @DataBoundSetter
+    public void setConfigurations(String configurations) {
+        this.configurations = Util.fixEmptyAndTrim(configurations);
+    }
+
+    @SuppressWarnings("unused")
+    public String getIncludedModules() {
+        return includedModules;
+    }
+
+    @DataBoundSetter
+    public void setIncludedModules(String includedModules) {
+        this.includedModules = Util.fixEmptyAndTrim(includedModules);
+    }
+
+    @SuppressWarnings("unused")
+    public String getExcludedModules() {
+        return excludedModules;
+    }
+
+    @DataBoundSetter
+    public void setExcludedModules(String excludedModules) {
+        this.excludedModules = Util.fixEmptyAndTrim(excludedModules);
+    }
+
+    @SuppressWarnings("unused")
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @DataBoundSetter
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(0, maxDepth);
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isIgnoreRevisionOnlyChanges() {
+        return ignoreRevisionOnlyChanges;
+    }
+
+    @DataBoundSetter
+    public void setIgnoreRevisionOnlyChanges(boolean ignoreRevisionOnlyChanges) {
+        this.ignoreRevisionOnlyChanges = ignoreRevisionOnlyChanges;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isDirectDependenciesOnly() {
+        return directDependenciesOnly;
+    }
+
+    @DataBoundSetter
+    public void setDirectDependenciesOnly(boolean directDependenciesOnly) {
+        this.directDependenciesOnly = directDependenciesOnly;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isWatchRepositories() {
+        return watchRepositories;
+    }
+
+    @DataBoundSetter
+    public void setWatchRepositories(boolean watchRepositories) {
+        this.watchRepositories = watchRepositories;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isPollOnController() {
+        return pollOnController;
+    }
+
+    /**
+     * Only an administrator can enable the polling on the controller, since the Ivy settings may load classes:
+     * the option is authorized when the job is configured, see {@link #authorizeControllerPolling}.
+     */
+    @DataBoundSetter
+    public void setPollOnController(boolean pollOnController) {
+        this.pollOnController = pollOnController;
+    }
+
+    /**
+     * Authorizes the polling on the controller for the user configuring the job.
+     * The authorization is bound to an administrator and to the files of the job, and checked before each poll.
+     * Another user keeps the authorization of the previous configuration as long as the files are the same,
+     * and can't enable the option.
+     *
+     * @param previous      the trigger of the job before this configuration, <code>null</code> if there is none
+     * @param userId        the user configuring the job
+     * @param administrator whether the user is an administrator
+     */
+    void authorizeControllerPolling(IvyTrigger previous, String userId, boolean administrator) throws Descriptor.FormException {
+        pollOnControllerAuthorizedBy = null;
+        pollOnControllerMac = null;
+        if (!pollOnController) {
+            return;
+        }
+        if (administrator) {
+            pollOnControllerAuthorizedBy = userId;
+            pollOnControllerMac = CONTROLLER_POLLING_KEY.mac(getControllerPollingAuthorization(userId));
+            return;
+        }
+        if (previous == null || !previous.pollOnController) {
+            throw new Descriptor.FormException("Only an administrator can enable the polling on the controller.", "pollOnController");
+        }
+        //The authorization is dropped when the files change, until an administrator configures the job again
+        if (previous.pollOnControllerAuthorizedBy != null && previous.pollOnControllerMac != null
+                && CONTROLLER_POLLING_KEY.checkMac(getControllerPollingAuthorization(previous.pollOnControllerAuthorizedBy), previous.pollOnControllerMac)) {
+            pollOnControllerAuthorizedBy = previous.pollOnControllerAuthorizedBy;
+            pollOnControllerMac = previous.pollOnControllerMac;
+        }
+    }
+
+    /**
+     * @return whether the polling on the controller was authorized for the current files of the job
+     */
+    boolean isControllerPollingAuthorized() {
+        return pollOnControllerAuthorizedBy != null && pollOnControllerMac != null
+                && CONTROLLER_POLLING_KEY.checkMac(getControllerPollingAuthorization(pollOnControllerAuthorizedBy), pollOnControllerMac);
+    }
+
+    private String getControllerPollingAuthorization(String userId) {
+        return new ContentDigest()
+                .add(userId)
+                .add(ivyPath)
+                .add(ivySettingsPath)
+                .add(propertiesFilePath)
+                .add(propertiesContent)
+                .toHex();
+    }
+
+    /**
+     * @return why the polling on the controller is refused, <code>null</code> if it is allowed
+     */
+    private String checkControllerPolling(URL ivySettingsUrl) {
+        IvyControllerResolver controllerResolver = IvyControllerResolver.getInstance();
+        if (!controllerResolver.isEnabled()) {
+            return "The polling on the controller is disabled: no location is allowed for it.";
+        }
+        if (!isControllerPollingAuthorized() || !isAdministrator(pollOnControllerAuthorizedBy)) {
+            return "The polling on the controller has to be enabled again by an administrator.";
+        }
+        if (ivySettingsUrl != null && !controllerResolver.isAllowed(ivySettingsUrl)) {
+            return String.format("The Ivy settings URL %s is not allowed for the polling on the controller.", ivySettingsUrl);
+        }
+        return null;
+    }
+
+    private static boolean isAdministrator(String userId) {
+        if (ACL.SYSTEM_USERNAME.equals(userId)) {
+            return true;
+        }
+        Authentication authentication;
+        if (ACL.ANONYMOUS_USERNAME.equals(userId)) {
+            authentication = Jenkins.ANONYMOUS2;
+        } else {
+            User user = User.getById(userId, false);
+            if (user == null) {
+                return false;
+            }
+            try {
+                authentication = user.impersonate2();
+            } catch (UsernameNotFoundException unfe) {
+                return false;
+            }
+        }
+        return Jenkins.get().hasPermission2(authentication, Jenkins.ADMINISTER);
+    }
+
     public boolean isLabelRestriction() {
         return labelRestriction;
     }
@@ -106,7 +393,7 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
     @Override
     public Collection<? extends Action> getProjectActions() {
         IvyTriggerAction action = new InternalIvyTriggerAction(this.getDescriptor().getDisplayName());
-        return Collections.singleton(action);
+        return Arrays.asList(action, new IvyTriggerMetricsAction(job));
     }
 
     public final class InternalIvyTriggerAction extends IvyTriggerAction {
@@ -143,14 +430,50 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
         }
 
         @SuppressWarnings("unused")
-        public String getLog() throws IOException {
-            return Util.loadFile(getLogFile());
+        public boolean isLogAvailable() {
+            File logFile = getLogFile();
+            return logFile != null && logFile.length() > 0;
+        }
+
+        public AnnotatedLargeText<InternalIvyTriggerAction> getLogText() {
+            return new AnnotatedLargeText<>(getLogFile(), Charset.defaultCharset(), !pollInProgress, this);
+        }
+
+        /**
+         * @return the offset from which the page displays the log: only its tail is rendered unless the full log is asked
+         */
+        @SuppressWarnings("unused")
+        public long getTailOffset() {
+            File logFile = getLogFile();
+            return logFile == null ? 0 : Math.max(0, logFile.length() - LOG_TAIL_BYTES);
         }
 
         @SuppressWarnings("unused")
         @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED")
-        public void writeLogTo(XMLOutput out) throws IOException {
-            new AnnotatedLargeText<>(getLogFile(), Charset.defaultCharset(), true, this).writeHtmlTo(0, out.asWriter());
+        public void writeLogTo(long offset, XMLOutput out) throws IOException {
+            getLogText().writeHtmlTo(offset, out.asWriter());
+        }
+
+        /**
+         * Streams the log from the <code>start</code> offset, for the progressive rendering of the page.
+         */
+        @SuppressWarnings("unused")
+        public void doProgressiveLog(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+            getLogText().doProgressiveHtml(req, rsp);
+        }
+
+        /**
+         * Serves the raw log, with HTTP range requests support.
+         */
+        @SuppressWarnings("unused")
+        public void doRawLog(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException, ServletException {
+            File logFile = getLogFile();
+            if (logFile == null || !logFile.exists()) {
+                rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            rsp.setContentType("text/plain;charset=" + Charset.defaultCharset().name());
+            rsp.serveFile(req, logFile.toURI().toURL());
         }
     }
 
@@ -160,15 +483,194 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
     }
 
     @Override
-    protected IvyTriggerContext getContext(Node pollingNode, XTriggerLog log) throws XTriggerException {
+    public void start(BuildableItem project, boolean newInstance) {
+        super.start(project, newInstance);
+        //The dependencies recorded before the restart are indexed on the first publication notification, if the job has not polled yet
+        if (job != null) {
+            IvyDependencyIndex.getInstance().addPendingLoader(job.getFullName(), () -> loadPersistedContext(null));
+        }
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        if (job != null) {
+            IvyDependencyIndex.getInstance().remove(job.getFullName());
+            IvyRepositoryWatcher.getInstance().unwatch(job.getFullName());
+            IvyPollingMetrics.getInstance().remove(job.getFullName());
+        }
+    }
+
+    /**
+     * Schedules a build for the publication of a new revision of a dependency, without resolving the dependencies.
+     * Once the build is scheduled, the revision is acknowledged, so that the poll resolving it doesn't schedule another build.
+     *
+     * @param dependency the dependency of the job affected by the publication
+     * @return whether a build has been scheduled, <code>false</code> if the revision has already been notified
+     * or if the build can't be scheduled
+     */
+    boolean schedulePublicationBuild(IvyDependencyIndex.Dependency dependency, String organisation, String module, String revision) {
+        if (isAcknowledged(dependency.getModuleId(), revision)) {
+            return false;
+        }
+        IvyTriggerChangeSet.ChangeType changeType = revision.equals(dependency.getRevision())
+                ? IvyTriggerChangeSet.ChangeType.REPUBLISHED : IvyTriggerChangeSet.ChangeType.REVISION_CHANGED;
+        IvyTriggerChangeSet changeSet = new IvyTriggerChangeSet(Collections.singletonList(new IvyTriggerChangeSet.DependencyChange(
+                changeType, dependency.getDependencyId(), dependency.getRevision(), revision, Collections.<IvyTriggerChangeSet.ArtifactChange>emptyList())));
+        AbstractProject<?, ?> project = (AbstractProject<?, ?>) job;
+        if (!project.scheduleBuild(project.getQuietPeriod(), new IvyPublicationCause(organisation, module, revision), new IvyTriggerChangesAction(changeSet))) {
+            //Not acknowledged: the poll still builds the revision
+            return false;
+        }
+        acknowledgeRevision(dependency.getModuleId(), revision);
+        return true;
+    }
+
+    private synchronized boolean isAcknowledged(String moduleId, String revision) {
+        return acknowledgedRevisions != null && revision.equals(acknowledgedRevisions.get(moduleId));
+    }
+
+    private synchronized void acknowledgeRevision(String moduleId, String revision) {
+        if (acknowledgedRevisions == null) {
+            acknowledgedRevisions = new HashMap<>();
+        }
+        acknowledgedRevisions.put(moduleId, revision);
+    }
+
+    /**
+     * Removes the changes to the revisions already built on their publication notification,
+     * and forgets the acknowledged revisions the poll has caught up with.
+     */
+    private synchronized IvyTriggerChangeSet removeAcknowledgedChanges(IvyTriggerChangeSet changeSet, IvyDependencyState newState, XTriggerLog log) {
+        if (acknowledgedRevisions == null || acknowledgedRevisions.isEmpty()) {
+            return changeSet;
+        }
+
+        List<IvyTriggerChangeSet.DependencyChange> changes = new ArrayList<>(changeSet.getChanges().size());
+        for (IvyTriggerChangeSet.DependencyChange change : changeSet.getChanges()) {
+            String acknowledgedRevision = acknowledgedRevisions.get(change.getModuleId());
+            if (acknowledgedRevision != null && acknowledgedRevision.equals(change.getNewRevision())) {
+                log.info(String.format("....The dependency %s %s: already built on its publication notification.", change.getDependencyId(), change.getType().getDescription()));
+            } else {
+                changes.add(change);
+            }
+        }
+
+        for (int i = 0; i < newState.size(); i++) {
+            String moduleId = IvyDependencyIndex.getModuleId(newState.getId(i));
+            if (newState.getRevision(i) != null && newState.getRevision(i).equals(acknowledgedRevisions.get(moduleId))) {
+                acknowledgedRevisions.remove(moduleId);
+            }
+        }
+        return changes.size() == changeSet.getChanges().size() ? changeSet : new IvyTriggerChangeSet(changes);
+    }
+
+    @Override
+    protected void setNewContext(IvyTriggerContext context) {
+        super.setNewContext(context);
+        lastContext = context;
+        if (job != null && context != null && context.getState() != null) {
+            IvyDependencyIndex.getInstance().update(job.getFullName(), context.getState());
+        }
+        IvyTriggerContextStore store = getContextStore();
+        if (store != null && context != null && context.getState() != null) {
+            try {
+                store.save(context, getConfigurationDigest());
+            } catch (IOException ioe) {
+                LOGGER.log(Level.WARNING, "Can't persist the IvyTrigger context to " + store.getFile(), ioe);
+            }
+        }
+    }
+
+    /**
+     * Uses the context persisted before the last restart as the baseline of the first poll.
+     *
+     * @param log the polling log, <code>null</code> when loaded on start
+     */
+    private synchronized void loadPersistedContext(XTriggerLog log) {
+        if (persistedContextLoaded) {
+            return;
+        }
+        persistedContextLoaded = true;
+
+        IvyTriggerContextStore store = getContextStore();
+        if (store == null) {
+            return;
+        }
+        try {
+            IvyTriggerContext persistedContext = store.load(getConfigurationDigest());
+            if (persistedContext != null) {
+                if (log != null) {
+                    log.info("Using the dependencies recorded by the previous poll as the comparison baseline.");
+                }
+                super.setNewContext(persistedContext);
+                lastContext = persistedContext;
+                if (persistedContext.getState() != null) {
+                    IvyDependencyIndex.getInstance().update(job.getFullName(), persistedContext.getState());
+                }
+            }
+        } catch (IOException ioe) {
+            if (log != null) {
+                log.error("Can't read the recorded dependencies: " + ioe.getMessage());
+            } else {
+                LOGGER.log(Level.WARNING, "Can't read the recorded dependencies from " + store.getFile(), ioe);
+            }
+        }
+    }
+
+    private synchronized IvyTriggerContextStore getContextStore() {
+        if (contextStore == null && job != null) {
+            contextStore = new IvyTriggerContextStore(job.getRootDir());
+        }
+        return contextStore;
+    }
+
+    private IvyDependencyFilter getDependencyFilter() {
+        return new IvyDependencyFilter(includedModules, excludedModules, maxDepth);
+    }
+
+    /**
+     * @return a digest of the configuration elements having an impact on the recorded dependencies
+     */
+    private String getConfigurationDigest() {
+        ContentDigest digest = new ContentDigest()
+                .add(ivyPath)
+                .add(ivySettingsPath)
+                .add(propertiesFilePath)
+                .add(propertiesContent)
+                .add(downloadArtifacts)
+                .add(checkArtifactsMetadata);
+        //Added only when set, so that the contexts persisted before these options remain valid
+        IvyDependencyFilter dependencyFilter = getDependencyFilter();
+        if (configurations != null || !dependencyFilter.isEmpty()) {
+            digest.add(configurations).add(dependencyFilter.getDescription());
+        }
+        if (directDependenciesOnly) {
+            digest.add("directDependenciesOnly");
+        }
+        return digest.toHex();
+    }
+
+    @Override
+    protected IvyTriggerContext getContext(Node pollingNode, final XTriggerLog log) throws XTriggerException {
+        long pollStart = System.currentTimeMillis();
+        lastStatistics = null;
+        loadPersistedContext(log);
+
         log.info(String.format("Given job Ivy file value: %s", ivyPath));
         log.info(String.format("Given job Ivy settings file value: %s", ivySettingsPath));
 
+        //On the controller, the files are read and the dependencies resolved without workspace nor agent
+        final Node resolutionNode = pollOnController ? Jenkins.get() : pollingNode;
+        if (pollOnController) {
+            log.info("Polling on the controller.");
+        }
+
         AbstractProject project = (AbstractProject) job;
         Map<String, String> envVars;
         try {
         	if( project != null ) {
-        		envVars = EnvVarsResolver.getPollingEnvVars(project, pollingNode);
+        		envVars = EnvVarsResolver.getPollingEnvVars(project, resolutionNode);
         	} else {
         		envVars = new HashMap< String , String >() ;
         	}
@@ -176,12 +678,29 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
             throw new XTriggerException(e);
         }
 
-        //Get ivy file and get ivySettings file
-        FilePathFactory filePathFactory = new FilePathFactory();
-        FilePath ivyFilePath = filePathFactory.getDescriptorFilePath(ivyPath, project, pollingNode, log, envVars);
+        //Get ivy file, ivySettings file and properties files in one go
         final URL ivySettingsUrl = getRemoteURL(ivySettingsPath, log);
-        FilePath ivySettingsFilePath = ivySettingsUrl != null ? null : filePathFactory
-                .getDescriptorFilePath(ivySettingsPath, project, pollingNode, log, envVars);
+        if (pollOnController) {
+            String refusal = checkControllerPolling(ivySettingsUrl);
+            if (refusal != null) {
+                log.error(refusal);
+                return new IvyTriggerContext(null);
+            }
+        }
+        PropertiesFileContentExtractor propertiesFileContentExtractor = new PropertiesFileContentExtractor(new FilePathFactory());
+        List<String> filePaths = new ArrayList<>();
+        filePaths.add(ivyPath);
+        filePaths.add(ivySettingsUrl != null ? null : ivySettingsPath);
+        if (propertiesFilePath != null) {
+            filePaths.addAll(propertiesFileContentExtractor.splitFilePaths(propertiesFilePath));
+        }
+        List<FilePathFactory.DescriptorFile> files = pollOnController
+                ? new FilePathFactory().getControllerDescriptorFiles(filePaths, IvyControllerResolver.getInstance().getAllowedDirectories(), log, envVars)
+                : new FilePathFactory().getDescriptorFiles(filePaths, project, pollingNode, log, envVars);
+        final FilePathFactory.DescriptorFile ivyFile = files.get(0);
+        final FilePathFactory.DescriptorFile ivySettingsFile = files.get(1);
+        final FilePath ivyFilePath = ivyFile == null ? null : ivyFile.getFilePath();
+        final FilePath ivySettingsFilePath = ivySettingsFile == null ? null : ivySettingsFile.getFilePath();
 
         if (ivyFilePath == null) {
             log.error("You have to provide a valid Ivy file.");
@@ -198,33 +717,189 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
                 ivySettingsUrl == null ? ivySettingsFilePath.getRemote() : ivySettingsUrl
                         .toString()));
 
-        if (downloadArtifacts) {
+        if (directDependenciesOnly) {
+            log.info("Only the revisions of the direct dependencies are checked.");
+            if (downloadArtifacts || checkArtifactsMetadata) {
+                log.info("The artifacts of the dependencies are not checked.");
+            }
+        } else if (downloadArtifacts) {
             log.info("Artifacts in dependencies will be downloaded.");
+        } else if (checkArtifactsMetadata) {
+            log.info("Artifacts in dependencies will be checked from the repository metadata.");
         }
 
-        PropertiesFileContentExtractor propertiesFileContentExtractor = new PropertiesFileContentExtractor(new FilePathFactory());
-        String propertiesFileContent = propertiesFileContentExtractor.extractPropertiesFileContents(propertiesFilePath, project, pollingNode, log, envVars);
-        String propertiesContentResolved = Util.replaceMacro(propertiesContent, envVars);
+        if (sharedCache) {
+            log.info("The repository cache is shared with the other jobs polling on the node.");
+        }
 
-        Map<String, IvyDependencyValue> dependencies = null;
+        final String configurationsResolved = Util.fixEmptyAndTrim(Util.replaceMacro(configurations, envVars));
+        if (configurationsResolved != null) {
+            log.info(String.format("Only the configurations %s are resolved.", configurationsResolved));
+        }
+
+        final IvyDependencyFilter dependencyFilter = getDependencyFilter();
+        if (!dependencyFilter.isEmpty()) {
+            log.info(String.format("Only the selected dependencies are checked (%s).", dependencyFilter.getDescription()));
+        }
+
+        //Artifacts may be republished under the same revision: their check always requires a resolution.
+        //The direct dependencies are checked without resolution.
+        final boolean incrementalResolution = skipUnchangedResolution && !downloadArtifacts && !checkArtifactsMetadata && !directDependenciesOnly;
+        final IvyTriggerContext previousContext = lastContext;
+        final IvyResolutionFingerprint previousFingerprint = incrementalResolution && previousContext != null && previousContext.getState() != null
+                ? previousContext.getFingerprint() : null;
+        if (skipUnchangedResolution && !incrementalResolution && !directDependenciesOnly) {
+            log.info("The resolution can't be skipped when artifacts are checked.");
+        }
+
+        log.info("Given job properties file path: " + propertiesFilePath);
+        final String propertiesFileContent = propertiesFileContentExtractor.extractPropertiesFileContents(files.subList(2, files.size()), log);
+        final String propertiesContentResolved = Util.replaceMacro(propertiesContent, envVars);
+
+        IvyResolutionResult result = null;
+        final AtomicBoolean resolvedByThisJob = new AtomicBoolean();
+        final AtomicBoolean throttled = new AtomicBoolean();
         try {
-            FilePath launcherFilePath = pollingNode.getRootPath();
+            final FilePath launcherFilePath = resolutionNode.getRootPath();
             if (launcherFilePath != null) {
-                FilePath temporaryPropertiesFilePath = null;
-                try {
-                    temporaryPropertiesFilePath = launcherFilePath.createTextTempFile("props", "props", propertiesFileContent);
-                    log.info("Temporary properties file path: " + temporaryPropertiesFilePath.getName());
-                    dependencies = launcherFilePath.act(new IvyTriggerEvaluator(job.getName(), ivyFilePath, ivySettingsFilePath, ivySettingsUrl, temporaryPropertiesFilePath, propertiesContentResolved, log, debug, downloadArtifacts, envVars));
-                } finally {
-                    if (temporaryPropertiesFilePath != null) {
-                        temporaryPropertiesFilePath.delete();
+                String resolutionKey = IvyResolutionCoalescer.computeKey(
+                        resolutionNode.getNodeName(),
+                        ivyFile.getContent(StandardCharsets.UTF_8),
+                        ivySettingsFile == null ? null : ivySettingsFile.getContent(StandardCharsets.UTF_8),
+                        ivySettingsUrl == null ? ivySettingsFilePath.getRemote() : ivySettingsUrl.toString(),
+                        propertiesFileContent,
+                        propertiesContentResolved,
+                        envVars,
+                        downloadArtifacts,
+                        checkArtifactsMetadata,
+                        configurationsResolved,
+                        directDependenciesOnly ? dependencyFilter.getDescription() + ", direct dependencies only" : dependencyFilter.getDescription());
+                final Map<String, String> pollingEnvVars = envVars;
+                result = IvyResolutionCoalescer.getInstance().resolve(resolutionKey, job.getFullName(), log, new IvyResolutionCoalescer.ResolutionTask() {
+                    @Override
+                    public IvyResolutionResult resolve() throws IOException, InterruptedException {
+                        IvyPollingThrottle throttle = IvyPollingThrottle.getInstance();
+                        IvyPollingThrottle.Permit permit = throttle.acquire(resolutionNode.getNodeName(), getRepositoryHosts(), log);
+                        resolvedByThisJob.set(true);
+                        if (permit == null) {
+                            log.info("Skipping this poll: the previous dependencies are kept.");
+                            throttled.set(true);
+                            return IvyResolutionResult.throttled(previousContext == null ? null : previousContext.getFingerprint());
+                        }
+
+                        long start = System.currentTimeMillis();
+                        long duration = -1;
+                        try {
+                            IvyResolutionOptions options = new IvyResolutionOptions()
+                                    .setDebug(debug)
+                                    .setDownloadArtifacts(downloadArtifacts)
+                                    .setSharedCache(sharedCache)
+                                    .setCheckArtifactsMetadata(checkArtifactsMetadata)
+                                    .setConfigurations(configurationsResolved)
+                                    .setDependencyFilter(dependencyFilter)
+                                    .setDirectDependenciesOnly(directDependenciesOnly)
+                                    .setIncrementalResolution(incrementalResolution)
+                                    .setPreviousFingerprint(previousFingerprint);
+                            IvyTriggerEvaluator evaluator = new IvyTriggerEvaluator(job.getName(), ivyFilePath, ivySettingsFilePath, ivySettingsUrl,
+                                    propertiesFileContent, propertiesContentResolved, log, pollingEnvVars, options);
+                            IvyResolutionResult evaluatorResult = pollOnController
+                                    ? IvyControllerResolver.getInstance().resolve(new File(launcherFilePath.getRemote()), evaluator)
+                                    : launcherFilePath.act(evaluator);
+                            duration = System.currentTimeMillis() - start;
+                            if (evaluatorResult != null) {
+                                setRepositoryHosts(evaluatorResult.getRepositoryHosts());
+                            }
+                            return evaluatorResult;
+                        } finally {
+                            throttle.release(permit, duration);
+                        }
                     }
-                }
+
+                    @Override
+                    public IvyResolutionResult reuse(IvyResolutionResult ownerResult) {
+                        //The same node and hosts would throttle this poll as well
+                        if (ownerResult.isThrottled()) {
+                            log.info("Skipping this poll: the previous dependencies are kept.");
+                            throttled.set(true);
+                            return IvyResolutionResult.throttled(previousContext == null ? null : previousContext.getFingerprint());
+                        }
+                        //The graph the owner found unchanged is the one recorded by this job
+                        if (ownerResult.getFingerprint() != null && ownerResult.getFingerprint().isSameGraph(previousFingerprint)) {
+                            return IvyResolutionResult.unchanged(previousFingerprint)
+                                    .withRepositories(ownerResult.getRepositoryHosts(), ownerResult.getFileSystemPatterns());
+                        }
+                        return null;
+                    }
+                });
             }
         } catch (IOException | InterruptedException e) {
             throw new XTriggerException(e);
         }
-        return new IvyTriggerContext(dependencies);
+
+        recordStatistics(result, resolvedByThisJob.get(), throttled.get(), System.currentTimeMillis() - pollStart, log);
+        if (job != null) {
+            watchRepositories(throttled.get() ? null : result, log);
+        }
+
+        if (result == null) {
+            return new IvyTriggerContext(null);
+        }
+        if (result.isUnchanged() && previousContext != null) {
+            return new IvyTriggerContext(previousContext.getState(), result.getFingerprint());
+        }
+        return new IvyTriggerContext(result.getDependencies(), result.getFingerprint());
+    }
+
+    /**
+     * Wakes the polling of the job when its file system repositories change, if the watch mode is enabled.
+     *
+     * @param result the result of the poll, <code>null</code> if the settings have not been loaded
+     */
+    private void watchRepositories(IvyResolutionResult result, XTriggerLog log) {
+        IvyRepositoryWatcher watcher = IvyRepositoryWatcher.getInstance();
+        if (!watchRepositories) {
+            watcher.unwatch(job.getFullName());
+            return;
+        }
+        //The repositories are only known when the settings have been loaded
+        if (result == null || (result.getDependencies() == null && !result.isUnchanged())) {
+            return;
+        }
+        for (String missingRoot : watcher.watch(job.getFullName(), this::run, result.getFileSystemPatterns())) {
+            log.info(String.format("The file system repository %s is not visible from the controller: it can't be watched.", missingRoot));
+        }
+    }
+
+    private void recordStatistics(IvyResolutionResult result, boolean resolvedByThisJob, boolean throttled, long pollMillis, XTriggerLog log) {
+        //A shared result is seen by several jobs: each one records its own copy
+        IvyPollStatistics statistics = result == null || result.getStatistics() == null ? new IvyPollStatistics() : result.getStatistics().copy();
+        statistics.setShared(result != null && !resolvedByThisJob);
+        statistics.setThrottled(throttled);
+        statistics.setPollMillis(pollMillis);
+        if (result == null) {
+            statistics.addErrors(1);
+        }
+        log.info(String.format("\nPoll statistics: %d ms, resolution %s ms, %d modules, %d artifacts downloaded (%d bytes), %d artifacts from the cache, %d errors.",
+                statistics.getPollMillis(),
+                statistics.getResolveMillis() < 0 ? "-" : String.valueOf(statistics.getResolveMillis()),
+                statistics.getModuleCount(),
+                statistics.getDownloadedArtifacts(),
+                statistics.getDownloadedBytes(),
+                statistics.getCachedArtifacts(),
+                statistics.getErrorCount()));
+
+        if (job != null) {
+            IvyPollingMetrics.getInstance().getJobMetrics(job.getFullName(), job.getUrl()).record(statistics);
+            lastStatistics = statistics;
+        }
+    }
+
+    private synchronized Set<String> getRepositoryHosts() {
+        return repositoryHosts == null ? Collections.<String>emptySet() : repositoryHosts;
+    }
+
+    private synchronized void setRepositoryHosts(Set<String> repositoryHosts) {
+        this.repositoryHosts = repositoryHosts;
     }
 
     /**
@@ -258,7 +933,22 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
 
     @Override
     protected Action[] getScheduledActions(Node pollingNode, XTriggerLog log) {
-        return new Action[0];
+        IvyTriggerChangeSet changeSet = lastChangeSet;
+        lastChangeSet = null;
+        if (changeSet == null || changeSet.isEmpty()) {
+            return new Action[0];
+        }
+        return new Action[]{new IvyTriggerChangesAction(changeSet)};
+    }
+
+    @Override
+    protected boolean checkIfModified(Node pollingNode, XTriggerLog log) throws XTriggerException {
+        pollInProgress = true;
+        try {
+            return super.checkIfModified(pollingNode, log);
+        } finally {
+            pollInProgress = false;
+        }
     }
 
     @Override
@@ -267,7 +957,7 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
                                       XTriggerLog log)
             throws XTriggerException {
 
-        Map<String, IvyDependencyValue> previousDependencies = previousIvyTriggerContext.getDependencies();
+        IvyDependencyState previousDependencies = previousIvyTriggerContext.getState();
 
         if (previousDependencies == null) {
             log.error("Can't compute files to check if there are modifications.");
@@ -275,7 +965,7 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
             return false;
         }
 
-        Map<String, IvyDependencyValue> newComputedDependencies = newIvyTriggerContext.getDependencies();
+        IvyDependencyState newComputedDependencies = newIvyTriggerContext.getState();
 
         //Check pre-requirements
         if (newComputedDependencies == null) {
@@ -290,9 +980,16 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
             return false;
         }
 
-        //Display all resolved dependencies
-        for (Map.Entry<String, IvyDependencyValue> dependency : newComputedDependencies.entrySet()) {
-            log.info(String.format("Resolved dependency %s ...", dependency.getKey()));
+        //Display the resolved dependencies, all of them in debug mode
+        int loggedDependencies = debug ? newComputedDependencies.size() : Math.min(newComputedDependencies.size(), MAX_LOGGED_DEPENDENCIES);
+        for (int i = 0; i < loggedDependencies; i++) {
+            String configurations = newComputedDependencies.getConfigurations(i);
+            log.info(configurations == null
+                    ? String.format("Resolved dependency %s ...", newComputedDependencies.getId(i))
+                    : String.format("Resolved dependency %s (%s) ...", newComputedDependencies.getId(i), configurations));
+        }
+        if (loggedDependencies < newComputedDependencies.size()) {
+            log.info(String.format("... and %d other resolved dependencies.", newComputedDependencies.size() - loggedDependencies));
         }
 
         /* Redundant code - commenting out until we can decide which action is correct in this instance.
@@ -303,120 +1000,45 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
         }
 		*/
 
-        if (previousDependencies.size() != newComputedDependencies.size()) {
-            log.info("\nThe number of resolved dependencies has changed.");
-            setNewContext(newIvyTriggerContext);
-            return true;
+        //Artifacts are only compared if we've been told to download them or to read their metadata.
+        //Otherwise there is nothing to compare.
+        boolean compareArtifacts = downloadArtifacts || checkArtifactsMetadata;
+        if (!compareArtifacts) {
+            log.info("\nArtifacts were not configured for download or metadata checks, no individual artifact checks made.");
         }
 
-        //Check if there is at least one change
         log.info("\nChecking comparison to previous recorded dependencies.");
-        for (Map.Entry<String, IvyDependencyValue> dependency : previousDependencies.entrySet()) {
-            if (isDependencyChanged(log, dependency, newComputedDependencies)) {
-                setNewContext(newIvyTriggerContext);
-                return true;
-            }
+        long diffStart = System.currentTimeMillis();
+        IvyTriggerChangeSet changeSet = IvyTriggerChangeSet.compute(previousDependencies, newComputedDependencies, compareArtifacts, ignoreRevisionOnlyChanges);
+        changeSet = removeAcknowledgedChanges(changeSet, newComputedDependencies, log);
+        IvyPollStatistics statistics = lastStatistics;
+        if (statistics != null && job != null) {
+            IvyPollingMetrics.getInstance().getJobMetrics(job.getFullName(), job.getUrl()).recordDiff(statistics, System.currentTimeMillis() - diffStart);
         }
+        logChangeSet(log, changeSet);
+        lastChangeSet = changeSet;
 
         setNewContext(newIvyTriggerContext);
-        return false;
+        return !changeSet.isEmpty();
     }
 
-    private boolean isDependencyChanged(XTriggerLog log,
-                                        Map.Entry<String, IvyDependencyValue> previousDependency,
-                                        Map<String, IvyDependencyValue> newComputedDependencies) {
-
-        String dependencyId = previousDependency.getKey();
-        log.info(String.format("Checking previous recording dependency %s", dependencyId));
-
-        IvyDependencyValue previousDependencyValue = previousDependency.getValue();
-        IvyDependencyValue newDependencyValue = newComputedDependencies.get(dependencyId);
-
-        //Check if the previous dependency exists anymore
-        if (newDependencyValue == null) {
-            log.info(String.format("....The previous dependency %s doesn't exist anymore.", dependencyId));
-            return true;
-        }
-
-        //Check if the revision has changed
-        String previousRevision = previousDependencyValue.getRevision();
-        String newRevision = newDependencyValue.getRevision();
-        if (!newRevision.equals(previousRevision)) {
-            log.info("....The dependency version has changed.");
-            log.info(String.format("....The previous version recorded was %s.", previousRevision));
-            log.info(String.format("....The new computed version is %s.", newRevision));
-            return true;
-        }
-
-        //Check if artifacts list has changed
-        List<IvyArtifactValue> previousArtifactValueList = previousDependencyValue.getArtifacts();
-        List<IvyArtifactValue> newArtifactValueList = newDependencyValue.getArtifacts();
-
-        //Display all resolved artifacts
-        for (IvyArtifactValue artifactValue : newArtifactValueList) {
-            log.info(String.format("..Dependency resolved artifact: %s", artifactValue.getFullName()));
+    private void logChangeSet(XTriggerLog log, IvyTriggerChangeSet changeSet) {
+        if (changeSet.isEmpty()) {
+            log.info("No changes in the dependencies.");
+            return;
         }
-
-        if (previousArtifactValueList.size() != newArtifactValueList.size()) {
-            log.info("....The number of artifacts of the dependency has changed.");
-        }
-
-        // Check if there is at least one change to previous recording artifacts
-        // Only do this if we've been told to download artifacts. Otherwise there is
-        // nothing to compare.
-        if (downloadArtifacts) {
-            log.info("...Checking comparison to previous recorded artifacts.");
-            for (IvyArtifactValue ivyArtifactValue : previousArtifactValueList) {
-                if (isArtifactsChanged(log, ivyArtifactValue, newArtifactValueList)) {
-                    return true;
-                }
+        for (IvyTriggerChangeSet.DependencyChange change : changeSet.getChanges()) {
+            log.info(String.format("....The dependency %s %s.", change.getDependencyId(), change.getType().getDescription()));
+            if (change.getType() == IvyTriggerChangeSet.ChangeType.REVISION_CHANGED) {
+                log.info(String.format("....The previous version recorded was %s.", change.getPreviousRevision()));
+                log.info(String.format("....The new computed version is %s.", change.getNewRevision()));
             }
-        } else {
-            log.info("...Artifacts were not configured for download, no individual artifact checks made.");
-        }
-
-        return false;
-    }
-
-    private boolean isArtifactsChanged(XTriggerLog log, IvyArtifactValue previousIvyArtifactValue, List<IvyArtifactValue> newArtifactValueList) {
-        log.info(String.format("....Checking previous recording artifact %s", previousIvyArtifactValue.getFullName()));
-
-        //Get the new artifact with same coordinates
-        IvyArtifactValue newIvyArtifactValue = null;
-        boolean stop = false;
-        int i = 0;
-        while (!stop && i < newArtifactValueList.size()) {
-            IvyArtifactValue ivyArtifactValue = newArtifactValueList.get(i);
-            if (ivyArtifactValue.getFullName().equals(previousIvyArtifactValue.getFullName())) {
-                newIvyArtifactValue = ivyArtifactValue;
-                stop = true;
+            for (IvyTriggerChangeSet.ArtifactChange artifactChange : change.getArtifactChanges()) {
+                log.info(String.format("......The artifact %s: %s.", artifactChange.getArtifact(), artifactChange.getReason()));
             }
-            i++;
         }
-
-        //--Check if there are changes
-
-        //Check if the artifact still exist
-        if (newIvyArtifactValue == null) {
-            log.info(String.format("....The previous artifact %s doesn't exist anymore.", previousIvyArtifactValue.getFullName()));
-            return true;
-        }
-
-        //Check the publication date
-        long previousPublicationDate = previousIvyArtifactValue.getLastModificationDate();
-        long newPublicationDate = newIvyArtifactValue.getLastModificationDate();
-        if (previousPublicationDate != newPublicationDate) {
-            log.info("....The artifact version of the dependency has changed.");
-            log.info(String.format("....The previous publication date recorded was %s.", new Date(previousPublicationDate)));
-            log.info(String.format("....The new computed publication date is %s.", new Date(newPublicationDate)));
-            return true;
-        }
-
-        log.info(String.format("....No changes for the %s artifact", newIvyArtifactValue.getFullName()));
-        return false;
     }
 
-
     /**
      * Gets the triggering log file
      *
@@ -433,7 +1055,7 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
 
     @Override
     protected boolean requiresWorkspaceForPolling() {
-        return true;
+        return !pollOnController;
     }
 
     @Override
@@ -454,5 +1076,29 @@ public class IvyTrigger extends AbstractTriggerByFullContext<IvyTriggerContext>
         public String getDisplayName() {
             return "IvyTrigger - Poll with an Ivy script";
         }
+
+        @Override
+        public Trigger<?> newInstance(StaplerRequest2 req, JSONObject formData) throws FormException {
+            IvyTrigger trigger = (IvyTrigger) super.newInstance(req, formData);
+            //The job still has its previous trigger while the new one is created
+            Job<?, ?> job = req == null ? null : req.findAncestorObject(Job.class);
+            IvyTrigger previous = job == null ? null : ParameterizedJobMixIn.getTrigger(job, IvyTrigger.class);
+            trigger.authorizeControllerPolling(previous, Jenkins.getAuthentication2().getName(), Jenkins.get().hasPermission(Jenkins.ADMINISTER));
+            return trigger;
+        }
+
+        public FormValidation doCheckPollOnController(@QueryParameter boolean value) {
+            if (!value) {
+                return FormValidation.ok();
+            }
+            if (!Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
+                return FormValidation.error("Only an administrator can enable the polling on the controller.");
+            }
+            if (!IvyControllerResolver.getInstance().isEnabled()) {
+                return FormValidation.warning("No location is allowed for the polling on the controller: the polls will fail until the "
+                        + IvyControllerResolver.class.getName() + ".allowedLocations system property is set.");
+            }
+            return FormValidation.ok();
+        }
     }
 }
@@ -0,0 +1,305 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between two resolutions of the dependencies of a job.
+ * <p>
+ * The change set is computed in a single pass over the {@link IvyDependencyState}s of the two polls: their
+ * dependencies are sorted by identifier and, within a dependency, their artifacts by key
+ * (name, type, extension and classifier), so both levels are compared with a merge walk.
+ */
+public class IvyTriggerChangeSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<DependencyChange> changes;
+
+    public IvyTriggerChangeSet(List<DependencyChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * @param previousDependencies the dependencies recorded by the previous poll
+     * @param newDependencies      the dependencies computed by the current poll
+     * @param compareArtifacts     whether the artifacts of the dependencies have to be compared
+     * @return the changes, sorted by dependency identifier
+     */
+    public static IvyTriggerChangeSet compute(Map<String, IvyDependencyValue> previousDependencies,
+                                              Map<String, IvyDependencyValue> newDependencies,
+                                              boolean compareArtifacts) {
+        return compute(IvyDependencyState.of(previousDependencies), IvyDependencyState.of(newDependencies), compareArtifacts);
+    }
+
+    /**
+     * @param previousState    the dependencies recorded by the previous poll
+     * @param newState         the dependencies computed by the current poll
+     * @param compareArtifacts whether the artifacts of the dependencies have to be compared
+     * @return the changes, sorted by dependency identifier
+     */
+    public static IvyTriggerChangeSet compute(IvyDependencyState previousState, IvyDependencyState newState, boolean compareArtifacts) {
+        return compute(previousState, newState, compareArtifacts, false);
+    }
+
+    /**
+     * @param previousState             the dependencies recorded by the previous poll
+     * @param newState                  the dependencies computed by the current poll
+     * @param compareArtifacts          whether the artifacts of the dependencies have to be compared
+     * @param ignoreRevisionOnlyChanges whether a new revision whose artifacts have the same checksums as the previous ones is ignored
+     * @return the changes, sorted by dependency identifier
+     */
+    public static IvyTriggerChangeSet compute(IvyDependencyState previousState, IvyDependencyState newState,
+                                              boolean compareArtifacts, boolean ignoreRevisionOnlyChanges) {
+        List<DependencyChange> changes = new ArrayList<>();
+        int previousIndex = 0;
+        int newIndex = 0;
+
+        //Both states are sorted by identifier: walk them together
+        while (previousIndex < previousState.size() || newIndex < newState.size()) {
+            int order;
+            if (previousIndex == previousState.size()) {
+                order = 1;
+            } else if (newIndex == newState.size()) {
+                order = -1;
+            } else {
+                order = previousState.getId(previousIndex).compareTo(newState.getId(newIndex));
+            }
+
+            if (order < 0) {
+                changes.add(new DependencyChange(ChangeType.REMOVED, previousState.getId(previousIndex), previousState.getRevision(previousIndex), null,
+                        Collections.<ArtifactChange>emptyList()));
+                previousIndex++;
+            } else if (order > 0) {
+                changes.add(new DependencyChange(ChangeType.ADDED, newState.getId(newIndex), null, newState.getRevision(newIndex),
+                        Collections.<ArtifactChange>emptyList()));
+                newIndex++;
+            } else {
+                DependencyChange change = compareDependency(previousState, previousIndex, newState, newIndex, compareArtifacts, ignoreRevisionOnlyChanges);
+                if (change != null) {
+                    changes.add(change);
+                }
+                previousIndex++;
+                newIndex++;
+            }
+        }
+        return new IvyTriggerChangeSet(changes);
+    }
+
+    private static DependencyChange compareDependency(IvyDependencyState previousState, int previousIndex,
+                                                      IvyDependencyState newState, int newIndex,
+                                                      boolean compareArtifacts, boolean ignoreRevisionOnlyChanges) {
+        List<ArtifactChange> artifactChanges = compareArtifacts
+                ? compareArtifacts(previousState, previousIndex, newState, newIndex)
+                : Collections.<ArtifactChange>emptyList();
+
+        String dependencyId = newState.getId(newIndex);
+        String previousRevision = previousState.getRevision(previousIndex);
+        String newRevision = newState.getRevision(newIndex);
+        if (newRevision == null ? previousRevision != null : !newRevision.equals(previousRevision)) {
+            if (ignoreRevisionOnlyChanges && haveSameContent(previousState, previousIndex, newState, newIndex)) {
+                return null;
+            }
+            return new DependencyChange(ChangeType.REVISION_CHANGED, dependencyId, previousRevision, newRevision, artifactChanges);
+        } else if (!artifactChanges.isEmpty()) {
+            return new DependencyChange(ChangeType.REPUBLISHED, dependencyId, previousRevision, newRevision, artifactChanges);
+        }
+        return null;
+    }
+
+    /**
+     * @return whether both dependencies have the same artifacts, with the same checksums
+     */
+    private static boolean haveSameContent(IvyDependencyState previousState, int previousIndex,
+                                           IvyDependencyState newState, int newIndex) {
+        int artifactCount = previousState.getArtifactCount(previousIndex);
+        if (artifactCount == 0 || artifactCount != newState.getArtifactCount(newIndex)) {
+            return false;
+        }
+        int previousArtifact = previousState.getFirstArtifact(previousIndex);
+        int newArtifact = newState.getFirstArtifact(newIndex);
+        for (int i = 0; i < artifactCount; i++, previousArtifact++, newArtifact++) {
+            if (IvyDependencyState.compareArtifactKeys(previousState, previousArtifact, newState, newArtifact) != 0) {
+                return false;
+            }
+            String previousChecksum = previousState.getArtifactChecksum(previousArtifact);
+            if (previousChecksum == null || !previousChecksum.equals(newState.getArtifactChecksum(newArtifact))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<ArtifactChange> compareArtifacts(IvyDependencyState previousState, int previousIndex,
+                                                         IvyDependencyState newState, int newIndex) {
+        List<ArtifactChange> artifactChanges = new ArrayList<>();
+
+        //The artifacts of a dependency are sorted by key: walk them together
+        int previousArtifact = previousState.getFirstArtifact(previousIndex);
+        int previousEnd = previousArtifact + previousState.getArtifactCount(previousIndex);
+        int newArtifact = newState.getFirstArtifact(newIndex);
+        int newEnd = newArtifact + newState.getArtifactCount(newIndex);
+        while (previousArtifact < previousEnd || newArtifact < newEnd) {
+            int order;
+            if (previousArtifact == previousEnd) {
+                order = 1;
+            } else if (newArtifact == newEnd) {
+                order = -1;
+            } else {
+                order = IvyDependencyState.compareArtifactKeys(previousState, previousArtifact, newState, newArtifact);
+            }
+
+            if (order < 0) {
+                artifactChanges.add(new ArtifactChange(previousState.getArtifactFullName(previousArtifact), "doesn't exist anymore"));
+                previousArtifact++;
+            } else if (order > 0) {
+                artifactChanges.add(new ArtifactChange(newState.getArtifactFullName(newArtifact), "has been added"));
+                newArtifact++;
+            } else {
+                String reason = getArtifactChangeReason(previousState, previousArtifact, newState, newArtifact);
+                if (reason != null) {
+                    artifactChanges.add(new ArtifactChange(newState.getArtifactFullName(newArtifact), reason));
+                }
+                previousArtifact++;
+                newArtifact++;
+            }
+        }
+        return artifactChanges;
+    }
+
+    private static String getArtifactChangeReason(IvyDependencyState previousState, int previousArtifact,
+                                                  IvyDependencyState newState, int newArtifact) {
+        long previousPublicationDate = previousState.getArtifactModificationDate(previousArtifact);
+        long newPublicationDate = newState.getArtifactModificationDate(newArtifact);
+        if (previousPublicationDate != newPublicationDate) {
+            return String.format("publication date changed from %s to %s", new Date(previousPublicationDate), new Date(newPublicationDate));
+        }
+
+        //Size and checksum are compared when the repository provides them
+        long previousSize = previousState.getArtifactSize(previousArtifact);
+        long newSize = newState.getArtifactSize(newArtifact);
+        if (previousSize != -1 && newSize != -1 && previousSize != newSize) {
+            return String.format("size changed from %d to %d bytes", previousSize, newSize);
+        }
+
+        String previousChecksum = previousState.getArtifactChecksum(previousArtifact);
+        String newChecksum = newState.getArtifactChecksum(newArtifact);
+        if (previousChecksum != null && newChecksum != null && !previousChecksum.equals(newChecksum)) {
+            return String.format("checksum changed from %s to %s", previousChecksum, newChecksum);
+        }
+        return null;
+    }
+
+    public List<DependencyChange> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public enum ChangeType {
+        ADDED("has been added"),
+        REMOVED("doesn't exist anymore"),
+        REVISION_CHANGED("has a new revision"),
+        REPUBLISHED("has been republished");
+
+        private final String description;
+
+        ChangeType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Change of a dependency
+     */
+    public static class DependencyChange implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ChangeType type;
+
+        private final String dependencyId;
+
+        private final String previousRevision;
+
+        private final String newRevision;
+
+        private final List<ArtifactChange> artifactChanges;
+
+        public DependencyChange(ChangeType type, String dependencyId, String previousRevision, String newRevision, List<ArtifactChange> artifactChanges) {
+            this.type = type;
+            this.dependencyId = dependencyId;
+            this.previousRevision = previousRevision;
+            this.newRevision = newRevision;
+            this.artifactChanges = artifactChanges;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public String getDependencyId() {
+            return dependencyId;
+        }
+
+        /**
+         * @return the module part of the dependency identifier (organisation#module), without the requested revision
+         */
+        public String getModuleId() {
+            return IvyDependencyIndex.getModuleId(dependencyId);
+        }
+
+        /**
+         * @return the revision recorded by the previous poll, <code>null</code> for an added dependency
+         */
+        public String getPreviousRevision() {
+            return previousRevision;
+        }
+
+        /**
+         * @return the revision computed by the current poll, <code>null</code> for a removed dependency
+         */
+        public String getNewRevision() {
+            return newRevision;
+        }
+
+        public List<ArtifactChange> getArtifactChanges() {
+            return artifactChanges;
+        }
+    }
+
+    /**
+     * Change of an artifact of a dependency
+     */
+    public static class ArtifactChange implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String artifact;
+
+        private final String reason;
+
+        public ArtifactChange(String artifact, String reason) {
+            this.artifact = artifact;
+            this.reason = reason;
+        }
+
+        public String getArtifact() {
+            return artifact;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.EnvVars;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Attached to the builds triggered by IvyTrigger: the dependency changes found by the poll.
+ * <p>
+ * The changes are also exposed to the build as environment variables:
+ * <ul>
+ * <li><code>IVY_TRIGGER_CHANGED_MODULES</code>: the changed modules (organisation#module), comma separated</li>
+ * <li><code>IVY_TRIGGER_CHANGES</code>: the changed modules with their previous and new revisions
+ * (organisation#module:previous-&gt;new), comma separated</li>
+ * <li><code>IVY_TRIGGER_CHANGED_ARTIFACTS</code>: the changed artifacts (organisation#module/artifact), comma separated</li>
+ * </ul>
+ */
+public class IvyTriggerChangesAction implements EnvironmentContributingAction, RunAction2 {
+
+    public static final String CHANGED_MODULES_VARIABLE = "IVY_TRIGGER_CHANGED_MODULES";
+
+    public static final String CHANGES_VARIABLE = "IVY_TRIGGER_CHANGES";
+
+    public static final String CHANGED_ARTIFACTS_VARIABLE = "IVY_TRIGGER_CHANGED_ARTIFACTS";
+
+    private final IvyTriggerChangeSet changeSet;
+
+    private transient Run<?, ?> run;
+
+    public IvyTriggerChangesAction(IvyTriggerChangeSet changeSet) {
+        this.changeSet = changeSet;
+    }
+
+    public IvyTriggerChangeSet getChangeSet() {
+        return changeSet;
+    }
+
+    @SuppressWarnings("unused")
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.gif";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Ivy Dependency Changes";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ivyTriggerChanges";
+    }
+
+    @Override
+    public void buildEnvironment(Run<?, ?> run, EnvVars env) {
+        List<String> modules = new ArrayList<>();
+        List<String> changes = new ArrayList<>();
+        List<String> artifacts = new ArrayList<>();
+        for (IvyTriggerChangeSet.DependencyChange change : changeSet.getChanges()) {
+            modules.add(change.getModuleId());
+            changes.add(String.format("%s:%s->%s", change.getModuleId(),
+                    change.getPreviousRevision() == null ? "none" : change.getPreviousRevision(),
+                    change.getNewRevision() == null ? "none" : change.getNewRevision()));
+            for (IvyTriggerChangeSet.ArtifactChange artifactChange : change.getArtifactChanges()) {
+                artifacts.add(change.getModuleId() + "/" + artifactChange.getArtifact());
+            }
+        }
+        env.put(CHANGED_MODULES_VARIABLE, String.join(",", modules));
+        env.put(CHANGES_VARIABLE, String.join(",", changes));
+        env.put(CHANGED_ARTIFACTS_VARIABLE, String.join(",", artifacts));
+    }
+}
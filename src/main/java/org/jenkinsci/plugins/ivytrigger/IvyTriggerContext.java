@@ -9,13 +9,54 @@ import java.util.Map;
  */
 public class IvyTriggerContext implements XTriggerContext {
 
-    private final Map<String, IvyDependencyValue> dependencies;
+    //Only set in the serialized form: in memory, the dependencies are held by the compact state
+    private Map<String, IvyDependencyValue> dependencies;
+
+    private transient IvyDependencyState state;
+
+    private final IvyResolutionFingerprint fingerprint;
 
     public IvyTriggerContext(Map<String, IvyDependencyValue> dependencies) {
-        this.dependencies = dependencies;
+        this(dependencies, null);
+    }
+
+    public IvyTriggerContext(Map<String, IvyDependencyValue> dependencies, IvyResolutionFingerprint fingerprint) {
+        this(dependencies == null ? null : IvyDependencyState.of(dependencies), fingerprint);
+    }
+
+    public IvyTriggerContext(IvyDependencyState state, IvyResolutionFingerprint fingerprint) {
+        this.state = state;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return the dependencies, <code>null</code> if they could not be resolved
+     */
+    public IvyDependencyState getState() {
+        return state;
     }
 
+    /**
+     * @return a copy of the dependencies as value objects, <code>null</code> if they could not be resolved
+     */
     public Map<String, IvyDependencyValue> getDependencies() {
-        return dependencies;
+        return state == null ? null : state.toMap();
+    }
+
+    /**
+     * @return the fingerprint of the resolution which computed the dependencies, <code>null</code> if not computed
+     */
+    public IvyResolutionFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    private Object writeReplace() {
+        IvyTriggerContext serializedContext = new IvyTriggerContext((IvyDependencyState) null, fingerprint);
+        serializedContext.dependencies = getDependencies();
+        return serializedContext;
+    }
+
+    private Object readResolve() {
+        return new IvyTriggerContext(dependencies, fingerprint);
     }
 }
@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.XmlFile;
+import hudson.util.AtomicFileWriter;
+import hudson.util.XStream2;
+import org.jenkinsci.plugins.ivytrigger.util.ContentDigest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Persists the last {@link IvyTriggerContext} of a job in its root directory,
+ * so that the first poll after a restart compares with the state recorded before the restart.
+ * <p>
+ * The context is stored along with a digest of the trigger configuration it has been computed with:
+ * a context recorded with another configuration is not used as a baseline.
+ */
+public class IvyTriggerContextStore {
+
+    public static final String FILE_NAME = "ivy-trigger-context.xml";
+
+    private static final XStream2 XSTREAM = new XStream2();
+
+    static {
+        XSTREAM.alias("ivyTriggerContextRecord", Record.class);
+        XSTREAM.alias("ivyTriggerContext", IvyTriggerContext.class);
+        XSTREAM.alias("dependency", IvyDependencyValue.class);
+        XSTREAM.alias("artifact", IvyArtifactValue.class);
+        XSTREAM.alias("resolutionFingerprint", IvyResolutionFingerprint.class);
+    }
+
+    private final File file;
+
+    //Digest of the last content written, to avoid rewriting an unchanged context at each poll
+    private String lastSavedDigest;
+
+    public IvyTriggerContextStore(File jobRootDir) {
+        this.file = new File(jobRootDir, FILE_NAME);
+    }
+
+    /**
+     * @param configurationDigest the digest of the current trigger configuration
+     * @return the persisted context, or <code>null</code> if there is none or if it has been recorded with another configuration
+     * @throws IOException if the file can't be read
+     */
+    public IvyTriggerContext load(String configurationDigest) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        Object content = new XmlFile(XSTREAM, file).read();
+        if (!(content instanceof Record)) {
+            return null;
+        }
+        Record record = (Record) content;
+        if (!configurationDigest.equals(record.configurationDigest) || record.context == null) {
+            return null;
+        }
+        return record.context;
+    }
+
+    /**
+     * @param context             the context to persist
+     * @param configurationDigest the digest of the trigger configuration the context has been computed with
+     * @throws IOException if the file can't be written
+     */
+    public synchronized void save(IvyTriggerContext context, String configurationDigest) throws IOException {
+        String xml = XSTREAM.toXML(new Record(configurationDigest, context));
+        String digest = new ContentDigest().add(xml).toHex();
+        if (digest.equals(lastSavedDigest)) {
+            return;
+        }
+
+        AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            writer.write("<?xml version='1.1' encoding='UTF-8'?>\n");
+            writer.write(xml);
+            writer.commit();
+        } finally {
+            writer.abort();
+        }
+        lastSavedDigest = digest;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private static final class Record {
+
+        private final String configurationDigest;
+
+        private final IvyTriggerContext context;
+
+        private Record(String configurationDigest, IvyTriggerContext context) {
+            this.configurationDigest = configurationDigest;
+            this.context = context;
+        }
+    }
+}
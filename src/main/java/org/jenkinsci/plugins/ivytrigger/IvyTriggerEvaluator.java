@@ -5,17 +5,33 @@ import hudson.remoting.VirtualChannel;
 
 import jenkins.MasterToSlaveFileCallable;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.Configuration;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ConfigurationResolveReport;
+import org.apache.ivy.core.report.DownloadStatus;
 import org.apache.ivy.core.report.ResolveReport;
 import org.apache.ivy.core.resolve.IvyNode;
 import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
 import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.core.settings.IvyVariableContainer;
 import org.apache.ivy.core.settings.IvyVariableContainerImpl;
+import org.apache.ivy.plugins.lock.NoLockStrategy;
+import org.apache.ivy.plugins.parser.ModuleDescriptorParserRegistry;
+import org.apache.ivy.plugins.resolver.AbstractPatternsBasedResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.util.ConfigurationUtils;
+import org.jenkinsci.plugins.ivytrigger.util.ContentDigest;
+import org.jenkinsci.plugins.ivytrigger.util.ContentURLStreamHandler;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerException;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
 
@@ -24,11 +40,19 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 /**
  * @author Gregory Boissinot
  */
-public class IvyTriggerEvaluator extends MasterToSlaveFileCallable<Map<String, IvyDependencyValue>> {
+public class IvyTriggerEvaluator extends MasterToSlaveFileCallable<IvyResolutionResult> {
+
+    /**
+     * Repository cache shared by all the jobs polling on a node, relative to the node root
+     */
+    public static final String SHARED_CACHE_DIR = "ivy-trigger-shared-cache";
+
+    private static final String SHARED_CACHE_LOCK_STRATEGY = "artifact-lock-nio";
 
     private final String namespace;
 
@@ -38,55 +62,163 @@ public class IvyTriggerEvaluator extends MasterToSlaveFileCallable<Map<String, I
 
     private final URL ivySettingsURL;
 
-    private final FilePath propertiesFilePath;
+    private final String propertiesFileContent;
 
     private final String propertiesContent;
 
-    private final XTriggerLog log;
+    private final XTriggerLog remoteLog;
+
+    private transient BufferedXTriggerLog log;
 
     private final boolean debug;
 
     private final boolean downloadArtifacts;
 
+    private final boolean sharedCache;
+
+    private final boolean checkArtifactsMetadata;
+
+    private final String configurations;
+
+    private final IvyDependencyFilter dependencyFilter;
+
+    private final boolean directDependenciesOnly;
+
+    private final boolean incrementalResolution;
+
+    private final IvyResolutionFingerprint previousFingerprint;
+
     private final Map<String, String> envVars;
 
     public IvyTriggerEvaluator(String namespace,
                                FilePath ivyFilePath,
                                FilePath ivySettingsFilePath,
                                URL ivySettingsURL,
-                               FilePath propertiesFilePath,
+                               String propertiesFileContent,
                                String propertiesContent,
                                XTriggerLog log,
-                               boolean debug,
-                               boolean downloadArtifacts,
-                               Map<String, String> envVars) {
+                               Map<String, String> envVars,
+                               IvyResolutionOptions options) {
         this.namespace = namespace;
         this.ivyFilePath = ivyFilePath;
         this.ivySettingsFilePath = ivySettingsFilePath;
         this.ivySettingsURL = ivySettingsURL;
-        this.propertiesFilePath = propertiesFilePath;
+        this.propertiesFileContent = propertiesFileContent;
         this.propertiesContent = propertiesContent;
-        this.log = log;
-        this.debug = debug;
-        this.downloadArtifacts = downloadArtifacts;
+        this.remoteLog = log;
         this.envVars = envVars;
+        this.debug = options.isDebug();
+        this.downloadArtifacts = options.isDownloadArtifacts();
+        this.sharedCache = options.isSharedCache();
+        this.checkArtifactsMetadata = options.isCheckArtifactsMetadata();
+        this.configurations = options.getConfigurations();
+        this.dependencyFilter = options.getDependencyFilter() == null ? new IvyDependencyFilter(null, null, 0) : options.getDependencyFilter();
+        this.directDependenciesOnly = options.isDirectDependenciesOnly();
+        this.incrementalResolution = options.isIncrementalResolution();
+        this.previousFingerprint = options.getPreviousFingerprint();
     }
 
     @Override
-    public Map<String, IvyDependencyValue> invoke(File launchDir, VirtualChannel channel) throws IOException, InterruptedException {
+    public IvyResolutionResult invoke(File launchDir, VirtualChannel channel) throws IOException, InterruptedException {
+        //Messages are sent back to the controller by chunks
+        log = new BufferedXTriggerLog(remoteLog);
+        IvyEngineCache engineCache = IvyEngineCache.getInstance();
+        String engineKey = null;
+        Ivy ivy = null;
+        IvyPollStatistics statistics = new IvyPollStatistics();
+        List<Lock> cacheLocks = new ArrayList<>(2);
         try {
-            Ivy ivy = getIvyObject(launchDir, log);
+            File cacheDir = getAndInitCacheDir(launchDir, cacheLocks);
+            File repositoryCacheDir = sharedCache ? getAndInitSharedCacheDir(launchDir, cacheLocks) : null;
+            //The cache holding the modules, whose use is recorded for the cleaning
+            File modulesCacheDir = repositoryCacheDir == null ? cacheDir : repositoryCacheDir;
+            Map<String, String> variables = getVariables();
+            String settingsContent = getIvySettingsContents();
+            engineKey = IvyEngineCache.computeKey(settingsContent, variables, cacheDir, repositoryCacheDir);
+
+            ivy = engineCache.acquire(engineKey);
+            if (ivy == null) {
+                long settingsLoadStart = System.currentTimeMillis();
+                ivy = getIvyObject(settingsContent, variables, cacheDir, repositoryCacheDir);
+                statistics.setSettingsLoadMillis(System.currentTimeMillis() - settingsLoadStart);
+            } else {
+                log.info("Reusing Ivy engine loaded by a previous poll.");
+                statistics.setEngineReused(true);
+            }
+            ivy.getLoggerEngine().pushLogger(new IvyTriggerResolverLog(log, debug));
+            Set<String> repositoryHosts = new TreeSet<>();
+            Set<String> fileSystemPatterns = new TreeSet<>();
+            addRepositories(ivy.getSettings(), repositoryHosts, fileSystemPatterns);
+
+            File ivyFile = new File(ivyFilePath.getRemote());
+
+            String inputsDigest = null;
+            if (incrementalResolution) {
+                inputsDigest = getInputsDigest(ivyFile, settingsContent, variables);
+                if (previousFingerprint != null) {
+                    log.info("\nChecking whether the last resolution is still up to date.");
+                    if (previousFingerprint.isUpToDate(ivy, inputsDigest, log)) {
+                        log.info("Nothing has changed since the last resolution. Skipping the resolution.");
+                        List<ModuleId> modules = new ArrayList<>();
+                        for (String module : previousFingerprint.getModules()) {
+                            modules.add(ModuleId.parse(module));
+                        }
+                        markModulesUsed(modulesCacheDir, modules);
+                        ivy.getLoggerEngine().popLogger();
+                        engineCache.release(engineKey, ivy);
+                        ivy = null;
+                        statistics.setResolutionSkipped(true);
+                        return IvyResolutionResult.unchanged(previousFingerprint).withRepositories(repositoryHosts, fileSystemPatterns).withStatistics(statistics);
+                    }
+                }
+            }
+
+            if (directDependenciesOnly) {
+                log.info("\nChecking the revisions of the direct dependencies.");
+                long resolveStart = System.currentTimeMillis();
+                List<ModuleId> modules = new ArrayList<>();
+                Map<String, IvyDependencyValue> dependencies = findDirectDependencies(ivy, ivyFile, modules, statistics);
+                statistics.setResolveMillis(System.currentTimeMillis() - resolveStart);
+                markModulesUsed(modulesCacheDir, modules);
+
+                ivy.getLoggerEngine().popLogger();
+                engineCache.release(engineKey, ivy);
+                ivy = null;
+
+                if (dependencies == null) {
+                    //A partial result would report the missing modules as removed
+                    return IvyResolutionResult.failed().withStatistics(statistics);
+                }
+                statistics.setModuleCount(dependencies.size());
+                return IvyResolutionResult.resolved(dependencies, null).withRepositories(repositoryHosts, fileSystemPatterns).withStatistics(statistics);
+            }
+
             log.info("\nResolving Ivy dependencies.");
 
+            IvyParallelFetcher fetcher = new IvyParallelFetcher(ivy);
+            boolean parallelDownload = downloadArtifacts && fetcher.isParallelDownloadEnabled();
             ResolveOptions options = new ResolveOptions();
-            options.setDownload(downloadArtifacts);
-
-            File ivyFile = new File(ivyFilePath.getRemote());
+            options.setConfs(getConfigurations());
+            if (!dependencyFilter.isEmpty()) {
+                //The artifacts of the modules ignored by the filter are neither downloaded nor checked
+                options.setArtifactFilter(artifact -> dependencyFilter.acceptsModule(artifact.getModuleRevisionId().getModuleId()));
+            }
+            options.setDownload(downloadArtifacts && !parallelDownload);
+            //The report is written once the artifacts are downloaded
+            options.setOutputReport(!parallelDownload);
 
+            long resolveStart = System.currentTimeMillis();
             ResolveReport resolveReport = ivy.resolve(ivyFile, options);
+            if (parallelDownload) {
+                log.info("Downloading artifacts.");
+                fetcher.downloadArtifacts(resolveReport, options.getArtifactFilter(), options.getLog());
+                outputReport(ivy, resolveReport, options);
+            }
+            statistics.setResolveMillis(System.currentTimeMillis() - resolveStart);
             if (resolveReport.hasError()) {
                 List problems = resolveReport.getAllProblemMessages();
                 if (problems != null && !problems.isEmpty()) {
+                    statistics.addErrors(problems.size());
                     StringBuilder errorMsgs = new StringBuilder();
                     errorMsgs.append("Errors:\n");
                     for (Object problem : problems) {
@@ -97,46 +229,148 @@ public class IvyTriggerEvaluator extends MasterToSlaveFileCallable<Map<String, I
                 }
             }
 
-            return getMapDependencies(ivy, resolveReport, log);
+            Map<String, IvyDependencyValue> dependencies = getMapDependencies(fetcher, resolveReport, log);
+            List<ModuleId> modules = new ArrayList<>();
+            for (IvyNode dependency : resolveReport.getDependencies()) {
+                modules.add(dependency.getModuleId());
+            }
+            markModulesUsed(modulesCacheDir, modules);
+            statistics.setModuleCount(dependencies.size());
+            addDownloadStatistics(resolveReport, statistics);
+            IvyResolutionFingerprint fingerprint = null;
+            if (inputsDigest != null && !resolveReport.hasError()) {
+                fingerprint = IvyResolutionFingerprint.compute(ivy, resolveReport, inputsDigest);
+            }
+
+            //Only a healthy engine goes back to the cache
+            ivy.getLoggerEngine().popLogger();
+            engineCache.release(engineKey, ivy);
+            ivy = null;
+
+            return IvyResolutionResult.resolved(dependencies, fingerprint).withRepositories(repositoryHosts, fileSystemPatterns).withStatistics(statistics);
 
         } catch (ParseException pe) {
             log.error("Parsing error: " + pe.getMessage());
-            return null;
+            statistics.addErrors(1);
+            return IvyResolutionResult.failed().withStatistics(statistics);
         } catch (IOException ioe) {
             log.error("IOException: " + ioe.getMessage());
-            return null;
+            statistics.addErrors(1);
+            return IvyResolutionResult.failed().withStatistics(statistics);
         } catch (XTriggerException xe) {
             log.error("XTrigger exception: " + xe.getMessage());
-            return null;
+            statistics.addErrors(1);
+            return IvyResolutionResult.failed().withStatistics(statistics);
+        } finally {
+            if (ivy != null) {
+                ivy.getLoggerEngine().popLogger();
+            }
+            for (Lock cacheLock : cacheLocks) {
+                cacheLock.unlock();
+            }
+            log.flush();
         }
     }
 
-    private Ivy getIvyObject(File launchDir, XTriggerLog log) throws XTriggerException {
-        File tempSettingsFile = null;
-        try {
-            IvyVariableContainer variables = new IvyVariableContainerImpl(getVariables());
-
-            String settingsContent = getIvySettingsContents();
-            tempSettingsFile = File.createTempFile("file", ".tmp");
-            FileUtils.write(tempSettingsFile, settingsContent, StandardCharsets.UTF_8);
+    /**
+     * Finds the revision matching each dependency declared by the Ivy file in the selected configurations, with the
+     * resolvers of the settings, without building the graph of the transitive dependencies.
+     * The artifacts are not checked.
+     *
+     * @param foundModules the modules found, completed by this method
+     * @return the revisions of the dependencies, <code>null</code> if a dependency can't be found
+     */
+    private Map<String, IvyDependencyValue> findDirectDependencies(Ivy ivy, File ivyFile, List<ModuleId> foundModules, IvyPollStatistics statistics) throws IOException, ParseException {
+        ModuleDescriptor descriptor = ModuleDescriptorParserRegistry.getInstance().parseDescriptor(ivy.getSettings(), ivyFile.toURI().toURL(), ivy.getSettings().doValidate());
+        Set<String> selectedConfigurations = getSelectedConfigurations(descriptor);
 
-            IvySettings ivySettings = new IvySettings(variables);
-            ivySettings.load(tempSettingsFile);
-            ivySettings.setDefaultCache(getAndInitCacheDir(launchDir));
+        Map<String, IvyDependencyValue> result = new HashMap<>();
+        boolean missingModules = false;
+        for (DependencyDescriptor dependency : descriptor.getDependencies()) {
+            if (!isInConfigurations(dependency, selectedConfigurations) || !dependencyFilter.acceptsModule(dependency.getDependencyId())) {
+                continue;
+            }
+            ModuleRevisionId requestedId = dependency.getDependencyRevisionId();
+            ResolvedModuleRevision module = ivy.findModule(requestedId);
+            if (module == null) {
+                log.error("Can't find the module " + requestedId);
+                statistics.addErrors(1);
+                missingModules = true;
+                continue;
+            }
+            foundModules.add(module.getId().getModuleId());
+            result.put(requestedId.toString(), new IvyDependencyValue(module.getId().getRevision(), Collections.<IvyArtifactValue>emptyList()));
+        }
+        return missingModules ? null : result;
+    }
 
-            Ivy ivy = Ivy.newInstance(ivySettings);
-            ivy.getLoggerEngine().pushLogger(new IvyTriggerResolverLog(log, debug));
+    /**
+     * @return the selected configurations of the module and the ones they extend, the wildcards and the exclusions
+     * (<code>*,!test</code>) being expanded as for a full resolution
+     */
+    private Set<String> getSelectedConfigurations(ModuleDescriptor descriptor) {
+        String[] confs = ConfigurationUtils.replaceWildcards(getConfigurations(), descriptor);
+        Set<String> selectedConfigurations = new HashSet<>();
+        Deque<String> pendingConfigurations = new ArrayDeque<>(Arrays.asList(confs));
+        while (!pendingConfigurations.isEmpty()) {
+            String conf = pendingConfigurations.pop();
+            Configuration configuration = descriptor.getConfiguration(conf);
+            if (selectedConfigurations.add(conf) && configuration != null) {
+                pendingConfigurations.addAll(Arrays.asList(configuration.getExtends()));
+            }
+        }
+        return selectedConfigurations;
+    }
 
-            return ivy;
+    //The dependency mappings expand their own wildcards and exclusions (*, %, !conf)
+    private static boolean isInConfigurations(DependencyDescriptor dependency, Set<String> selectedConfigurations) {
+        for (String conf : selectedConfigurations) {
+            if (dependency.getDependencyConfigurations(conf).length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        } catch (ParseException | IOException e) {
-            throw new XTriggerException(e);
+    private void outputReport(Ivy ivy, ResolveReport resolveReport, ResolveOptions options) throws IOException {
+        ivy.pushContext();
+        try {
+            ivy.getResolveEngine().outputReport(resolveReport, ivy.getSettings().getResolutionCacheManager(), options);
         } finally {
-            if (tempSettingsFile != null) {
-                if (!tempSettingsFile.delete()) {
-                    log.error("Can't delete temporary file: " + tempSettingsFile);
+            ivy.popContext();
+        }
+    }
+
+    private Ivy getIvyObject(String settingsContent, Map<String, String> variables, File cacheDir, File repositoryCacheDir) throws XTriggerException {
+        try {
+            log.info("Loading Ivy settings.");
+            //The container stores the variables of the settings in its map, which would change the inputs of the poll
+            IvyVariableContainer variableContainer = new IvyVariableContainerImpl(new HashMap<>(variables));
+
+            IvySettings ivySettings = new IvySettings(variableContainer);
+            if (ivySettingsFilePath != null) {
+                //Relative includes are resolved against the settings file
+                ivySettings.load(new File(ivySettingsFilePath.getRemote()));
+            } else {
+                //Settings downloaded from a URL are parsed from memory
+                ivySettings.load(ContentURLStreamHandler.createURL(ivySettingsURL.toString(), settingsContent));
+            }
+            ivySettings.setDefaultCache(cacheDir);
+            if (repositoryCacheDir != null) {
+                //Metadata and artifacts go to the cache shared by all jobs of the node,
+                //resolution reports stay in the job cache
+                log.info("Using the shared repository cache " + repositoryCacheDir);
+                ivySettings.setDefaultRepositoryCacheBasedir(repositoryCacheDir.getAbsolutePath());
+                if (ivySettings.getDefaultLockStrategy() instanceof NoLockStrategy) {
+                    //Several jobs may download the same artifact at the same time
+                    ivySettings.setDefaultLockStrategy(ivySettings.getLockStrategy(SHARED_CACHE_LOCK_STRATEGY));
                 }
             }
+
+            return Ivy.newInstance(ivySettings);
+
+        } catch (ParseException | IOException e) {
+            throw new XTriggerException(e);
         }
     }
 
@@ -152,9 +386,7 @@ public class IvyTriggerEvaluator extends MasterToSlaveFileCallable<Map<String, I
             return FileUtils.readFileToString(new File(ivySettingsFilePath.getRemote()), StandardCharsets.UTF_8);
         } else {
             log.info("Getting settings from URL " + ivySettingsURL.toString());
-            try (InputStream is = ivySettingsURL.openStream()) {
-                return IOUtils.toString(is, StandardCharsets.UTF_8);
-            }
+            return IvySettingsURLCache.getInstance().getContent(ivySettingsURL, log);
         }
     }
 
@@ -167,85 +399,262 @@ public class IvyTriggerEvaluator extends MasterToSlaveFileCallable<Map<String, I
                 variables.putAll(envVars);
             }
 
-            if (propertiesFilePath != null) {
-                propertiesFilePath.act(new MasterToSlaveFileCallable<Void>() {
-                    @Override
-                    public Void invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
-                        Properties properties = new Properties();
-                        try (InputStream stream = new FileInputStream(propertiesFilePath.getRemote());
-                             Reader streamReader = new InputStreamReader(stream, StandardCharsets.ISO_8859_1)) {
-                            properties.load(streamReader);
-                        }
-                        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
-                            variables.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
-                        }
-                        return null;
-                    }
-                });
+            //Properties files first, the properties content overrides them
+            addProperties(propertiesFileContent, variables);
+            addProperties(propertiesContent, variables);
+
+        } catch (IOException e) {
+            throw new XTriggerException(e);
+        }
+
+        return variables;
+    }
+
+    private static void addProperties(String content, Map<String, String> variables) throws IOException {
+        if (content == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader stringReader = new StringReader(content)) {
+            properties.load(stringReader);
+        }
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            variables.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+    }
+
+    private void addDownloadStatistics(ResolveReport resolveReport, IvyPollStatistics statistics) {
+        for (ArtifactDownloadReport downloadReport : resolveReport.getAllArtifactsReports()) {
+            if (downloadReport.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+                statistics.addDownloadedArtifact(downloadReport.getSize());
+            } else if (downloadReport.getDownloadStatus() == DownloadStatus.NO) {
+                statistics.addCachedArtifact();
             }
+        }
+    }
 
-            if (propertiesContent != null) {
-                Properties properties = new Properties();
-                try (Reader stringReader = new StringReader(propertiesContent)) {
-                    properties.load(stringReader);
+    /**
+     * Collects the hosts (host[:port]) of the remote repositories declared by the settings,
+     * and the absolute patterns of their file system repositories.
+     */
+    private void addRepositories(IvySettings ivySettings, Set<String> hosts, Set<String> fileSystemPatterns) {
+        Set<DependencyResolver> visited = new HashSet<>();
+        for (DependencyResolver resolver : ivySettings.getResolvers()) {
+            addRepositories(resolver, hosts, fileSystemPatterns, visited);
+        }
+    }
+
+    private void addRepositories(DependencyResolver resolver, Set<String> hosts, Set<String> fileSystemPatterns, Set<DependencyResolver> visited) {
+        if (resolver == null || !visited.add(resolver)) {
+            return;
+        }
+        if (resolver instanceof ChainResolver) {
+            for (DependencyResolver childResolver : ((ChainResolver) resolver).getResolvers()) {
+                addRepositories(childResolver, hosts, fileSystemPatterns, visited);
+            }
+        } else if (resolver instanceof DualResolver) {
+            addRepositories(((DualResolver) resolver).getIvyResolver(), hosts, fileSystemPatterns, visited);
+            addRepositories(((DualResolver) resolver).getArtifactResolver(), hosts, fileSystemPatterns, visited);
+        } else if (resolver instanceof AbstractPatternsBasedResolver) {
+            AbstractPatternsBasedResolver patternsBasedResolver = (AbstractPatternsBasedResolver) resolver;
+            List<String> patterns = new ArrayList<>(patternsBasedResolver.getIvyPatterns());
+            patterns.addAll(patternsBasedResolver.getArtifactPatterns());
+            for (String pattern : patterns) {
+                if (resolver instanceof FileSystemResolver) {
+                    if (new File(pattern).isAbsolute()) {
+                        fileSystemPatterns.add(pattern);
+                    }
+                    continue;
                 }
-                for (Map.Entry<Object, Object> entry : properties.entrySet()) {
-                    variables.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+                String host = IvyParallelFetcher.getHost(pattern);
+                if (host != null) {
+                    hosts.add(host);
                 }
             }
+        }
+    }
 
-        } catch (IOException | InterruptedException e) {
-            throw new XTriggerException(e);
+    /**
+     * Digest of everything the resolution reads besides the repositories
+     */
+    private String getInputsDigest(File ivyFile, String settingsContent, Map<String, String> variables) throws IOException {
+        return new ContentDigest()
+                .add(FileUtils.readFileToString(ivyFile, StandardCharsets.UTF_8))
+                .add(settingsContent)
+                .add(variables)
+                .add(downloadArtifacts)
+                .add(checkArtifactsMetadata)
+                .add(configurations)
+                .add(dependencyFilter.getDescription())
+                .toHex();
+    }
+
+    /**
+     * @return the configurations to resolve, all of them by default
+     */
+    private String[] getConfigurations() {
+        if (configurations == null) {
+            return new String[]{"*"};
         }
+        List<String> confs = new ArrayList<>();
+        for (String conf : configurations.split(",")) {
+            if (!conf.trim().isEmpty()) {
+                confs.add(conf.trim());
+            }
+        }
+        return confs.isEmpty() ? new String[]{"*"} : confs.toArray(new String[0]);
+    }
 
-        return variables;
+    private File getAndInitCacheDir(File launchDir, List<Lock> cacheLocks) throws IOException {
+        File cacheDir = new File(launchDir, IvyCacheCleaner.CACHE_DIR + "/" + namespace);
+        //Locked before being created, so that the cleaning can't remove it in between
+        cacheLocks.add(IvyCacheLocks.lockForUse(cacheDir));
+        FileUtils.forceMkdir(cacheDir);
+        //The cache of a job which no longer polls on the node ends up expiring
+        cacheDir.setLastModified(System.currentTimeMillis());
+        return cacheDir;
     }
 
-    private File getAndInitCacheDir(File launchDir) throws IOException {
-        File cacheDir = new File(launchDir, "ivy-trigger-cache/" + namespace);
+    private File getAndInitSharedCacheDir(File launchDir, List<Lock> cacheLocks) throws IOException {
+        File cacheDir = new File(launchDir, SHARED_CACHE_DIR);
+        cacheLocks.add(IvyCacheLocks.lockForUse(cacheDir));
         FileUtils.forceMkdir(cacheDir);
         return cacheDir;
     }
 
-    private Map<String, IvyDependencyValue> getMapDependencies(Ivy ivy, ResolveReport resolveReport, XTriggerLog log) {
-        List dependencies = resolveReport.getDependencies();
+    /**
+     * Marks the modules of a poll as used in the repository cache, for the cleaning to evict the least
+     * recently used ones. Only the default layout of the cache (organisation/module) is known.
+     * The modules are marked whether the poll resolved the graph, checked the direct dependencies only,
+     * or skipped an unchanged resolution.
+     */
+    private static void markModulesUsed(File repositoryCacheDir, Collection<ModuleId> modules) {
+        long now = System.currentTimeMillis();
+        for (ModuleId module : modules) {
+            File moduleDir = new File(repositoryCacheDir, module.getOrganisation() + "/" + module.getName());
+            if (moduleDir.isDirectory()) {
+                moduleDir.setLastModified(now);
+            }
+        }
+    }
+
+    private Map<String, IvyDependencyValue> getMapDependencies(IvyParallelFetcher fetcher, ResolveReport resolveReport, XTriggerLog log) throws InterruptedException {
+        List<IvyNode> dependencies = dependencyFilter.filter(resolveReport);
+
+        //The repository metadata of all the dependencies is read at once
+        List<List<IvyArtifactValue>> artifactMetadata = null;
+        if (!downloadArtifacts && checkArtifactsMetadata) {
+            artifactMetadata = fetcher.readArtifactMetadata(dependencies, new IvyArtifactMetadataReader(log));
+        }
+
+        Map<ModuleRevisionId, Collection<IndexedDownloadReport>> downloadReportsIndex = indexDownloadReports(resolveReport);
 
         Map<String, IvyDependencyValue> result = new HashMap<>();
-        for (Object dependencyObject : dependencies) {
+        for (int i = 0; i < dependencies.size(); i++) {
+            IvyNode dependencyNode = dependencies.get(i);
             try {
-                IvyNode dependencyNode = (IvyNode) dependencyObject;
                 ModuleRevisionId moduleRevisionId = dependencyNode.getResolvedId();
                 String moduleRevision = moduleRevisionId.getRevision();
 
-                ArtifactDownloadReport[] downloadReports = resolveReport.getConfigurationReport(dependencyNode.getRootModuleConfigurations()[0]).getDownloadReports(moduleRevisionId) ;
-                
+                Collection<IndexedDownloadReport> downloadReports = downloadReportsIndex.get(moduleRevisionId);
+                if (downloadReports == null) {
+                    downloadReports = Collections.emptyList();
+                }
+
                 List<IvyArtifactValue> ivyArtifactValues = new ArrayList<>();
-                Artifact[] artifacts = dependencyNode.getAllArtifacts();
-                boolean itemsDownloaded = false ;
-                
-                for( ArtifactDownloadReport downloadReport : downloadReports ) {
-                	if( downloadReport.isDownloaded() ) {
-                		itemsDownloaded = true ;
-                	}
+                boolean itemsDownloaded = false;
+
+                for (IndexedDownloadReport downloadReport : downloadReports) {
+                    if (downloadReport.report.isDownloaded()) {
+                        itemsDownloaded = true;
+                    }
                 }
-                
-                if( itemsDownloaded ) {
 
-                	for( ArtifactDownloadReport downloadReport : downloadReports ) {
-                        File localFile = downloadReport.getLocalFile();
+                if (itemsDownloaded) {
+
+                    for (IndexedDownloadReport downloadReport : downloadReports) {
+                        File localFile = downloadReport.report.getLocalFile();
                         long lastModificationDate = localFile.lastModified();
-                        String artifactName = downloadReport.getArtifact().getName() ;
-                        String artifactExt = downloadReport.getArtifact().getExt() ;
-                        
-                        ivyArtifactValues.add(new IvyArtifactValue(artifactName, artifactExt, lastModificationDate));
+                        Artifact artifact = downloadReport.report.getArtifact();
+
+                        ivyArtifactValues.add(new IvyArtifactValue(artifact.getName(), artifact.getExt(), artifact.getType(),
+                                artifact.getExtraAttribute("classifier"), lastModificationDate, -1, null,
+                                IvyDependencyValue.joinConfigurations(downloadReport.configurations)));
+                    }
+                } else if (artifactMetadata != null) {
+                    if (artifactMetadata.get(i) == null) {
+                        log.error("Can't retrieve artifacts for dependency " + dependencyNode);
+                        continue;
                     }
+                    ivyArtifactValues.addAll(artifactMetadata.get(i));
                 }
-                result.put(dependencyNode.getId().toString(), new IvyDependencyValue(moduleRevision, ivyArtifactValues));
+                result.put(dependencyNode.getId().toString(), new IvyDependencyValue(moduleRevision, ivyArtifactValues,
+                        getResolvedConfigurations(dependencyNode, resolveReport)));
             } catch (Throwable e) {
-                log.error("Can't retrieve artifacts for dependency " + dependencyObject);
+                log.error("Can't retrieve artifacts for dependency " + dependencyNode);
             }
         }
 
         return result;
     }
+
+    /**
+     * @return the resolved configurations in which the dependency is not evicted, comma separated
+     */
+    private static String getResolvedConfigurations(IvyNode dependencyNode, ResolveReport resolveReport) {
+        Set<String> configurations = new TreeSet<>();
+        for (String configuration : resolveReport.getConfigurations()) {
+            if (dependencyNode.getRootModuleConfigurationsSet().contains(configuration) && !dependencyNode.isEvicted(configuration)) {
+                configurations.add(configuration);
+            }
+        }
+        return IvyDependencyValue.joinConfigurations(configurations);
+    }
+
+    /**
+     * Indexes the download reports of all the resolved configurations by module, in a single pass.
+     * An artifact required in several configurations is listed once, with all these configurations.
+     */
+    private static Map<ModuleRevisionId, Collection<IndexedDownloadReport>> indexDownloadReports(ResolveReport resolveReport) {
+        Map<ModuleRevisionId, Map<Artifact, IndexedDownloadReport>> reportsByArtifact = new HashMap<>();
+        for (String configuration : resolveReport.getConfigurations()) {
+            ConfigurationResolveReport configurationReport = resolveReport.getConfigurationReport(configuration);
+            if (configurationReport == null) {
+                continue;
+            }
+            for (ArtifactDownloadReport downloadReport : configurationReport.getAllArtifactsReports()) {
+                Map<Artifact, IndexedDownloadReport> moduleReports = reportsByArtifact.get(downloadReport.getArtifact().getModuleRevisionId());
+                if (moduleReports == null) {
+                    moduleReports = new LinkedHashMap<>();
+                    reportsByArtifact.put(downloadReport.getArtifact().getModuleRevisionId(), moduleReports);
+                }
+                IndexedDownloadReport indexedReport = moduleReports.get(downloadReport.getArtifact());
+                if (indexedReport == null) {
+                    indexedReport = new IndexedDownloadReport(downloadReport);
+                    moduleReports.put(downloadReport.getArtifact(), indexedReport);
+                }
+                indexedReport.configurations.add(configuration);
+            }
+        }
+
+        Map<ModuleRevisionId, Collection<IndexedDownloadReport>> index = new HashMap<>(reportsByArtifact.size() * 2);
+        for (Map.Entry<ModuleRevisionId, Map<Artifact, IndexedDownloadReport>> entry : reportsByArtifact.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().values());
+        }
+        return index;
+    }
+
+    /**
+     * Download report of an artifact, with the resolved configurations requiring it
+     */
+    private static final class IndexedDownloadReport {
+
+        private final ArtifactDownloadReport report;
+
+        private final Set<String> configurations = new TreeSet<>();
+
+        private IndexedDownloadReport(ArtifactDownloadReport report) {
+            this.report = report;
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.model.Action;
+import hudson.model.Item;
+
+/**
+ * Project page listing the cost of the last IvyTrigger polls of the job.
+ */
+public class IvyTriggerMetricsAction implements Action {
+
+    private final transient Item job;
+
+    public IvyTriggerMetricsAction(Item job) {
+        this.job = job;
+    }
+
+    @SuppressWarnings("unused")
+    public Item getOwner() {
+        return job;
+    }
+
+    @SuppressWarnings("unused")
+    public IvyPollingMetrics.JobMetrics getMetrics() {
+        return IvyPollingMetrics.getInstance().getJobMetrics(job.getFullName());
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clipboard.gif";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "IvyTrigger Metrics";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "ivyTriggerMetrics";
+    }
+}
@@ -12,6 +12,9 @@ public class IvyTriggerResolverLog extends AbstractMessageLogger {
 
     private final boolean debug;
 
+    //Progress ticks are reported as a single line when the progress ends
+    private final StringBuilder progress = new StringBuilder();
+
     public IvyTriggerResolverLog(XTriggerLog xTriggerLog, boolean debug) {
         this.log = xTriggerLog;
         this.debug = debug;
@@ -19,13 +22,17 @@ public class IvyTriggerResolverLog extends AbstractMessageLogger {
 
     @Override
     protected void doProgress() {
-        log.info(".");
+        progress.append('.');
     }
 
     @Override
     protected void doEndProgress(String msg) {
         if (msg != null && msg.length() != 0) {
-            log.info(msg);
+            progress.append(msg);
+        }
+        if (progress.length() != 0) {
+            log.info(progress.toString());
+            progress.setLength(0);
         }
     }
 
@@ -0,0 +1,56 @@
+package org.jenkinsci.plugins.ivytrigger.util;
+
+import hudson.Util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+/**
+ * Builds a SHA-256 digest from a sequence of strings.
+ * <p>
+ * Each value is followed by a separator, so that ("ab", "c") and ("a", "bc") give different digests.
+ */
+public class ContentDigest {
+
+    private final MessageDigest digest;
+
+    public ContentDigest() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ContentDigest add(String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        return this;
+    }
+
+    public ContentDigest add(boolean value) {
+        return add(String.valueOf(value));
+    }
+
+    /**
+     * Adds the entries of a map, in the iteration order of the map.
+     */
+    public ContentDigest add(Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            add(entry.getKey());
+            add(entry.getValue());
+        }
+        return add(String.valueOf(values.size()));
+    }
+
+    /**
+     * @return the hex-encoded digest; the builder can't be used anymore afterwards
+     */
+    public String toHex() {
+        return Util.toHexString(digest.digest());
+    }
+}
@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.ivytrigger.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves a content held in memory through a {@link URL}, for the APIs which only read from a URL.
+ * <p>
+ * The handler is attached to the URL it creates and doesn't need to be registered.
+ */
+public class ContentURLStreamHandler extends URLStreamHandler {
+
+    private static final String PROTOCOL = "ivytrigger-content";
+
+    private final String name;
+
+    private final byte[] content;
+
+    private ContentURLStreamHandler(String name, byte[] content) {
+        this.name = name;
+        this.content = content;
+    }
+
+    /**
+     * @param name    the name of the content, shown in the URL
+     * @param content the content, encoded in UTF-8
+     */
+    public static URL createURL(String name, String content) {
+        ContentURLStreamHandler handler = new ContentURLStreamHandler(name, content.getBytes(StandardCharsets.UTF_8));
+        try {
+            return new URL(null, PROTOCOL + ":" + name, handler);
+        } catch (MalformedURLException mue) {
+            throw new IllegalArgumentException(mue);
+        }
+    }
+
+    @Override
+    protected URLConnection openConnection(URL url) throws IOException {
+        //Only the created URL is served, not the URLs resolved against it
+        if (!url.toExternalForm().equals(PROTOCOL + ":" + name)) {
+            throw new FileNotFoundException(url.toString());
+        }
+        return new URLConnection(url) {
+            @Override
+            public void connect() {
+                connected = true;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return content.length;
+            }
+        };
+    }
+}
@@ -7,8 +7,17 @@ import hudson.model.Node;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerException;
 import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
 
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.io.FileUtils;
+
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class FilePathFactory {
@@ -62,4 +71,237 @@ public class FilePathFactory {
             throw new XTriggerException(e);
         }
     }
+
+    /**
+     * Looks for several files at once, with the same rules as {@link #getDescriptorFilePath}, and reads them.
+     * <p>
+     * The files are looked for and read by a single call to the node holding the workspace, and a single call
+     * to the polling node for the files not found in the workspace. Both are made in one call when the
+     * workspace is on the polling node.
+     *
+     * @param filePaths the paths of the files, which may contain variables; a <code>null</code> path is skipped
+     * @return the files in the order of the paths, <code>null</code> for a path without file
+     */
+    public List<DescriptorFile> getDescriptorFiles(List<String> filePaths,
+                                                   AbstractProject job,
+                                                   Node pollingNode,
+                                                   XTriggerLog log,
+                                                   Map<String, String> envVars)
+            throws XTriggerException {
+        //0-- Resolve variables for the paths
+        List<String> resolvedFilePaths = resolveFilePaths(filePaths, envVars);
+
+        FilePath[] foundFilePaths = new FilePath[resolvedFilePaths.size()];
+        byte[][] contents = new byte[resolvedFilePaths.size()][];
+        try {
+            FilePath workspace = job.getSomeWorkspace();
+            FilePath nodeRoot = pollingNode == null ? null : pollingNode.getRootPath();
+
+            //1-- Look for the files in the last workspace if any, and on the node root if it is on the same node
+            if (workspace != null) {
+                List<String> baseDirs = new ArrayList<>();
+                baseDirs.add(workspace.getRemote());
+                if (nodeRoot != null && nodeRoot.getChannel() == workspace.getChannel()) {
+                    baseDirs.add(nodeRoot.getRemote());
+                    nodeRoot = null;
+                }
+                lookup(workspace, baseDirs, resolvedFilePaths, foundFilePaths, contents);
+            }
+
+            //2-- Look for the remaining files on the polling node, or from the master when the slave is off
+            if (pollingNode == null) {
+                lookup(null, Collections.singletonList((String) null), resolvedFilePaths, foundFilePaths, contents);
+            } else if (nodeRoot != null) {
+                lookup(nodeRoot, Collections.singletonList(nodeRoot.getRemote()), resolvedFilePaths, foundFilePaths, contents);
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new XTriggerException(e);
+        }
+        return toDescriptorFiles(resolvedFilePaths, foundFilePaths, contents, log);
+    }
+
+    /**
+     * Looks for several files on the controller only, and reads them, without looking in the workspace.
+     * The files must be in one of the allowed directories, once the links and the relative parts are resolved;
+     * the relative paths are resolved from each allowed directory in turn.
+     *
+     * @param filePaths          the paths of the files, which may contain variables; a <code>null</code> path is skipped
+     * @param allowedDirectories the directories the files can be read from
+     * @return the files in the order of the paths, <code>null</code> for a path without file
+     */
+    public List<DescriptorFile> getControllerDescriptorFiles(List<String> filePaths,
+                                                             List<File> allowedDirectories,
+                                                             XTriggerLog log,
+                                                             Map<String, String> envVars)
+            throws XTriggerException {
+        List<String> resolvedFilePaths = resolveFilePaths(filePaths, envVars);
+        FilePath[] foundFilePaths = new FilePath[resolvedFilePaths.size()];
+        byte[][] contents = new byte[resolvedFilePaths.size()][];
+        try {
+            for (int i = 0; i < resolvedFilePaths.size(); i++) {
+                String filePath = resolvedFilePaths.get(i);
+                if (filePath == null) {
+                    continue;
+                }
+                List<File> candidates = new ArrayList<>();
+                if (new File(filePath).isAbsolute()) {
+                    candidates.add(new File(filePath));
+                } else {
+                    for (File allowedDirectory : allowedDirectories) {
+                        candidates.add(new File(allowedDirectory, filePath));
+                    }
+                }
+                for (File candidate : candidates) {
+                    if (!candidate.isFile()) {
+                        continue;
+                    }
+                    File file = candidate.getCanonicalFile();
+                    if (!isInDirectories(file, allowedDirectories)) {
+                        log.error(String.format("The file '%s' is not in the directories allowed for the polling on the controller.", filePath));
+                        continue;
+                    }
+                    foundFilePaths[i] = new FilePath(file);
+                    contents[i] = FileUtils.readFileToByteArray(file);
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new XTriggerException(e);
+        }
+        return toDescriptorFiles(resolvedFilePaths, foundFilePaths, contents, log);
+    }
+
+    private static boolean isInDirectories(File canonicalFile, List<File> directories) throws IOException {
+        for (File directory : directories) {
+            if (canonicalFile.toPath().startsWith(directory.getCanonicalFile().toPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> resolveFilePaths(List<String> filePaths, Map<String, String> envVars) {
+        List<String> resolvedFilePaths = new ArrayList<>(filePaths.size());
+        for (String filePath : filePaths) {
+            resolvedFilePaths.add(filePath == null ? null : Util.replaceMacro(filePath, envVars));
+        }
+        return resolvedFilePaths;
+    }
+
+    private static List<DescriptorFile> toDescriptorFiles(List<String> resolvedFilePaths, FilePath[] foundFilePaths, byte[][] contents, XTriggerLog log) {
+        List<DescriptorFile> descriptorFiles = new ArrayList<>(foundFilePaths.length);
+        for (int i = 0; i < foundFilePaths.length; i++) {
+            if (foundFilePaths[i] != null) {
+                descriptorFiles.add(new DescriptorFile(foundFilePaths[i], contents[i]));
+            } else {
+                if (resolvedFilePaths.get(i) != null) {
+                    log.error(String.format("Can't find the file '%s'.", resolvedFilePaths.get(i)));
+                }
+                descriptorFiles.add(null);
+            }
+        }
+        return descriptorFiles;
+    }
+
+    /**
+     * Looks for the files not found yet from a root, in one call to its node.
+     *
+     * @param root the root, <code>null</code> to look from the master
+     */
+    private static void lookup(FilePath root, List<String> baseDirs, List<String> filePaths, FilePath[] foundFilePaths, byte[][] contents)
+            throws IOException, InterruptedException {
+        List<String> missingFilePaths = new ArrayList<>(filePaths.size());
+        boolean missing = false;
+        for (int i = 0; i < filePaths.size(); i++) {
+            missingFilePaths.add(foundFilePaths[i] == null ? filePaths.get(i) : null);
+            missing |= missingFilePaths.get(i) != null;
+        }
+        if (!missing) {
+            return;
+        }
+
+        FileLookup lookup = new FileLookup(baseDirs, missingFilePaths);
+        List<FoundFile> foundFiles = root == null ? lookup.invoke(null, null) : root.act(lookup);
+        for (int i = 0; i < foundFiles.size(); i++) {
+            FoundFile foundFile = foundFiles.get(i);
+            if (foundFile != null) {
+                foundFilePaths[i] = root == null ? new FilePath(new File(foundFile.remote)) : new FilePath(root.getChannel(), foundFile.remote);
+                contents[i] = foundFile.content;
+            }
+        }
+    }
+
+    /**
+     * A file found by {@link #getDescriptorFiles} and its content
+     */
+    public static final class DescriptorFile {
+
+        private final FilePath filePath;
+
+        private final byte[] content;
+
+        DescriptorFile(FilePath filePath, byte[] content) {
+            this.filePath = filePath;
+            this.content = content;
+        }
+
+        public FilePath getFilePath() {
+            return filePath;
+        }
+
+        public String getContent(Charset charset) {
+            return new String(content, charset);
+        }
+    }
+
+    private static final class FoundFile implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String remote;
+
+        private final byte[] content;
+
+        private FoundFile(String remote, byte[] content) {
+            this.remote = remote;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Looks for each file in the base directories in turn and reads the first one found
+     */
+    private static final class FileLookup extends MasterToSlaveFileCallable<List<FoundFile>> {
+
+        private static final long serialVersionUID = 1L;
+
+        //A null base directory stands for the working directory
+        private final List<String> baseDirs;
+
+        private final List<String> filePaths;
+
+        private FileLookup(List<String> baseDirs, List<String> filePaths) {
+            this.baseDirs = new ArrayList<>(baseDirs);
+            this.filePaths = new ArrayList<>(filePaths);
+        }
+
+        @Override
+        public List<FoundFile> invoke(File f, VirtualChannel channel) throws IOException {
+            List<FoundFile> foundFiles = new ArrayList<>(filePaths.size());
+            for (String filePath : filePaths) {
+                foundFiles.add(filePath == null ? null : lookup(filePath));
+            }
+            return foundFiles;
+        }
+
+        private FoundFile lookup(String filePath) throws IOException {
+            for (String baseDir : baseDirs) {
+                File file = baseDir == null || new File(filePath).isAbsolute() ? new File(filePath) : new File(baseDir, filePath);
+                if (file.isFile()) {
+                    return new FoundFile(file.getPath(), FileUtils.readFileToByteArray(file));
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -71,6 +71,27 @@ public class PropertiesFileContentExtractor {
         return fileContent.toString();
     }
 
+    /**
+     * Aggregates the content of properties files already looked for with {@link FilePathFactory#getDescriptorFiles}.
+     *
+     * @param propertiesFiles The properties files, in the order of the paths.
+     * @param log Used for logging.
+     * @return The aggregated content of the properties files.
+     * @throws XTriggerException If a properties file has not been found.
+     */
+    public String extractPropertiesFileContents(List<FilePathFactory.DescriptorFile> propertiesFiles, XTriggerLog log) throws XTriggerException {
+        StringBuilder fileContent = new StringBuilder();
+        for (FilePathFactory.DescriptorFile propertiesFile : propertiesFiles) {
+            if (propertiesFile == null) {
+                throw new XTriggerException("A properties file can't be found.");
+            }
+            log.info("Resolved properties file value: " + propertiesFile.getFilePath().getRemote());
+            fileContent.append(propertiesFile.getContent(StandardCharsets.ISO_8859_1));
+            fileContent.append("\n");
+        }
+        return fileContent.toString();
+    }
+
     /**
      * Splits the value on semi-colon and trims each path.
      * <p>
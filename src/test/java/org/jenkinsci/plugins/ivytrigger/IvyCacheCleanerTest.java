@@ -0,0 +1,126 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+public class IvyCacheCleanerTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File rootDir;
+
+    private long now;
+
+    @Before
+    public void setUp() {
+        rootDir = folder.getRoot();
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void removesOrphanAndExpiredNamespaces() throws Exception {
+        File active = namespace("active", now);
+        module(active, "org", "lib", 100, now);
+        module(namespace("deleted", now), "org", "lib", 100, now);
+        module(namespace("moved", now - 10 * DAY), "org", "lib", 100, now - 10 * DAY);
+
+        IvyCacheCleaner.Report report = new IvyCacheCleaner(Arrays.asList("active", "moved"), 0, 5 * DAY).invoke(rootDir, null);
+
+        Assert.assertEquals(Collections.singletonList("deleted"), report.getOrphanNamespaces());
+        Assert.assertEquals(Collections.singletonList("moved"), report.getExpiredNamespaces());
+        Assert.assertEquals(200, report.getReclaimedBytes());
+        Assert.assertEquals(100, report.getRemainingBytes());
+        Assert.assertTrue(active.isDirectory());
+    }
+
+    @Test
+    public void evictsModulesUnusedForTooLong() throws Exception {
+        File sharedCache = new File(rootDir, IvyTriggerEvaluator.SHARED_CACHE_DIR);
+        File unused = module(sharedCache, "org", "unused", 100, now - 10 * DAY);
+        File used = module(sharedCache, "org", "used", 100, now - DAY);
+
+        IvyCacheCleaner.Report report = new IvyCacheCleaner(Collections.<String>emptySet(), 0, 5 * DAY).invoke(rootDir, null);
+
+        Assert.assertEquals(1, report.getEvictedModules());
+        Assert.assertFalse(unused.exists());
+        Assert.assertTrue(used.exists());
+        Assert.assertEquals(100, report.getRemainingBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedModulesOverQuota() throws Exception {
+        File namespace = namespace("job", now);
+        File oldest = module(namespace, "org", "a", 100, now - 3 * DAY);
+        File older = module(namespace, "org", "b", 100, now - 2 * DAY);
+        File recent = module(new File(rootDir, IvyTriggerEvaluator.SHARED_CACHE_DIR), "org", "c", 100, now - DAY);
+
+        IvyCacheCleaner.Report report = new IvyCacheCleaner(Collections.singleton("job"), 150, 0).invoke(rootDir, null);
+
+        Assert.assertEquals(2, report.getEvictedModules());
+        Assert.assertEquals(200, report.getReclaimedBytes());
+        Assert.assertEquals(100, report.getRemainingBytes());
+        Assert.assertFalse(oldest.exists());
+        Assert.assertFalse(older.exists());
+        Assert.assertTrue(recent.exists());
+    }
+
+    @Test
+    public void skipsCachesInUse() throws Exception {
+        File orphan = namespace("deleted", now);
+        module(orphan, "org", "lib", 100, now);
+        File sharedCache = new File(rootDir, IvyTriggerEvaluator.SHARED_CACHE_DIR);
+        File unused = module(sharedCache, "org", "unused", 100, now - 10 * DAY);
+
+        Lock orphanLock = IvyCacheLocks.lockForUse(orphan);
+        Lock sharedCacheLock = IvyCacheLocks.lockForUse(sharedCache);
+        IvyCacheCleaner.Report report;
+        try {
+            report = new IvyCacheCleaner(Collections.<String>emptySet(), 0, 5 * DAY).invoke(rootDir, null);
+        } finally {
+            orphanLock.unlock();
+            sharedCacheLock.unlock();
+        }
+
+        Assert.assertEquals(2, report.getCachesInUse());
+        Assert.assertEquals(0, report.getReclaimedBytes());
+        Assert.assertTrue(orphan.isDirectory());
+        Assert.assertTrue(unused.isDirectory());
+
+        //Cleaned once the polls are over
+        report = new IvyCacheCleaner(Collections.<String>emptySet(), 0, 5 * DAY).invoke(rootDir, null);
+        Assert.assertEquals(200, report.getReclaimedBytes());
+    }
+
+    private File namespace(String name, long lastModified) throws IOException {
+        File namespaceDir = new File(rootDir, IvyCacheCleaner.CACHE_DIR + "/" + name);
+        FileUtils.forceMkdir(namespaceDir);
+        namespaceDir.setLastModified(lastModified);
+        return namespaceDir;
+    }
+
+    private static File module(File cacheDir, String organisation, String module, int size, long lastUsed) throws IOException {
+        long cacheLastModified = cacheDir.lastModified();
+        File moduleDir = new File(cacheDir, organisation + "/" + module);
+        FileUtils.writeByteArrayToFile(new File(moduleDir, "jars/" + module + "-1.0.jar"), new byte[size]);
+        moduleDir.setLastModified(lastUsed);
+        //Creating the module doesn't make the cache used
+        if (cacheLastModified != 0) {
+            cacheDir.setLastModified(cacheLastModified);
+        }
+        return moduleDir;
+    }
+}
@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class IvyControllerResolverTest {
+
+    @Test
+    public void resolve_runsWithTheLaunchDir() throws Exception {
+        IvyControllerResolver resolver = new IvyControllerResolver(1, null);
+        File launchDir = new File("root");
+
+        Assert.assertEquals(launchDir.getPath(), resolver.resolve(launchDir, (FilePath.FileCallable<String>) (f, channel) -> f.getPath()));
+    }
+
+    @Test
+    public void resolve_rethrowsTheFailure() throws Exception {
+        IvyControllerResolver resolver = new IvyControllerResolver(1, null);
+
+        try {
+            resolver.resolve(new File("root"), (FilePath.FileCallable<String>) (f, channel) -> {
+                throw new IOException("unreachable repository");
+            });
+            Assert.fail();
+        } catch (IOException ioe) {
+            Assert.assertEquals("unreachable repository", ioe.getMessage());
+        }
+    }
+
+    @Test
+    public void resolve_boundsTheConcurrentResolutions() throws Exception {
+        final IvyControllerResolver resolver = new IvyControllerResolver(1, null);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pollers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pollers.submit(() -> resolver.resolve(new File("root"), new BlockingCallable(started, release)));
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<String> second = pollers.submit(() -> resolver.resolve(new File("root"), (FilePath.FileCallable<String>) (f, channel) -> "second"));
+
+            //The second resolution waits for the thread of the first one
+            long deadline = System.currentTimeMillis() + 10000;
+            while (resolver.getQueuedCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, resolver.getQueuedCount());
+            Assert.assertFalse(second.isDone());
+
+            release.countDown();
+            Assert.assertEquals("first", first.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals("second", second.get(10, TimeUnit.SECONDS));
+        } finally {
+            pollers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void allowedLocations() throws Exception {
+        Assert.assertFalse(new IvyControllerResolver(1, null).isEnabled());
+        Assert.assertFalse(new IvyControllerResolver(1, "relative/dir").isEnabled());
+
+        File allowedDir = new File("shared").getAbsoluteFile();
+        IvyControllerResolver resolver = new IvyControllerResolver(1, " https://repo.example.com/settings/ , " + allowedDir.getPath());
+
+        Assert.assertTrue(resolver.isEnabled());
+        Assert.assertEquals(Collections.singletonList(allowedDir), resolver.getAllowedDirectories());
+        Assert.assertTrue(resolver.isAllowed(new URL("https://repo.example.com/settings/ivysettings.xml")));
+        Assert.assertFalse(resolver.isAllowed(new URL("https://repo.example.com/settings/../private/ivysettings.xml")));
+        Assert.assertFalse(resolver.isAllowed(new URL("https://repo.example.com/settings/%2E%2E/private/ivysettings.xml")));
+        Assert.assertFalse(resolver.isAllowed(new URL("file:/etc/ivysettings.xml")));
+    }
+
+    private static final class BlockingCallable implements FilePath.FileCallable<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient CountDownLatch started;
+
+        private final transient CountDownLatch release;
+
+        private BlockingCallable(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String invoke(File f, VirtualChannel channel) throws InterruptedException {
+            started.countDown();
+            release.await();
+            return "first";
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IvyDependencyFilterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IvyTestRepository repository;
+
+    private File settingsFile;
+
+    private ResolveReport report;
+
+    @Before
+    public void resolve() throws Exception {
+        //root -> app#a -> util#b -> util#c
+        repository = new IvyTestRepository(folder.newFolder("repository"));
+        writeModule("app#a;1.0", "util#b;1.0");
+        writeModule("util#b;1.0", "util#c;1.0");
+        writeModule("util#c;1.0");
+        settingsFile = repository.writeSettings(new File(folder.getRoot(), "ivysettings.xml"));
+        report = resolve("app#a;1.0");
+    }
+
+    @Test
+    public void emptyFilterSelectsAll() {
+        Assert.assertEquals(modules("app#a", "util#b", "util#c"), filter(new IvyDependencyFilter(null, " ", 0)));
+    }
+
+    @Test
+    public void includeAndExcludePatterns() {
+        Assert.assertEquals(modules("util#b", "util#c"), filter(new IvyDependencyFilter("util", null, 0)));
+        Assert.assertEquals(modules("util#b"), filter(new IvyDependencyFilter("util#*", "util#c", 0)));
+        Assert.assertEquals(modules("app#a", "util#c"), filter(new IvyDependencyFilter(null, "*#b", 0)));
+    }
+
+    @Test
+    public void maxDepth() {
+        Assert.assertEquals(modules("app#a"), filter(new IvyDependencyFilter(null, null, 1)));
+        Assert.assertEquals(modules("app#a", "util#b"), filter(new IvyDependencyFilter(null, null, 2)));
+    }
+
+    @Test
+    public void acceptsModule() {
+        IvyDependencyFilter filter = new IvyDependencyFilter("app, util#b", "app#internal-*", 0);
+
+        Assert.assertTrue(filter.acceptsModule(new ModuleId("app", "a")));
+        Assert.assertTrue(filter.acceptsModule(new ModuleId("util", "b")));
+        Assert.assertFalse(filter.acceptsModule(new ModuleId("util", "c")));
+        Assert.assertFalse(filter.acceptsModule(new ModuleId("app", "internal-tools")));
+    }
+
+    @Test
+    public void maxDepthIgnoresTheEvictedModules() throws Exception {
+        //root -> util#d -> app#a;2.0, evicting root -> app#a;1.0 -> util#x
+        //root -> util#d -> util#e -> util#x
+        writeModule("app#a;2.0");
+        writeModule("app#a;1.0", "util#x;1.0");
+        writeModule("util#d;1.0", "app#a;2.0", "util#e;1.0");
+        writeModule("util#e;1.0", "util#x;1.0");
+        writeModule("util#x;1.0");
+        report = resolve("util#d;1.0", "app#a;1.0");
+
+        Assert.assertEquals(modules("app#a", "util#d", "util#e"), filter(new IvyDependencyFilter(null, null, 2)));
+        Assert.assertEquals(modules("app#a", "util#d", "util#e", "util#x"), filter(new IvyDependencyFilter(null, null, 3)));
+    }
+
+    @Test
+    public void maxDepthOnlyFollowsTheResolvedConfigurations() throws Exception {
+        //root -> app#t -(private test configuration)-> util#x
+        //root -> util#d -> util#e -> util#x
+        repository.writeModule("app", "t", "1.0", "  <configurations>\n"
+                + "    <conf name=\"default\"/>\n"
+                + "    <conf name=\"test\" visibility=\"private\"/>\n"
+                + "  </configurations>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"util\" name=\"x\" rev=\"1.0\" conf=\"test->default\"/>\n"
+                + "  </dependencies>\n");
+        writeModule("util#d;1.0", "util#e;1.0");
+        writeModule("util#e;1.0", "util#x;1.0");
+        writeModule("util#x;1.0");
+        report = resolve("app#t;1.0", "util#d;1.0");
+
+        Assert.assertEquals(modules("app#t", "util#d", "util#e"), filter(new IvyDependencyFilter(null, null, 2)));
+    }
+
+    private ResolveReport resolve(String... dependencies) throws Exception {
+        File ivyFile = new File(folder.getRoot(), "ivy.xml");
+        FileUtils.write(ivyFile, IvyTestRepository.descriptor("root", "root", null, toDependencies(dependencies)), StandardCharsets.UTF_8);
+
+        IvySettings settings = new IvySettings();
+        settings.load(settingsFile);
+        settings.setDefaultCache(new File(folder.getRoot(), "cache"));
+        ResolveOptions options = new ResolveOptions();
+        options.setDownload(false);
+        return Ivy.newInstance(settings).resolve(ivyFile, options);
+    }
+
+    private List<String> filter(IvyDependencyFilter filter) {
+        List<String> modules = new ArrayList<>();
+        for (IvyNode dependency : filter.filter(report)) {
+            if (!dependency.isCompletelyEvicted()) {
+                modules.add(dependency.getModuleId().toString());
+            }
+        }
+        modules.sort(null);
+        return modules;
+    }
+
+    private static List<String> modules(String... modules) {
+        return Arrays.asList(modules);
+    }
+
+    /**
+     * @param id           the module revision, <code>organisation#module;revision</code>
+     * @param dependencies the module revisions it depends on
+     */
+    private void writeModule(String id, String... dependencies) throws IOException {
+        ModuleRevisionId moduleRevisionId = ModuleRevisionId.parse(id);
+        repository.writeModule(moduleRevisionId.getOrganisation(), moduleRevisionId.getName(), moduleRevisionId.getRevision(), toDependencies(dependencies));
+        repository.writeArtifact(moduleRevisionId.getOrganisation(), moduleRevisionId.getName(), moduleRevisionId.getRevision(), moduleRevisionId.getName(), "jar");
+    }
+
+    private static String toDependencies(String... dependencies) {
+        String[] elements = new String[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            ModuleRevisionId dependencyId = ModuleRevisionId.parse(dependencies[i]);
+            elements[i] = IvyTestRepository.dependency(dependencyId.getOrganisation(), dependencyId.getName(), dependencyId.getRevision());
+        }
+        return IvyTestRepository.dependencies(elements);
+    }
+}
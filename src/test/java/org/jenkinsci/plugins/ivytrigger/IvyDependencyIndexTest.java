@@ -0,0 +1,119 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IvyDependencyIndexTest {
+
+    @Test
+    public void update_replacesTheDependenciesOfTheJob() {
+        IvyDependencyIndex index = new IvyDependencyIndex();
+        index.update("job1", state("org#lib;latest.integration", "1.0", "org#util;2.0", "2.0"));
+        index.update("job2", state("org#lib;1.0", "1.0"));
+
+        Assert.assertEquals(2, index.getJobCount());
+        Assert.assertEquals(listOf("job1", "job2"), getJobs(index.getDependencies("org", "lib")));
+        Assert.assertEquals(listOf("job1"), getJobs(index.getDependencies("org", "util")));
+
+        index.update("job1", state("org#lib;latest.integration", "1.1"));
+        Assert.assertEquals(Collections.<String>emptyList(), getJobs(index.getDependencies("org", "util")));
+        Assert.assertEquals("1.1", index.getDependencies("org", "lib").get(1).getRevision());
+
+        index.remove("job2");
+        Assert.assertEquals(listOf("job1"), getJobs(index.getDependencies("org", "lib")));
+        Assert.assertEquals(1, index.getJobCount());
+    }
+
+    @Test
+    public void addPendingLoader_runOnTheFirstLookup() {
+        final IvyDependencyIndex index = new IvyDependencyIndex();
+        final int[] loads = new int[1];
+        index.addPendingLoader("restarted", () -> {
+            loads[0]++;
+            index.update("restarted", state("org#lib;latest.integration", "1.0"));
+        });
+        index.addPendingLoader("deleted", () -> Assert.fail("The loader of a removed job must not run"));
+        index.remove("deleted");
+        Assert.assertEquals(0, loads[0]);
+
+        Assert.assertEquals(listOf("restarted"), getJobs(index.getDependencies("org", "lib")));
+        Assert.assertEquals(listOf("restarted"), getJobs(index.getDependencies("org", "lib")));
+        Assert.assertEquals(1, loads[0]);
+
+        //Already indexed by a poll
+        index.addPendingLoader("restarted", () -> Assert.fail("The job has already been indexed"));
+        index.getDependencies("org", "lib");
+    }
+
+    @Test
+    public void isAffectedBy_acceptedRevisions() {
+        Assert.assertTrue(dependency("org#lib;latest.integration").isAffectedBy("1.2"));
+        Assert.assertTrue(dependency("org#lib;1.+").isAffectedBy("1.2"));
+        Assert.assertFalse(dependency("org#lib;1.+").isAffectedBy("2.0"));
+        Assert.assertTrue(dependency("org#lib;[1.0,2.0[").isAffectedBy("1.5"));
+        Assert.assertFalse(dependency("org#lib;[1.0,2.0[").isAffectedBy("2.0"));
+        //A fixed revision is only affected by its republication
+        Assert.assertTrue(dependency("org#lib;1.0").isAffectedBy("1.0"));
+        Assert.assertFalse(dependency("org#lib;1.0").isAffectedBy("1.1"));
+    }
+
+    @Test
+    public void isAffectedBy_onlyNewerRevisionsForDynamicRevisions() {
+        IvyDependencyIndex.Dependency latest = new IvyDependencyIndex.Dependency("job", "org#lib;latest.integration", "1.2");
+        Assert.assertFalse(latest.isAffectedBy("1.1"));
+        Assert.assertFalse(latest.isAffectedBy("1.2-rc1"));
+        Assert.assertTrue(latest.isAffectedBy("1.2"));
+        Assert.assertTrue(latest.isAffectedBy("1.10"));
+
+        IvyDependencyIndex.Dependency range = new IvyDependencyIndex.Dependency("job", "org#lib;[1.0,2.0[", "1.5");
+        Assert.assertFalse(range.isAffectedBy("1.4"));
+        Assert.assertTrue(range.isAffectedBy("1.6"));
+    }
+
+    @Test
+    public void getAffectedDependencies_onlyAcceptingJobs() {
+        IvyDependencyIndex index = new IvyDependencyIndex();
+        index.update("latest", state("org#lib;latest.integration", "1.0"));
+        index.update("fixed", state("org#lib;1.0", "1.0"));
+        index.update("range", state("org#lib;[1.0,2.0[", "1.0"));
+        index.update("newer", state("org#lib;1.+", "1.2"));
+
+        Map<String, IvyDependencyIndex.Dependency> dependencies = IvyPublicationNotifier.getAffectedDependencies(index, "org", "lib", "1.1");
+
+        Assert.assertEquals(listOf("latest", "range"), new ArrayList<>(dependencies.keySet()));
+        Assert.assertEquals("org#lib", dependencies.get("range").getModuleId());
+    }
+
+    private static IvyDependencyIndex.Dependency dependency(String dependencyId) {
+        return new IvyDependencyIndex.Dependency("job", dependencyId, null);
+    }
+
+    private static IvyDependencyState state(String... idsAndRevisions) {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        for (int i = 0; i < idsAndRevisions.length; i += 2) {
+            dependencies.put(idsAndRevisions[i], new IvyDependencyValue(idsAndRevisions[i + 1], null));
+        }
+        return IvyDependencyState.of(dependencies);
+    }
+
+    private static List<String> getJobs(List<IvyDependencyIndex.Dependency> dependencies) {
+        List<String> jobs = new ArrayList<>();
+        for (IvyDependencyIndex.Dependency dependency : dependencies) {
+            jobs.add(dependency.getJobFullName());
+        }
+        Collections.sort(jobs);
+        return jobs;
+    }
+
+    private static List<String> listOf(String... values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+}
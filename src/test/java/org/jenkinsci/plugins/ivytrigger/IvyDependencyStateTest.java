@@ -0,0 +1,59 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class IvyDependencyStateTest {
+
+    @Test
+    public void of_sortsDependenciesAndArtifacts() {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        dependencies.put("org#b;1.0", new IvyDependencyValue("1.0", Arrays.asList(
+                new IvyArtifactValue("b", "jar", "source", "sources", 2L, -1, null),
+                new IvyArtifactValue("b", "jar", "jar", null, 1L, 10, "sha1:abcd"))));
+        dependencies.put("org#a;latest.integration", new IvyDependencyValue("2.0", null));
+
+        IvyDependencyState state = IvyDependencyState.of(dependencies);
+
+        Assert.assertEquals(2, state.size());
+        Assert.assertEquals("org#a;latest.integration", state.getId(0));
+        Assert.assertEquals("2.0", state.getRevision(0));
+        Assert.assertEquals(0, state.getArtifactCount(0));
+        Assert.assertEquals(1, state.indexOf("org#b;1.0"));
+        Assert.assertEquals(2, state.getArtifactCount(1));
+        Assert.assertEquals("b.jar", state.getArtifactFullName(state.getFirstArtifact(1)));
+        Assert.assertEquals("sha1:abcd", state.getArtifactChecksum(state.getFirstArtifact(1)));
+        Assert.assertEquals("b-sources.jar", state.getArtifactFullName(state.getFirstArtifact(1) + 1));
+    }
+
+    @Test
+    public void of_internsCoordinates() {
+        IvyDependencyState state1 = IvyDependencyState.of(dependency(new String("org#a;1.0"), new String("1.0")));
+        IvyDependencyState state2 = IvyDependencyState.of(dependency(new String("org#a;1.0"), new String("1.0")));
+
+        Assert.assertSame(state1.getId(0), state2.getId(0));
+        Assert.assertSame(state1.getRevision(0), state2.getRevision(0));
+    }
+
+    @Test
+    public void toMap_roundTrip() {
+        Map<String, IvyDependencyValue> dependencies = dependency("org#a;1.0", "1.0");
+
+        Map<String, IvyDependencyValue> copy = IvyDependencyState.of(dependencies).toMap();
+
+        IvyArtifactValue artifact = copy.get("org#a;1.0").getArtifacts().get(0);
+        Assert.assertEquals("a.jar", artifact.getFullName());
+        Assert.assertEquals(42L, artifact.getLastModificationDate());
+        Assert.assertEquals(1024L, artifact.getSize());
+    }
+
+    private static Map<String, IvyDependencyValue> dependency(String id, String revision) {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        dependencies.put(id, new IvyDependencyValue(revision, Arrays.asList(new IvyArtifactValue("a", "jar", "jar", null, 42L, 1024L, null))));
+        return dependencies;
+    }
+}
@@ -0,0 +1,115 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.ivy.Ivy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class IvyEngineCacheTest {
+
+    @Test
+    public void computeKey_sameInputs() {
+        Map<String, String> variables = new TreeMap<>();
+        variables.put("a", "1");
+
+        String key1 = IvyEngineCache.computeKey("<ivysettings/>", variables, new File("cache"), null);
+        String key2 = IvyEngineCache.computeKey("<ivysettings/>", new TreeMap<>(variables), new File("cache"), null);
+
+        Assert.assertEquals(key1, key2);
+    }
+
+    @Test
+    public void computeKey_differentInputs() {
+        Map<String, String> variables = new TreeMap<>();
+        variables.put("a", "1");
+        Map<String, String> otherVariables = new TreeMap<>();
+        otherVariables.put("a", "2");
+
+        String key = IvyEngineCache.computeKey("<ivysettings/>", variables, new File("cache"), null);
+
+        Assert.assertNotEquals(key, IvyEngineCache.computeKey("<ivysettings />", variables, new File("cache"), null));
+        Assert.assertNotEquals(key, IvyEngineCache.computeKey("<ivysettings/>", otherVariables, new File("cache"), null));
+        Assert.assertNotEquals(key, IvyEngineCache.computeKey("<ivysettings/>", variables, new File("other"), null));
+        Assert.assertNotEquals(key, IvyEngineCache.computeKey("<ivysettings/>", variables, new File("cache"), new File("shared")));
+    }
+
+    @Test
+    public void computeKey_settingsReadingOtherFiles() {
+        Map<String, String> variables = new TreeMap<>();
+
+        Assert.assertNull(IvyEngineCache.computeKey("<ivysettings><include file=\"other.xml\"/></ivysettings>", variables, new File("cache"), null));
+        Assert.assertNull(IvyEngineCache.computeKey("<ivysettings><properties file=\"ivy.properties\"/></ivysettings>", variables, new File("cache"), null));
+        Assert.assertNull(IvyEngineCache.computeKey("<ivysettings><credentials host=\"repo\" username=\"u\" passwd=\"p\"/></ivysettings>", variables, new File("cache"), null));
+    }
+
+    @Test
+    public void release_doesNotCacheEngineWithoutKey() {
+        IvyEngineCache cache = new IvyEngineCache(2, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        cache.release(null, Ivy.newInstance());
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.acquire(null));
+    }
+
+    @Test
+    public void acquire_leasesEngineToOneCaller() {
+        IvyEngineCache cache = new IvyEngineCache(2, Long.MAX_VALUE, Long.MAX_VALUE);
+        Ivy ivy = Ivy.newInstance();
+
+        Assert.assertNull(cache.acquire("key"));
+        cache.release("key", ivy);
+        Assert.assertSame(ivy, cache.acquire("key"));
+        Assert.assertNull(cache.acquire("key"));
+    }
+
+    @Test
+    public void release_evictsLeastRecentlyUsed() {
+        IvyEngineCache cache = new IvyEngineCache(2, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        cache.release("key1", Ivy.newInstance());
+        cache.release("key2", Ivy.newInstance());
+        cache.release("key3", Ivy.newInstance());
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.acquire("key1"));
+        Assert.assertNotNull(cache.acquire("key3"));
+    }
+
+    @Test
+    public void acquire_evictsIdleEngines() {
+        IvyEngineCache cache = new IvyEngineCache(2, -1, Long.MAX_VALUE);
+
+        cache.release("key", Ivy.newInstance());
+
+        Assert.assertNull(cache.acquire("key"));
+    }
+
+    @Test
+    public void release_dropsEngineOlderThanMaxAge() throws InterruptedException {
+        IvyEngineCache cache = new IvyEngineCache(2, Long.MAX_VALUE, 20);
+        Ivy ivy = Ivy.newInstance();
+
+        cache.release("key", ivy);
+        Assert.assertSame(ivy, cache.acquire("key"));
+        //Released again before being idle for long, but after the maximum age
+        Thread.sleep(50);
+        cache.release("key", ivy);
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.acquire("key"));
+    }
+
+    @Test
+    public void acquire_evictsEngineOlderThanMaxAge() throws InterruptedException {
+        IvyEngineCache cache = new IvyEngineCache(2, Long.MAX_VALUE, 20);
+
+        cache.release("key", Ivy.newInstance());
+        Thread.sleep(50);
+
+        Assert.assertNull(cache.acquire("key"));
+    }
+}
@@ -0,0 +1,244 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.util.AbstractMessageLogger;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IvyParallelFetcherTest {
+
+    private static final int MODULE_COUNT = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IvyTestRepository repository;
+
+    @Test
+    public void getHost() {
+        Assert.assertEquals("repo.example.org", IvyParallelFetcher.getHost("https://repo.example.org/[organisation]/[artifact].[ext]"));
+        Assert.assertEquals("repo.example.org:8081", IvyParallelFetcher.getHost("http://repo.example.org:8081/[artifact].[ext]"));
+        Assert.assertNull(IvyParallelFetcher.getHost("/var/repository/[artifact].[ext]"));
+        Assert.assertNull(IvyParallelFetcher.getHost("file:/var/repository/[artifact].[ext]"));
+    }
+
+    @Test
+    public void downloadArtifacts_sameReportsAsSerialDownload() throws Exception {
+        File ivyFile = createRepository();
+
+        ResolveOptions serialOptions = new ResolveOptions();
+        ResolveReport serialReport = newIvy("serial-cache").resolve(ivyFile, serialOptions);
+
+        Ivy ivy = newIvy("parallel-cache");
+        ResolveOptions parallelOptions = new ResolveOptions();
+        parallelOptions.setDownload(false);
+        ResolveReport parallelReport = ivy.resolve(ivyFile, parallelOptions);
+        new IvyParallelFetcher(ivy, 4, 2).downloadArtifacts(parallelReport, parallelOptions.getArtifactFilter(), parallelOptions.getLog());
+
+        Assert.assertEquals(MODULE_COUNT * 2, serialReport.getAllArtifactsReports().length);
+        Assert.assertEquals(describe(serialReport), describe(parallelReport));
+        Assert.assertEquals(serialReport.getDownloadSize(), parallelReport.getDownloadSize());
+    }
+
+    @Test
+    public void downloadArtifacts_logsTheFetchesOnTheCallingThreadInOrder() throws Exception {
+        File ivyFile = createRepository();
+        Ivy ivy = newIvy("cache");
+        ResolveOptions options = new ResolveOptions();
+        options.setDownload(false);
+        ResolveReport report = ivy.resolve(ivyFile, options);
+
+        final Thread callingThread = Thread.currentThread();
+        final List<String> downloads = new ArrayList<>();
+        ivy.getLoggerEngine().pushLogger(new AbstractMessageLogger() {
+            @Override
+            public void log(String msg, int level) {
+                Assert.assertSame(callingThread, Thread.currentThread());
+                if (msg.contains("[SUCCESSFUL ]")) {
+                    downloads.add(msg);
+                }
+            }
+
+            @Override
+            public void rawlog(String msg, int level) {
+                log(msg, level);
+            }
+
+            @Override
+            protected void doProgress() {
+            }
+
+            @Override
+            protected void doEndProgress(String msg) {
+            }
+        });
+        try {
+            new IvyParallelFetcher(ivy, 4, 4).downloadArtifacts(report, options.getArtifactFilter(), options.getLog());
+        } finally {
+            ivy.getLoggerEngine().popLogger();
+        }
+
+        Assert.assertEquals(MODULE_COUNT * 2, downloads.size());
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            Assert.assertTrue(downloads.get(2 * i), downloads.get(2 * i).contains("org#m" + i + ";1.0!"));
+        }
+    }
+
+    @Test
+    public void downloadArtifacts_urlResolverIsNotUsedConcurrently() throws Exception {
+        File ivyFile = createRepository();
+        //A missing artifact, whose failure is reported with the attempted locations
+        FileUtils.forceDelete(new File(repository.getRepositoryDir(), "org/m3/1.0/m3-sources-1.0.jar"));
+
+        AtomicInteger inFlightRequests = new AtomicInteger();
+        AtomicInteger maxInFlightRequests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            //Counted before the response, which lets the client send its next request
+            maxInFlightRequests.accumulateAndGet(inFlightRequests.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlightRequests.decrementAndGet();
+            }
+            File file = new File(repository.getRepositoryDir(), exchange.getRequestURI().getPath());
+            if (!file.isFile()) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(file.length()));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, file.length());
+                try (OutputStream os = exchange.getResponseBody()) {
+                    FileUtils.copyFile(file, os);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            FileUtils.write(new File(folder.getRoot(), "ivysettings.xml"), repository.getUrlSettingsContent(
+                    "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()), StandardCharsets.UTF_8);
+
+            Ivy serialIvy = newIvy("serial-cache");
+            List<String> serialFailures = new ArrayList<>();
+            serialIvy.getLoggerEngine().pushLogger(new FailureLogger(serialFailures));
+            ResolveReport serialReport = serialIvy.resolve(ivyFile, new ResolveOptions());
+
+            Ivy ivy = newIvy("parallel-cache");
+            ResolveOptions parallelOptions = new ResolveOptions();
+            parallelOptions.setDownload(false);
+            ResolveReport parallelReport = ivy.resolve(ivyFile, parallelOptions);
+            maxInFlightRequests.set(0);
+            List<String> parallelFailures = new ArrayList<>();
+            ivy.getLoggerEngine().pushLogger(new FailureLogger(parallelFailures));
+            new IvyParallelFetcher(ivy, 4, 4).downloadArtifacts(parallelReport, parallelOptions.getArtifactFilter(), parallelOptions.getLog());
+
+            Assert.assertEquals(1, maxInFlightRequests.get());
+            //The artifacts of a module downloaded from a URL resolver are not reported in a stable order
+            List<String> serialDescriptions = describe(serialReport);
+            List<String> parallelDescriptions = describe(parallelReport);
+            Collections.sort(serialDescriptions);
+            Collections.sort(parallelDescriptions);
+            Assert.assertEquals(serialDescriptions, parallelDescriptions);
+            Assert.assertEquals(serialReport.getDownloadSize(), parallelReport.getDownloadSize());
+            //The failure is reported with the locations tried by the resolver
+            Assert.assertTrue(serialFailures.toString(), serialFailures.get(serialFailures.size() - 1).endsWith(
+                    "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/org/m3/1.0/m3-sources-1.0.jar"));
+            Assert.assertEquals(serialFailures, parallelFailures);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private List<String> describe(ResolveReport report) {
+        List<String> descriptions = new ArrayList<>();
+        for (ArtifactDownloadReport downloadReport : report.getAllArtifactsReports()) {
+            descriptions.add(downloadReport.getArtifact() + " " + downloadReport.getDownloadStatus() + " " + downloadReport.getSize()
+                    + " " + (downloadReport.getLocalFile() == null ? null : downloadReport.getLocalFile().getName()));
+        }
+        return descriptions;
+    }
+
+    private Ivy newIvy(String cacheDir) throws Exception {
+        IvySettings settings = new IvySettings();
+        settings.load(new File(folder.getRoot(), "ivysettings.xml"));
+        settings.setDefaultCache(new File(folder.getRoot(), cacheDir));
+        return Ivy.newInstance(settings);
+    }
+
+    private File createRepository() throws IOException {
+        repository = new IvyTestRepository(new File(folder.getRoot(), "repository"));
+        String[] dependencies = new String[MODULE_COUNT];
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            repository.writeModule("org", "m" + i, "1.0", "  <publications>\n"
+                    + "    <artifact name=\"m" + i + "\" type=\"jar\" ext=\"jar\"/>\n"
+                    + "    <artifact name=\"m" + i + "-sources\" type=\"source\" ext=\"jar\"/>\n"
+                    + "  </publications>\n");
+            repository.writeArtifact("org", "m" + i, "1.0", "m" + i, "jar");
+            repository.writeArtifact("org", "m" + i, "1.0", "m" + i + "-sources", "jar");
+            dependencies[i] = IvyTestRepository.dependency("org", "m" + i, "1.0");
+        }
+        repository.writeSettings(new File(folder.getRoot(), "ivysettings.xml"));
+
+        File ivyFile = new File(folder.getRoot(), "ivy.xml");
+        FileUtils.write(ivyFile, IvyTestRepository.descriptor("org", "root", null, IvyTestRepository.dependencies(dependencies)), StandardCharsets.UTF_8);
+        return ivyFile;
+    }
+
+    /**
+     * Records the warnings of the failed downloads, without their durations.
+     */
+    private static final class FailureLogger extends AbstractMessageLogger {
+
+        private final List<String> failures;
+
+        FailureLogger(List<String> failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void log(String msg, int level) {
+            //The warnings are logged as they are recorded, the summary of the resolution aside
+            if (msg.startsWith("WARN: ") && !msg.contains("::")) {
+                failures.add(msg.replaceAll("\\(\\d+ms\\)", "").trim());
+            }
+        }
+
+        @Override
+        public void rawlog(String msg, int level) {
+            log(msg, level);
+        }
+
+        @Override
+        protected void doProgress() {
+        }
+
+        @Override
+        protected void doEndProgress(String msg) {
+        }
+    }
+}
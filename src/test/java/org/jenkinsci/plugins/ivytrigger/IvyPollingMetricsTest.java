@@ -0,0 +1,75 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class IvyPollingMetricsTest {
+
+    @Test
+    public void record_keepsLastPolls() {
+        IvyPollingMetrics metrics = new IvyPollingMetrics(2);
+        IvyPollingMetrics.JobMetrics jobMetrics = metrics.getJobMetrics("job", "job/job/");
+
+        jobMetrics.record(poll(100, 50));
+        jobMetrics.record(poll(200, 150));
+        IvyPollStatistics lastPoll = poll(300, 250);
+        jobMetrics.record(lastPoll);
+
+        Assert.assertEquals(3, jobMetrics.getPollCount());
+        Assert.assertEquals(2, jobMetrics.getHistory().size());
+        Assert.assertSame(lastPoll, jobMetrics.getLastPoll());
+        Assert.assertEquals(200, jobMetrics.getAveragePollMillis());
+        Assert.assertEquals(150, jobMetrics.getAverageResolveMillis());
+    }
+
+    @Test
+    public void record_countsCacheHits() {
+        IvyPollingMetrics metrics = new IvyPollingMetrics(10);
+        IvyPollingMetrics.JobMetrics jobMetrics = metrics.getJobMetrics("job", "job/job/");
+        Assert.assertEquals(-1, jobMetrics.getCacheHitPercentage());
+
+        IvyPollStatistics statistics = poll(100, 50);
+        statistics.addDownloadedArtifact(1000);
+        statistics.addCachedArtifact();
+        statistics.addCachedArtifact();
+        statistics.addCachedArtifact();
+        jobMetrics.record(statistics);
+
+        Assert.assertEquals(75, jobMetrics.getCacheHitPercentage());
+        Assert.assertEquals(1000, jobMetrics.getDownloadedBytes());
+    }
+
+    @Test
+    public void getAllJobMetrics_sortsByPollTime() {
+        IvyPollingMetrics metrics = new IvyPollingMetrics(10);
+        metrics.getJobMetrics("fast", "job/fast/").record(poll(10, 5));
+        metrics.getJobMetrics("slow", "job/slow/").record(poll(1000, 900));
+
+        List<IvyPollingMetrics.JobMetrics> allJobMetrics = metrics.getAllJobMetrics();
+
+        Assert.assertEquals("slow", allJobMetrics.get(0).getJobFullName());
+        Assert.assertEquals("fast", allJobMetrics.get(1).getJobFullName());
+    }
+
+    @Test
+    public void remove_forgetsTheJob() {
+        IvyPollingMetrics metrics = new IvyPollingMetrics(10);
+        metrics.getJobMetrics("removed", "job/removed/").record(poll(10, 5));
+        metrics.getJobMetrics("kept", "job/kept/").record(poll(10, 5));
+
+        metrics.remove("removed");
+
+        Assert.assertNull(metrics.getJobMetrics("removed"));
+        Assert.assertEquals(1, metrics.getAllJobMetrics().size());
+        Assert.assertEquals("kept", metrics.getAllJobMetrics().get(0).getJobFullName());
+    }
+
+    private static IvyPollStatistics poll(long pollMillis, long resolveMillis) {
+        IvyPollStatistics statistics = new IvyPollStatistics();
+        statistics.setPollMillis(pollMillis);
+        statistics.setResolveMillis(resolveMillis);
+        return statistics;
+    }
+}
@@ -0,0 +1,55 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class IvyPollingThrottleTest {
+
+    private XTriggerLog log;
+
+    @Before
+    public void setUp() {
+        this.log = new XTriggerLog(null);
+    }
+
+    @Test
+    public void acquire_limitsPollsPerNode() throws Exception {
+        IvyPollingThrottle throttle = new IvyPollingThrottle(1, 10, 0, 50, Long.MAX_VALUE);
+
+        IvyPollingThrottle.Permit permit = throttle.acquire("node", Collections.<String>emptySet(), log);
+        Assert.assertNotNull(permit);
+        Assert.assertNull(throttle.acquire("node", Collections.<String>emptySet(), log));
+        Assert.assertNotNull(throttle.acquire("other", Collections.<String>emptySet(), log));
+
+        throttle.release(permit, 10);
+        Assert.assertNotNull(throttle.acquire("node", Collections.<String>emptySet(), log));
+    }
+
+    @Test
+    public void acquire_limitsPollsPerHost() throws Exception {
+        IvyPollingThrottle throttle = new IvyPollingThrottle(10, 1, 0, 50, Long.MAX_VALUE);
+
+        IvyPollingThrottle.Permit permit = throttle.acquire("node1", Collections.singleton("repo"), log);
+        Assert.assertNotNull(permit);
+        Assert.assertNull(throttle.acquire("node2", Collections.singleton("repo"), log));
+
+        //The node slot taken by the failed attempt has been given back
+        throttle.release(permit, 10);
+        Assert.assertNotNull(throttle.acquire("node2", Collections.singleton("repo"), log));
+    }
+
+    @Test
+    public void acquire_reducesPollsOnSlowHost() throws Exception {
+        IvyPollingThrottle throttle = new IvyPollingThrottle(10, 2, 0, 50, 100);
+
+        IvyPollingThrottle.Permit permit = throttle.acquire("node", Collections.singleton("repo"), log);
+        throttle.release(permit, 1000);
+
+        Assert.assertNotNull(throttle.acquire("node", Collections.singleton("repo"), log));
+        Assert.assertNull(throttle.acquire("node", Collections.singleton("repo"), log));
+    }
+}
@@ -0,0 +1,159 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class IvyRepositoryWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void repositoryPattern_mapsPathsToModules() {
+        IvyRepositoryWatcher.RepositoryPattern pattern = new IvyRepositoryWatcher.RepositoryPattern(
+                "/repository/ivy/[organisation]/[module]/[revision]/[artifact]-[revision](-[classifier]).[ext]");
+
+        Assert.assertEquals("/repository/ivy", pattern.getRoot().toString().replace(File.separatorChar, '/'));
+        Assert.assertEquals(4, pattern.getDepth());
+        Assert.assertEquals("org#lib;1.0", pattern.getModule("/repository/ivy/org/lib/1.0/lib-1.0-sources.jar"));
+        Assert.assertEquals("org#lib;1.0", pattern.getModule("/repository/ivy/org/lib/1.0"));
+        Assert.assertEquals("org#lib;", pattern.getModule("/repository/ivy/org/lib"));
+        Assert.assertNull(pattern.getModule("/repository/ivy/org"));
+        Assert.assertNull(pattern.getModule("/repository/other/org/lib/1.0"));
+    }
+
+    @Test
+    public void repositoryPattern_organisationPath() {
+        IvyRepositoryWatcher.RepositoryPattern pattern = new IvyRepositoryWatcher.RepositoryPattern(
+                "/repository/[orgPath]/[module]/[revision]/ivy-[revision].xml");
+
+        Assert.assertEquals(Integer.MAX_VALUE, pattern.getDepth());
+        Assert.assertEquals("com.acme#lib;2.1", pattern.getModule("/repository/com/acme/lib/2.1/ivy-2.1.xml"));
+    }
+
+    @Test
+    public void repositoryPattern_withoutModuleTokens() {
+        IvyRepositoryWatcher.RepositoryPattern pattern = new IvyRepositoryWatcher.RepositoryPattern("/repository/[artifact].[ext]");
+
+        Assert.assertFalse(pattern.identifiesModules());
+        Assert.assertNull(pattern.getModule("/repository/lib.jar"));
+    }
+
+    @Test
+    public void watch_pollsTheJobsDependingOnTheWrittenModule() throws Exception {
+        File repositoryDir = folder.newFolder("repository");
+        FileUtils.forceMkdir(new File(repositoryDir, "org/lib/1.0"));
+        String pattern = repositoryDir.getAbsolutePath() + "/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]";
+
+        IvyDependencyIndex index = new IvyDependencyIndex();
+        index.update("dependent", state("org#lib;latest.integration", "1.0"));
+        index.update("other", state("org#util;latest.integration", "1.0"));
+        IvyRepositoryWatcher watcher = new IvyRepositoryWatcher(index, 100, 1000, 1000);
+        Semaphore dependentPolls = new Semaphore(0);
+        Semaphore otherPolls = new Semaphore(0);
+        Assert.assertEquals(Collections.<String>emptyList(), watcher.watch("dependent", dependentPolls::release, Collections.singleton(pattern)));
+        watcher.watch("other", otherPolls::release, Collections.singleton(pattern));
+        watcher.awaitIdle();
+
+        //A new revision directory, registered after its creation
+        File revisionDir = new File(repositoryDir, "org/lib/1.1");
+        FileUtils.forceMkdir(revisionDir);
+        FileUtils.write(new File(revisionDir, "lib-1.1.jar"), "lib", StandardCharsets.UTF_8);
+
+        Assert.assertTrue(dependentPolls.tryAcquire(30, TimeUnit.SECONDS));
+        watcher.awaitIdle();
+        Assert.assertEquals(0, otherPolls.availablePermits());
+
+        watcher.unwatch("dependent");
+        watcher.awaitIdle();
+        FileUtils.write(new File(revisionDir, "lib-1.1.pom"), "pom", StandardCharsets.UTF_8);
+        Thread.sleep(500);
+        watcher.awaitIdle();
+        Assert.assertEquals(0, dependentPolls.availablePermits());
+
+        //Stopped with the last job
+        Assert.assertTrue(watcher.isWatching());
+        watcher.unwatch("other");
+        Assert.assertFalse(watcher.isWatching());
+        Assert.assertEquals(0, watcher.getRegisteredDirectoryCount());
+    }
+
+    @Test
+    public void watch_postponesThePollsUntilTheWritesSettle() throws Exception {
+        File repositoryDir = folder.newFolder("repository");
+        File revisionDir = new File(repositoryDir, "org/lib/1.1");
+        FileUtils.forceMkdir(revisionDir);
+        String pattern = repositoryDir.getAbsolutePath() + "/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]";
+
+        IvyDependencyIndex index = new IvyDependencyIndex();
+        index.update("dependent", state("org#lib;latest.integration", "1.0"));
+        IvyRepositoryWatcher watcher = new IvyRepositoryWatcher(index, 1000, 60000, 1000);
+        Semaphore polls = new Semaphore(0);
+        watcher.watch("dependent", polls::release, Collections.singleton(pattern));
+        watcher.awaitIdle();
+
+        //A publication writing for longer than the settle delay
+        for (int i = 0; i < 6; i++) {
+            FileUtils.write(new File(revisionDir, "lib-1.1.jar"), "lib " + i, StandardCharsets.UTF_8);
+            Thread.sleep(300);
+            Assert.assertEquals(0, polls.availablePermits());
+        }
+        Assert.assertTrue(polls.tryAcquire(30, TimeUnit.SECONDS));
+        Thread.sleep(1500);
+        Assert.assertEquals(0, polls.availablePermits());
+        watcher.unwatch("dependent");
+    }
+
+    @Test
+    public void watch_registersAgainTheDeletedDirectories() throws Exception {
+        File repositoryDir = folder.newFolder("repository");
+        File moduleDir = new File(repositoryDir, "org/lib");
+        FileUtils.forceMkdir(new File(moduleDir, "1.0"));
+        String pattern = repositoryDir.getAbsolutePath() + "/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]";
+
+        IvyDependencyIndex index = new IvyDependencyIndex();
+        index.update("dependent", state("org#lib;latest.integration", "1.0"));
+        IvyRepositoryWatcher watcher = new IvyRepositoryWatcher(index, 100, 1000, 1000);
+        Semaphore polls = new Semaphore(0);
+        watcher.watch("dependent", polls::release, Collections.singleton(pattern));
+        Assert.assertEquals(4, watcher.getRegisteredDirectoryCount());
+
+        FileUtils.deleteDirectory(moduleDir);
+        long deadline = System.currentTimeMillis() + 30000;
+        while (watcher.getRegisteredDirectoryCount() != 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(2, watcher.getRegisteredDirectoryCount());
+
+        FileUtils.write(new File(moduleDir, "1.1/lib-1.1.jar"), "lib", StandardCharsets.UTF_8);
+        Assert.assertTrue(polls.tryAcquire(30, TimeUnit.SECONDS));
+        Assert.assertEquals(4, watcher.getRegisteredDirectoryCount());
+    }
+
+    @Test
+    public void watch_missingRoot() throws Exception {
+        IvyRepositoryWatcher watcher = new IvyRepositoryWatcher(new IvyDependencyIndex(), 100, 1000, 1000);
+        String missingRoot = new File(folder.getRoot(), "missing").getAbsolutePath();
+
+        Assert.assertEquals(Collections.singletonList(missingRoot),
+                watcher.watch("job", () -> {
+                }, Collections.singleton(missingRoot + "/[organisation]/[module]/ivy-[revision].xml")));
+    }
+
+    private static IvyDependencyState state(String id, String revision) {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        dependencies.put(id, new IvyDependencyValue(revision, null));
+        return IvyDependencyState.of(dependencies);
+    }
+}
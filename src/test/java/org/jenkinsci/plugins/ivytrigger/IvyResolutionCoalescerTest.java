@@ -0,0 +1,181 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IvyResolutionCoalescerTest {
+
+    private XTriggerLog log;
+
+    private AtomicInteger resolutionCount;
+
+    @Before
+    public void setUp() {
+        this.log = new XTriggerLog(null);
+        this.resolutionCount = new AtomicInteger();
+    }
+
+    @Test
+    public void computeKey_ignoresUnreferencedVariables() {
+        Map<String, String> envVars1 = new HashMap<>();
+        envVars1.put("JOB_NAME", "job1");
+        envVars1.put("REPO", "http://repo");
+        Map<String, String> envVars2 = new HashMap<>(envVars1);
+        envVars2.put("JOB_NAME", "job2");
+
+        String key1 = computeKey("<ivysettings>${REPO}</ivysettings>", envVars1);
+        String key2 = computeKey("<ivysettings>${REPO}</ivysettings>", envVars2);
+
+        Assert.assertEquals(key1, key2);
+    }
+
+    @Test
+    public void computeKey_includesReferencedVariables() {
+        Map<String, String> envVars1 = Collections.singletonMap("REPO", "http://repo1");
+        Map<String, String> envVars2 = Collections.singletonMap("REPO", "http://repo2");
+
+        Assert.assertNotEquals(computeKey("<ivysettings>${REPO}</ivysettings>", envVars1), computeKey("<ivysettings>${REPO}</ivysettings>", envVars2));
+    }
+
+    @Test
+    public void computeKey_includesAllVariablesWithUnknownSettings() {
+        Map<String, String> envVars1 = Collections.singletonMap("JOB_NAME", "job1");
+        Map<String, String> envVars2 = Collections.singletonMap("JOB_NAME", "job2");
+
+        Assert.assertNotEquals(computeKey(null, envVars1), computeKey(null, envVars2));
+    }
+
+    @Test
+    public void computeKey_includesAllVariablesWhenOtherFilesAreIncluded() {
+        Map<String, String> envVars1 = Collections.singletonMap("JOB_NAME", "job1");
+        Map<String, String> envVars2 = Collections.singletonMap("JOB_NAME", "job2");
+        String settings = "<ivysettings><include file=\"${ivy.settings.dir}/common.xml\"/></ivysettings>";
+
+        Assert.assertNotEquals(computeKey(settings, envVars1), computeKey(settings, envVars2));
+    }
+
+    @Test
+    public void resolve_sharesResultWithinWindow() throws Exception {
+        IvyResolutionCoalescer coalescer = new IvyResolutionCoalescer(Long.MAX_VALUE, 10000);
+
+        IvyResolutionResult result1 = coalescer.resolve("key", "job1", log, this::countingResolution);
+        IvyResolutionResult result2 = coalescer.resolve("key", "job2", log, this::countingResolution);
+
+        Assert.assertEquals(1, resolutionCount.get());
+        Assert.assertSame(result1, result2);
+    }
+
+    @Test
+    public void resolve_doesNotShareFailedResolution() throws Exception {
+        IvyResolutionCoalescer coalescer = new IvyResolutionCoalescer(Long.MAX_VALUE, 10000);
+
+        coalescer.resolve("key", "job1", log, IvyResolutionResult::failed);
+        coalescer.resolve("key", "job2", log, this::countingResolution);
+
+        Assert.assertEquals(1, resolutionCount.get());
+    }
+
+    @Test
+    public void resolve_doesNotShareSkippedResolution() throws Exception {
+        IvyResolutionCoalescer coalescer = new IvyResolutionCoalescer(Long.MAX_VALUE, 10000);
+
+        coalescer.resolve("key", "job1", log, () -> IvyResolutionResult.unchanged(null));
+        coalescer.resolve("key", "job2", log, this::countingResolution);
+
+        Assert.assertEquals(1, resolutionCount.get());
+    }
+
+    @Test
+    public void resolve_givesTheSkippedResolutionToTheWaitingJobs() throws Exception {
+        final IvyResolutionCoalescer coalescer = new IvyResolutionCoalescer(Long.MAX_VALUE, 10000);
+        final CountDownLatch ownerStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final IvyResolutionResult throttledResult = IvyResolutionResult.throttled(null);
+        final IvyResolutionResult reusedResult = IvyResolutionResult.throttled(null);
+        ExecutorService pollers = Executors.newFixedThreadPool(2);
+        try {
+            Future<IvyResolutionResult> owner = pollers.submit(() -> coalescer.resolve("key", "job1", log, () -> {
+                ownerStarted.countDown();
+                release.await();
+                return throttledResult;
+            }));
+            Assert.assertTrue(ownerStarted.await(10, TimeUnit.SECONDS));
+            Future<IvyResolutionResult> waiter = pollers.submit(() -> coalescer.resolve("key", "job2", log, new IvyResolutionCoalescer.ResolutionTask() {
+                @Override
+                public IvyResolutionResult resolve() {
+                    return countingResolution();
+                }
+
+                @Override
+                public IvyResolutionResult reuse(IvyResolutionResult ownerResult) {
+                    Assert.assertSame(throttledResult, ownerResult);
+                    return reusedResult;
+                }
+            }));
+            Thread.sleep(200);
+            release.countDown();
+
+            Assert.assertSame(throttledResult, owner.get(10, TimeUnit.SECONDS));
+            Assert.assertSame(reusedResult, waiter.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(0, resolutionCount.get());
+            //Not kept for the next polls
+            Assert.assertEquals(0, coalescer.size());
+        } finally {
+            pollers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void resolve_boundsTheWaitForAnotherJob() throws Exception {
+        final IvyResolutionCoalescer coalescer = new IvyResolutionCoalescer(Long.MAX_VALUE, 50);
+        final CountDownLatch ownerStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pollers = Executors.newSingleThreadExecutor();
+        try {
+            pollers.submit(() -> coalescer.resolve("key", "job1", log, () -> {
+                ownerStarted.countDown();
+                release.await();
+                return countingResolution();
+            }));
+            Assert.assertTrue(ownerStarted.await(10, TimeUnit.SECONDS));
+
+            coalescer.resolve("key", "job2", log, this::countingResolution);
+            Assert.assertEquals(1, resolutionCount.get());
+        } finally {
+            release.countDown();
+            pollers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void resolve_expiresAfterWindow() throws Exception {
+        IvyResolutionCoalescer coalescer = new IvyResolutionCoalescer(1, 10000);
+
+        coalescer.resolve("key", "job1", log, this::countingResolution);
+        Thread.sleep(10);
+        coalescer.resolve("key", "job2", log, this::countingResolution);
+
+        Assert.assertEquals(2, resolutionCount.get());
+    }
+
+    private IvyResolutionResult countingResolution() {
+        resolutionCount.incrementAndGet();
+        return IvyResolutionResult.resolved(new HashMap<>(), null);
+    }
+
+    private static String computeKey(String settingsContent, Map<String, String> envVars) {
+        return IvyResolutionCoalescer.computeKey("node", "<ivy-module/>", settingsContent, "ivysettings.xml", "", null, envVars, false, false, null, null);
+    }
+}
@@ -0,0 +1,104 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IvySettingsURLCacheTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private XTriggerLog log;
+
+    private HttpServer server;
+
+    private URL settingsURL;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+
+    private volatile String content = "<ivysettings/>";
+
+    private volatile int errorCode;
+
+    @Before
+    public void setUp() throws IOException {
+        this.log = new XTriggerLog(null);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ivysettings.xml", exchange -> {
+            requestCount.incrementAndGet();
+            if (errorCode != 0) {
+                exchange.sendResponseHeaders(errorCode, -1);
+            } else if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        settingsURL = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/ivysettings.xml");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void getContent_usesCopyDuringTimeToLive() throws IOException {
+        IvySettingsURLCache cache = new IvySettingsURLCache(Long.MAX_VALUE, 5000, 10);
+
+        Assert.assertEquals("<ivysettings/>", cache.getContent(settingsURL, log));
+        Assert.assertEquals("<ivysettings/>", cache.getContent(settingsURL, log));
+
+        Assert.assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    public void getContent_revalidatesExpiredCopy() throws IOException {
+        IvySettingsURLCache cache = new IvySettingsURLCache(-1, 5000, 10);
+
+        Assert.assertEquals("<ivysettings/>", cache.getContent(settingsURL, log));
+        Assert.assertEquals("<ivysettings/>", cache.getContent(settingsURL, log));
+
+        Assert.assertEquals(2, requestCount.get());
+        Assert.assertEquals(1, notModifiedCount.get());
+    }
+
+    @Test
+    public void getContent_fallsBackToLastCopyOnError() throws IOException {
+        IvySettingsURLCache cache = new IvySettingsURLCache(-1, 5000, 10);
+        cache.getContent(settingsURL, log);
+
+        errorCode = 503;
+
+        Assert.assertEquals("<ivysettings/>", cache.getContent(settingsURL, log));
+    }
+
+    @Test(expected = IOException.class)
+    public void getContent_failsWithoutPreviousCopy() throws IOException {
+        IvySettingsURLCache cache = new IvySettingsURLCache(-1, 5000, 10);
+        errorCode = 503;
+
+        cache.getContent(settingsURL, log);
+    }
+}
@@ -0,0 +1,136 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * File system Ivy repository written by the tests and the benchmarks, with the settings resolving from it.
+ * <p>
+ * The descriptor of a module is stored as <code>[organisation]/[module]/[revision]/ivy.xml</code> and its artifacts
+ * as <code>[artifact]-[revision].[ext]</code> in the same directory.
+ */
+public final class IvyTestRepository {
+
+    private final File repositoryDir;
+
+    /**
+     * @param repositoryDir the root directory of the repository, created on the first written module
+     */
+    public IvyTestRepository(File repositoryDir) {
+        this.repositoryDir = repositoryDir;
+    }
+
+    public File getRepositoryDir() {
+        return repositoryDir;
+    }
+
+    /**
+     * Writes the descriptor of a module revision.
+     *
+     * @param content the elements following the <code>info</code> element: configurations, publications, dependencies
+     * @return the directory of the module revision
+     */
+    public File writeModule(String organisation, String module, String revision, String content) throws IOException {
+        File revisionDir = new File(repositoryDir, organisation + "/" + module + "/" + revision);
+        FileUtils.forceMkdir(revisionDir);
+        FileUtils.write(new File(revisionDir, "ivy.xml"), descriptor(organisation, module, revision, content), StandardCharsets.UTF_8);
+        return revisionDir;
+    }
+
+    /**
+     * Writes an artifact of a module revision, whose content is its own name.
+     */
+    public File writeArtifact(String organisation, String module, String revision, String artifact, String extension) throws IOException {
+        File artifactFile = new File(repositoryDir, organisation + "/" + module + "/" + revision + "/" + artifact + "-" + revision + "." + extension);
+        FileUtils.write(artifactFile, artifact, StandardCharsets.UTF_8);
+        return artifactFile;
+    }
+
+    /**
+     * @return settings resolving from the repository only
+     */
+    public String getSettingsContent() {
+        return getSettingsContent(1);
+    }
+
+    /**
+     * @param resolverCount the number of resolvers of the repository chained in front of each other
+     * @return settings resolving from the repository only
+     */
+    public String getSettingsContent(int resolverCount) {
+        StringBuilder resolvers = new StringBuilder();
+        for (int i = 0; i < resolverCount; i++) {
+            resolvers.append("      <filesystem name=\"local").append(i).append("\">\n")
+                    .append("        <ivy pattern=\"").append(repositoryDir.getAbsolutePath()).append("/[organisation]/[module]/[revision]/ivy.xml\"/>\n")
+                    .append("        <artifact pattern=\"").append(repositoryDir.getAbsolutePath()).append("/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]\"/>\n")
+                    .append("      </filesystem>\n");
+        }
+        return "<ivysettings>\n"
+                + "  <settings defaultResolver=\"chain\"/>\n"
+                + "  <resolvers>\n"
+                + "    <chain name=\"chain\" returnFirst=\"true\">\n"
+                + resolvers
+                + "    </chain>\n"
+                + "  </resolvers>\n"
+                + "</ivysettings>\n";
+    }
+
+    /**
+     * @param rootUrl the URL the repository directory is served from
+     * @return settings resolving from the repository through a URL resolver
+     */
+    public String getUrlSettingsContent(String rootUrl) {
+        return "<ivysettings>\n"
+                + "  <settings defaultResolver=\"remote\"/>\n"
+                + "  <resolvers>\n"
+                + "    <url name=\"remote\">\n"
+                + "      <ivy pattern=\"" + rootUrl + "/[organisation]/[module]/[revision]/ivy.xml\"/>\n"
+                + "      <artifact pattern=\"" + rootUrl + "/[organisation]/[module]/[revision]/[artifact]-[revision].[ext]\"/>\n"
+                + "    </url>\n"
+                + "  </resolvers>\n"
+                + "</ivysettings>\n";
+    }
+
+    /**
+     * Writes the settings resolving from the repository only.
+     */
+    public File writeSettings(File settingsFile) throws IOException {
+        FileUtils.write(settingsFile, getSettingsContent(), StandardCharsets.UTF_8);
+        return settingsFile;
+    }
+
+    /**
+     * @param revision the revision of the module, <code>null</code> for a module to resolve
+     * @param content  the elements following the <code>info</code> element
+     * @return the content of an Ivy file
+     */
+    public static String descriptor(String organisation, String module, String revision, String content) {
+        return "<ivy-module version=\"2.0\">\n"
+                + "  <info organisation=\"" + organisation + "\" module=\"" + module + "\""
+                + (revision == null ? "" : " revision=\"" + revision + "\"") + "/>\n"
+                + content
+                + "</ivy-module>\n";
+    }
+
+    /**
+     * @param dependencies the dependency elements
+     * @return the <code>dependencies</code> element
+     */
+    public static String dependencies(String... dependencies) {
+        StringBuilder content = new StringBuilder("  <dependencies>\n");
+        for (String dependency : dependencies) {
+            content.append(dependency);
+        }
+        return content.append("  </dependencies>\n").toString();
+    }
+
+    /**
+     * @return a dependency element, on all the configurations
+     */
+    public static String dependency(String organisation, String module, String revision) {
+        return "    <dependency org=\"" + organisation + "\" name=\"" + module + "\" rev=\"" + revision + "\"/>\n";
+    }
+}
@@ -0,0 +1,113 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IvyTriggerChangeSetTest {
+
+    @Test
+    public void compute_noChanges() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;1.0", "1.0", artifact("a", 1L));
+        Map<String, IvyDependencyValue> current = dependencies("org#a;1.0", "1.0", artifact("a", 1L));
+
+        Assert.assertTrue(IvyTriggerChangeSet.compute(previous, current, true).isEmpty());
+    }
+
+    @Test
+    public void compute_addedAndRemoved() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;1.0", "1.0");
+        Map<String, IvyDependencyValue> current = dependencies("org#b;1.0", "1.0");
+
+        List<IvyTriggerChangeSet.DependencyChange> changes = IvyTriggerChangeSet.compute(previous, current, false).getChanges();
+
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals(IvyTriggerChangeSet.ChangeType.REMOVED, changes.get(0).getType());
+        Assert.assertEquals("org#a;1.0", changes.get(0).getDependencyId());
+        Assert.assertEquals(IvyTriggerChangeSet.ChangeType.ADDED, changes.get(1).getType());
+        Assert.assertEquals("org#b;1.0", changes.get(1).getDependencyId());
+    }
+
+    @Test
+    public void compute_revisionChanged() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;latest.integration", "1.0");
+        Map<String, IvyDependencyValue> current = dependencies("org#a;latest.integration", "1.1");
+
+        List<IvyTriggerChangeSet.DependencyChange> changes = IvyTriggerChangeSet.compute(previous, current, false).getChanges();
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(IvyTriggerChangeSet.ChangeType.REVISION_CHANGED, changes.get(0).getType());
+        Assert.assertEquals("1.0", changes.get(0).getPreviousRevision());
+        Assert.assertEquals("1.1", changes.get(0).getNewRevision());
+    }
+
+    @Test
+    public void compute_republished() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;1.0", "1.0", artifact("a", 1L), artifact("a-sources", 1L));
+        Map<String, IvyDependencyValue> current = dependencies("org#a;1.0", "1.0", artifact("a-sources", 1L), artifact("a", 2L));
+
+        List<IvyTriggerChangeSet.DependencyChange> changes = IvyTriggerChangeSet.compute(previous, current, true).getChanges();
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(IvyTriggerChangeSet.ChangeType.REPUBLISHED, changes.get(0).getType());
+        Assert.assertEquals(1, changes.get(0).getArtifactChanges().size());
+        Assert.assertEquals("a.jar", changes.get(0).getArtifactChanges().get(0).getArtifact());
+    }
+
+    @Test
+    public void compute_artifactsIgnoredWhenNotCompared() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;1.0", "1.0", artifact("a", 1L));
+        Map<String, IvyDependencyValue> current = dependencies("org#a;1.0", "1.0", artifact("a", 2L));
+
+        Assert.assertTrue(IvyTriggerChangeSet.compute(previous, current, false).isEmpty());
+    }
+
+    @Test
+    public void compute_artifactAddedWithClassifier() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;1.0", "1.0", artifact("a", 1L));
+        Map<String, IvyDependencyValue> current = dependencies("org#a;1.0", "1.0", artifact("a", 1L),
+                new IvyArtifactValue("a", "jar", "source", "sources", 1L, -1, null));
+
+        List<IvyTriggerChangeSet.DependencyChange> changes = IvyTriggerChangeSet.compute(previous, current, true).getChanges();
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals("a-sources.jar", changes.get(0).getArtifactChanges().get(0).getArtifact());
+        Assert.assertEquals("has been added", changes.get(0).getArtifactChanges().get(0).getReason());
+    }
+
+    @Test
+    public void compute_revisionOnlyChangeIgnored() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;latest.integration", "1.0", new IvyArtifactValue("a", "jar", "jar", null, 1L, 10, "sha1:abc"));
+        Map<String, IvyDependencyValue> current = dependencies("org#a;latest.integration", "1.1", new IvyArtifactValue("a", "jar", "jar", null, 2L, 10, "sha1:abc"));
+
+        Assert.assertTrue(IvyTriggerChangeSet.compute(IvyDependencyState.of(previous), IvyDependencyState.of(current), true, true).isEmpty());
+        Assert.assertFalse(IvyTriggerChangeSet.compute(IvyDependencyState.of(previous), IvyDependencyState.of(current), true, false).isEmpty());
+    }
+
+    @Test
+    public void compute_revisionChangeWithNewContentNotIgnored() {
+        Map<String, IvyDependencyValue> previous = dependencies("org#a;latest.integration", "1.0", new IvyArtifactValue("a", "jar", "jar", null, 1L, 10, "sha1:abc"));
+        Map<String, IvyDependencyValue> current = dependencies("org#a;latest.integration", "1.1", new IvyArtifactValue("a", "jar", "jar", null, 2L, 10, "sha1:def"));
+        Map<String, IvyDependencyValue> withoutChecksum = dependencies("org#a;latest.integration", "1.1", artifact("a", 2L));
+
+        Assert.assertEquals(1, IvyTriggerChangeSet.compute(IvyDependencyState.of(previous), IvyDependencyState.of(current), true, true).getChanges().size());
+        Assert.assertEquals(1, IvyTriggerChangeSet.compute(IvyDependencyState.of(previous), IvyDependencyState.of(withoutChecksum), true, true).getChanges().size());
+    }
+
+    private static IvyArtifactValue artifact(String name, long lastModificationDate) {
+        return new IvyArtifactValue(name, "jar", "jar", null, lastModificationDate, -1, null);
+    }
+
+    private static Map<String, IvyDependencyValue> dependencies(String id, String revision, IvyArtifactValue... artifacts) {
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        dependencies.put(id, new IvyDependencyValue(revision, artifacts.length == 0
+                ? Collections.<IvyArtifactValue>emptyList()
+                : Arrays.asList(artifacts)));
+        return dependencies;
+    }
+}
@@ -0,0 +1,44 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.EnvVars;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class IvyTriggerChangesActionTest {
+
+    @Test
+    public void buildEnvironment_exposesTheChanges() {
+        IvyTriggerChangeSet changeSet = new IvyTriggerChangeSet(Arrays.asList(
+                new IvyTriggerChangeSet.DependencyChange(IvyTriggerChangeSet.ChangeType.REVISION_CHANGED, "org#a;latest.integration", "1.0", "1.1",
+                        Collections.<IvyTriggerChangeSet.ArtifactChange>emptyList()),
+                new IvyTriggerChangeSet.DependencyChange(IvyTriggerChangeSet.ChangeType.REPUBLISHED, "org#b;2.0", "2.0", "2.0",
+                        Arrays.asList(new IvyTriggerChangeSet.ArtifactChange("b.jar", "size changed from 1 to 2"),
+                                new IvyTriggerChangeSet.ArtifactChange("b-sources.jar", "checksum changed")))));
+        EnvVars env = new EnvVars();
+
+        new IvyTriggerChangesAction(changeSet).buildEnvironment(null, env);
+
+        Assert.assertEquals("org#a,org#b", env.get(IvyTriggerChangesAction.CHANGED_MODULES_VARIABLE));
+        Assert.assertEquals("org#a:1.0->1.1,org#b:2.0->2.0", env.get(IvyTriggerChangesAction.CHANGES_VARIABLE));
+        Assert.assertEquals("org#b/b.jar,org#b/b-sources.jar", env.get(IvyTriggerChangesAction.CHANGED_ARTIFACTS_VARIABLE));
+    }
+
+    @Test
+    public void buildEnvironment_addedAndRemovedModules() {
+        IvyTriggerChangeSet changeSet = new IvyTriggerChangeSet(Arrays.asList(
+                new IvyTriggerChangeSet.DependencyChange(IvyTriggerChangeSet.ChangeType.ADDED, "org#added;1.0", null, "1.0",
+                        Collections.<IvyTriggerChangeSet.ArtifactChange>emptyList()),
+                new IvyTriggerChangeSet.DependencyChange(IvyTriggerChangeSet.ChangeType.REMOVED, "org#removed;1.0", "1.0", null,
+                        Collections.<IvyTriggerChangeSet.ArtifactChange>emptyList())));
+        EnvVars env = new EnvVars();
+
+        new IvyTriggerChangesAction(changeSet).buildEnvironment(null, env);
+
+        Assert.assertEquals("org#added,org#removed", env.get(IvyTriggerChangesAction.CHANGED_MODULES_VARIABLE));
+        Assert.assertEquals("org#added:none->1.0,org#removed:1.0->none", env.get(IvyTriggerChangesAction.CHANGES_VARIABLE));
+        Assert.assertEquals("", env.get(IvyTriggerChangesAction.CHANGED_ARTIFACTS_VARIABLE));
+    }
+}
@@ -0,0 +1,52 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class IvyTriggerContextStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void load_withoutFile() throws Exception {
+        IvyTriggerContextStore store = new IvyTriggerContextStore(folder.getRoot());
+
+        Assert.assertNull(store.load("digest"));
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        IvyTriggerContextStore store = new IvyTriggerContextStore(folder.getRoot());
+        Map<String, IvyDependencyValue> dependencies = new HashMap<>();
+        dependencies.put("org#module;latest.integration", new IvyDependencyValue("1.2",
+                Collections.singletonList(new IvyArtifactValue("module", "jar", 42L, 1024L, "sha1:abcd"))));
+
+        store.save(new IvyTriggerContext(dependencies), "digest");
+        IvyTriggerContext context = new IvyTriggerContextStore(folder.getRoot()).load("digest");
+
+        Assert.assertNotNull(context);
+        IvyDependencyValue dependency = context.getDependencies().get("org#module;latest.integration");
+        Assert.assertEquals("1.2", dependency.getRevision());
+        IvyArtifactValue artifact = dependency.getArtifacts().get(0);
+        Assert.assertEquals("module.jar", artifact.getFullName());
+        Assert.assertEquals(42L, artifact.getLastModificationDate());
+        Assert.assertEquals(1024L, artifact.getSize());
+        Assert.assertEquals("sha1:abcd", artifact.getChecksum());
+    }
+
+    @Test
+    public void load_withOtherConfiguration() throws Exception {
+        IvyTriggerContextStore store = new IvyTriggerContextStore(folder.getRoot());
+
+        store.save(new IvyTriggerContext(new HashMap<>()), "digest");
+
+        Assert.assertNull(store.load("otherDigest"));
+    }
+}
@@ -0,0 +1,262 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.FilePath;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class IvyTriggerEvaluatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File ivyFile;
+
+    private File settingsFile;
+
+    private IvyTestRepository repository;
+
+    @Before
+    public void createRepository() throws IOException {
+        repository = new IvyTestRepository(folder.newFolder("repository"));
+        repository.writeModule("org", "lib", "1.0", "  <configurations>\n"
+                + "    <conf name=\"default\"/>\n"
+                + "    <conf name=\"sources\"/>\n"
+                + "  </configurations>\n"
+                + "  <publications>\n"
+                + "    <artifact name=\"lib\" type=\"jar\" ext=\"jar\" conf=\"default\"/>\n"
+                + "    <artifact name=\"lib-sources\" type=\"source\" ext=\"jar\" conf=\"sources\"/>\n"
+                + "  </publications>\n");
+        repository.writeArtifact("org", "lib", "1.0", "lib", "jar");
+        repository.writeArtifact("org", "lib", "1.0", "lib-sources", "jar");
+        settingsFile = repository.writeSettings(new File(folder.getRoot(), "ivysettings.xml"));
+
+        //The sources are only required by the second configuration
+        ivyFile = new File(folder.getRoot(), "ivy.xml");
+        FileUtils.write(ivyFile, "<ivy-module version=\"2.0\">\n"
+                + "  <info organisation=\"org\" module=\"root\"/>\n"
+                + "  <configurations>\n"
+                + "    <conf name=\"compile\"/>\n"
+                + "    <conf name=\"ide\"/>\n"
+                + "  </configurations>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"org\" name=\"lib\" rev=\"1.0\" conf=\"compile->default;ide->sources\"/>\n"
+                + "  </dependencies>\n"
+                + "</ivy-module>\n", StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void clearEngines() {
+        IvyEngineCache.getInstance().clear();
+    }
+
+    @Test
+    public void artifactsOfAllConfigurationsAreRecorded() throws Exception {
+        IvyResolutionResult result = evaluate(null);
+
+        Assert.assertEquals(setOf("lib.jar", "lib-sources.jar"), getArtifactNames(result));
+    }
+
+    @Test
+    public void configurationsOfTheDependenciesAndArtifactsAreRecorded() throws Exception {
+        IvyResolutionResult result = evaluate(null);
+
+        IvyDependencyState state = IvyDependencyState.of(result.getDependencies());
+        IvyDependencyValue dependency = state.toMap().get("org#lib;1.0");
+        Assert.assertEquals("compile,ide", dependency.getConfigurations());
+        Set<String> artifactConfigurations = new TreeSet<>();
+        for (IvyArtifactValue artifact : dependency.getArtifacts()) {
+            artifactConfigurations.add(artifact.getFullName() + " " + artifact.getConfigurations());
+        }
+        Assert.assertEquals(setOf("lib.jar compile", "lib-sources.jar ide"), artifactConfigurations);
+    }
+
+    @Test
+    public void onlySelectedConfigurationsAreResolved() throws Exception {
+        IvyResolutionResult result = evaluate("compile");
+
+        Assert.assertEquals(setOf("lib.jar"), getArtifactNames(result));
+    }
+
+    @Test
+    public void settingsFromURLWithPropertiesFileContent() throws Exception {
+        File variableSettingsFile = new File(folder.getRoot(), "ivysettings-variables.xml");
+        FileUtils.write(variableSettingsFile, FileUtils.readFileToString(settingsFile, StandardCharsets.UTF_8)
+                .replace(repository.getRepositoryDir().getAbsolutePath(), "${repository.dir}"), StandardCharsets.UTF_8);
+
+        IvyTriggerEvaluator evaluator = new IvyTriggerEvaluator("test",
+                new FilePath(ivyFile),
+                null,
+                variableSettingsFile.toURI().toURL(),
+                "repository.dir=" + repository.getRepositoryDir().getAbsolutePath().replace("\\", "/"),
+                null,
+                new XTriggerLog(null),
+                Collections.<String, String>emptyMap(),
+                new IvyResolutionOptions().setDownloadArtifacts(true));
+        IvyResolutionResult result = evaluator.invoke(folder.newFolder(), null);
+
+        Assert.assertEquals(setOf("lib.jar", "lib-sources.jar"), getArtifactNames(result));
+    }
+
+    @Test
+    public void directDependenciesOnlyFindTheMatchingRevisions() throws Exception {
+        //The new revision depends on a module missing from the repository: a full resolution would fail
+        repository.writeModule("org", "lib", "1.1", IvyTestRepository.dependencies(IvyTestRepository.dependency("org", "missing", "1.0")));
+        //The tool is missing too, but only required by a configuration which is not selected
+        FileUtils.write(ivyFile, "<ivy-module version=\"2.0\">\n"
+                + "  <info organisation=\"org\" module=\"root\"/>\n"
+                + "  <configurations>\n"
+                + "    <conf name=\"compile\"/>\n"
+                + "    <conf name=\"runtime\" extends=\"compile\"/>\n"
+                + "    <conf name=\"ide\"/>\n"
+                + "  </configurations>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"org\" name=\"lib\" rev=\"1.+\" conf=\"compile->default\"/>\n"
+                + "    <dependency org=\"org\" name=\"tool\" rev=\"1.0\" conf=\"ide->default\"/>\n"
+                + "  </dependencies>\n"
+                + "</ivy-module>\n", StandardCharsets.UTF_8);
+
+        IvyResolutionResult result = evaluate("runtime", true);
+
+        Assert.assertEquals(Collections.singleton("org#lib;1.+"), result.getDependencies().keySet());
+        Assert.assertEquals("1.1", result.getDependencies().get("org#lib;1.+").getRevision());
+        Assert.assertEquals(0, result.getStatistics().getErrorCount());
+    }
+
+    @Test
+    public void directDependenciesOnlyExcludesConfigurations() throws Exception {
+        //The tool is missing, but only required by the excluded configuration
+        FileUtils.write(ivyFile, "<ivy-module version=\"2.0\">\n"
+                + "  <info organisation=\"org\" module=\"root\"/>\n"
+                + "  <configurations>\n"
+                + "    <conf name=\"compile\"/>\n"
+                + "    <conf name=\"test\"/>\n"
+                + "  </configurations>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"org\" name=\"lib\" rev=\"1.0\" conf=\"compile->default\"/>\n"
+                + "    <dependency org=\"org\" name=\"tool\" rev=\"1.0\" conf=\"test->default\"/>\n"
+                + "  </dependencies>\n"
+                + "</ivy-module>\n", StandardCharsets.UTF_8);
+
+        IvyResolutionResult result = evaluate("*,!test", true);
+
+        Assert.assertEquals(Collections.singleton("org#lib;1.0"), result.getDependencies().keySet());
+    }
+
+    @Test
+    public void directDependenciesOnlyFailsOnAMissingModule() throws Exception {
+        FileUtils.write(ivyFile, "<ivy-module version=\"2.0\">\n"
+                + "  <info organisation=\"org\" module=\"root\"/>\n"
+                + "  <dependencies>\n"
+                + "    <dependency org=\"org\" name=\"lib\" rev=\"1.0\"/>\n"
+                + "    <dependency org=\"org\" name=\"missing\" rev=\"1.0\"/>\n"
+                + "  </dependencies>\n"
+                + "</ivy-module>\n", StandardCharsets.UTF_8);
+
+        IvyResolutionResult result = evaluate(null, true);
+
+        //The poll keeps the dependencies of the previous one
+        Assert.assertNull(result.getDependencies());
+        Assert.assertFalse(result.isUnchanged());
+        Assert.assertEquals(1, result.getStatistics().getErrorCount());
+    }
+
+    @Test
+    public void resolutionIsSkippedAfterTheFirstPoll() throws Exception {
+        IvyResolutionResult result = evaluate(folder.newFolder(), new IvyResolutionOptions().setIncrementalResolution(true));
+
+        IvyResolutionResult skippedResult = evaluate(folder.newFolder(), new IvyResolutionOptions()
+                .setIncrementalResolution(true)
+                .setPreviousFingerprint(result.getFingerprint()));
+
+        Assert.assertTrue(skippedResult.isUnchanged());
+    }
+
+    @Test
+    public void skippedResolutionMarksTheModulesUsed() throws Exception {
+        File launchDir = folder.newFolder();
+        IvyResolutionResult result = evaluate(launchDir, new IvyResolutionOptions().setIncrementalResolution(true));
+        File moduleDir = getUnusedModuleDir(launchDir, "org", "lib");
+
+        IvyResolutionResult skippedResult = evaluate(launchDir, new IvyResolutionOptions()
+                .setIncrementalResolution(true)
+                .setPreviousFingerprint(result.getFingerprint()));
+
+        Assert.assertTrue(skippedResult.isUnchanged());
+        Assert.assertNotEquals(0, moduleDir.lastModified());
+    }
+
+    @Test
+    public void directDependenciesOnlyMarksTheModulesUsed() throws Exception {
+        File launchDir = folder.newFolder();
+        IvyResolutionOptions options = new IvyResolutionOptions().setDirectDependenciesOnly(true);
+        evaluate(launchDir, options);
+        File moduleDir = getUnusedModuleDir(launchDir, "org", "lib");
+
+        evaluate(launchDir, options);
+
+        Assert.assertNotEquals(0, moduleDir.lastModified());
+    }
+
+    private IvyResolutionResult evaluate(String configurations) throws Exception {
+        return evaluate(configurations, false);
+    }
+
+    private IvyResolutionResult evaluate(String configurations, boolean directDependenciesOnly) throws Exception {
+        return evaluate(folder.newFolder(), new IvyResolutionOptions()
+                .setDownloadArtifacts(true)
+                .setConfigurations(configurations)
+                .setDirectDependenciesOnly(directDependenciesOnly));
+    }
+
+    private IvyResolutionResult evaluate(File launchDir, IvyResolutionOptions options) throws Exception {
+        IvyTriggerEvaluator evaluator = new IvyTriggerEvaluator("test",
+                new FilePath(ivyFile),
+                new FilePath(settingsFile),
+                null,
+                null,
+                null,
+                new XTriggerLog(null),
+                Collections.<String, String>emptyMap(),
+                options);
+        return evaluator.invoke(launchDir, null);
+    }
+
+    /**
+     * @return the directory of a module in the cache of the evaluations, made unused for a long time
+     */
+    private static File getUnusedModuleDir(File launchDir, String organisation, String module) {
+        File moduleDir = new File(launchDir, IvyCacheCleaner.CACHE_DIR + "/test/" + organisation + "/" + module);
+        Assert.assertTrue(moduleDir.isDirectory());
+        Assert.assertTrue(moduleDir.setLastModified(0));
+        return moduleDir;
+    }
+
+    private static Set<String> getArtifactNames(IvyResolutionResult result) {
+        IvyDependencyValue dependency = result.getDependencies().get("org#lib;1.0");
+        Assert.assertNotNull(dependency);
+        Set<String> names = new TreeSet<>();
+        for (IvyArtifactValue artifact : dependency.getArtifacts()) {
+            names.add(artifact.getFullName());
+        }
+        return names;
+    }
+
+    private static Set<String> setOf(String... values) {
+        Set<String> set = new TreeSet<>();
+        Collections.addAll(set, values);
+        return set;
+    }
+}
@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.ivytrigger;
+
+import hudson.model.Descriptor;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class IvyTriggerTest {
+
+    //The authorizations are signed with a key of the Jenkins instance
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void authorizeControllerPolling_enabledByAdministrator() throws Exception {
+        IvyTrigger trigger = newTrigger("ivy.xml", true);
+
+        trigger.authorizeControllerPolling(null, "admin", true);
+
+        Assert.assertTrue(trigger.isControllerPollingAuthorized());
+    }
+
+    @Test
+    public void authorizeControllerPolling_keptWhenSavedAgainByOtherUser() throws Exception {
+        IvyTrigger previous = newTrigger("ivy.xml", true);
+        previous.authorizeControllerPolling(null, "admin", true);
+        IvyTrigger trigger = newTrigger("ivy.xml", true);
+
+        trigger.authorizeControllerPolling(previous, "developer", false);
+
+        Assert.assertTrue(trigger.isControllerPollingAuthorized());
+    }
+
+    @Test(expected = Descriptor.FormException.class)
+    public void authorizeControllerPolling_notEnabledByOtherUser() throws Exception {
+        IvyTrigger previous = newTrigger("ivy.xml", false);
+        previous.authorizeControllerPolling(null, "admin", true);
+        IvyTrigger trigger = newTrigger("ivy.xml", true);
+
+        trigger.authorizeControllerPolling(previous, "developer", false);
+    }
+
+    @Test
+    public void authorizeControllerPolling_droppedWhenOtherUserChangesTheFiles() throws Exception {
+        IvyTrigger previous = newTrigger("ivy.xml", true);
+        previous.authorizeControllerPolling(null, "admin", true);
+        IvyTrigger trigger = newTrigger("other/ivy.xml", true);
+
+        trigger.authorizeControllerPolling(previous, "developer", false);
+
+        Assert.assertFalse(trigger.isControllerPollingAuthorized());
+    }
+
+    @Test
+    public void authorizeControllerPolling_disabledByOtherUser() throws Exception {
+        IvyTrigger previous = newTrigger("ivy.xml", true);
+        previous.authorizeControllerPolling(null, "admin", true);
+        IvyTrigger trigger = newTrigger("ivy.xml", false);
+
+        trigger.authorizeControllerPolling(previous, "developer", false);
+
+        Assert.assertFalse(trigger.isControllerPollingAuthorized());
+    }
+
+    private static IvyTrigger newTrigger(String ivyPath, boolean pollOnController) throws Exception {
+        IvyTrigger trigger = new IvyTrigger("* * * * *", ivyPath, "ivysettings.xml", null, null, null, false, false, false);
+        trigger.setPollOnController(pollOnController);
+        return trigger;
+    }
+}
@@ -0,0 +1,72 @@
+package org.jenkinsci.plugins.ivytrigger.util;
+
+import hudson.model.FreeStyleProject;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xtriggerapi.XTriggerLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+
+public class FilePathFactoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void getDescriptorFiles_fromMasterWithoutWorkspace() throws Exception {
+        File ivyFile = folder.newFile("ivy.xml");
+        FileUtils.write(ivyFile, "<ivy-module/>", StandardCharsets.UTF_8);
+        File propertiesFile = folder.newFile("a.properties");
+        FileUtils.write(propertiesFile, "a=1", StandardCharsets.ISO_8859_1);
+
+        Map<String, String> envVars = new HashMap<>();
+        envVars.put("DIR", folder.getRoot().getAbsolutePath());
+
+        List<FilePathFactory.DescriptorFile> files = new FilePathFactory().getDescriptorFiles(
+                Arrays.asList("${DIR}/ivy.xml", null, "${DIR}/missing.properties", "${DIR}/a.properties"),
+                mock(FreeStyleProject.class), null, new XTriggerLog(null), envVars);
+
+        Assert.assertEquals(4, files.size());
+        Assert.assertEquals(ivyFile.getPath(), files.get(0).getFilePath().getRemote());
+        Assert.assertEquals("<ivy-module/>", files.get(0).getContent(StandardCharsets.UTF_8));
+        Assert.assertNull(files.get(1));
+        Assert.assertNull(files.get(2));
+        Assert.assertEquals("a=1", files.get(3).getContent(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void getDescriptorFiles_directoryIsNotAFile() throws Exception {
+        List<FilePathFactory.DescriptorFile> files = new FilePathFactory().getDescriptorFiles(
+                Arrays.asList(folder.getRoot().getAbsolutePath()),
+                mock(FreeStyleProject.class), null, new XTriggerLog(null), new HashMap<String, String>());
+
+        Assert.assertNull(files.get(0));
+    }
+
+    @Test
+    public void getControllerDescriptorFiles_onlyReadsTheAllowedDirectories() throws Exception {
+        File allowedDir = folder.newFolder("allowed");
+        FileUtils.write(new File(allowedDir, "ivy.xml"), "<ivy-module/>", StandardCharsets.UTF_8);
+        File secret = folder.newFile("secret.properties");
+        FileUtils.write(secret, "password=1", StandardCharsets.ISO_8859_1);
+
+        List<FilePathFactory.DescriptorFile> files = new FilePathFactory().getControllerDescriptorFiles(
+                Arrays.asList("ivy.xml", "../secret.properties", secret.getAbsolutePath()),
+                Collections.singletonList(allowedDir), new XTriggerLog(null), new HashMap<String, String>());
+
+        Assert.assertEquals("<ivy-module/>", files.get(0).getContent(StandardCharsets.UTF_8));
+        Assert.assertNull(files.get(1));
+        Assert.assertNull(files.get(2));
+    }
+}